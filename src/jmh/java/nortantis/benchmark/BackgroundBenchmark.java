@@ -0,0 +1,54 @@
+package nortantis.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nortantis.BackgroundGenerator;
+import nortantis.FractalBGGenerator;
+import nortantis.util.AssetsPath;
+import nortantis.util.ImageHelper;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BackgroundBenchmark
+{
+	@Param({ "512", "1536" })
+	public int size;
+
+	private BufferedImage texture;
+
+	@Setup
+	public void setup()
+	{
+		texture = ImageHelper.convertToGrayscale(ImageHelper.read(AssetsPath.get("example textures", "old_paper_1.png")));
+	}
+
+	@Benchmark
+	public BufferedImage fractalGenerate()
+	{
+		return FractalBGGenerator.generate(new Random(1), 1.3f, size, size, 0.75f);
+	}
+
+	@Benchmark
+	public BufferedImage generateUsingWhiteNoiseConvolution()
+	{
+		return BackgroundGenerator.generateUsingWhiteNoiseConvolution(new Random(1), texture, size, size);
+	}
+}
@@ -0,0 +1,40 @@
+package nortantis.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import nortantis.MapSettings;
+import nortantis.json.SettingsMapper;
+import nortantis.util.Logger;
+
+/**
+ * Inputs shared by the benchmarks.
+ */
+class BenchmarkImages
+{
+	static BufferedImage createRandomImage(Random rand, int width, int height, int type)
+	{
+		BufferedImage image = new BufferedImage(width, height, type);
+		for (int y = 0; y < height; y++)
+		{
+			for (int x = 0; x < width; x++)
+			{
+				image.setRGB(x, y, rand.nextInt(1 << 24));
+			}
+		}
+		return image;
+	}
+
+	/**
+	 * Loads one of the settings files in the project root, which is where benchmarks are run from. Logging is turned off
+	 * so it doesn't clutter the benchmark output.
+	 */
+	static MapSettings loadSettings(String fileName)
+	{
+		Logger.clearSinks();
+		Path path = Paths.get(fileName);
+		return SettingsMapper.readSettings(path);
+	}
+}
@@ -0,0 +1,58 @@
+package nortantis.benchmark;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nortantis.ImageCache;
+import nortantis.MapCreator;
+import nortantis.MapSettings;
+
+/**
+ * Creates a whole map from each of the settings files in the project root. max_memory.json is left out because it is
+ * meant to find the largest map that fits in memory rather than to be timed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class CreateMapBenchmark
+{
+	@Param({ "old_paper.json", "gray_ocean.json", "islands.json", "lava.json", "lava2.json", "ice.json" })
+	public String settingsFile;
+
+	@Param({ "1536" })
+	public int maxSize;
+
+	private MapSettings settings;
+
+	@Setup(Level.Iteration)
+	public void setup()
+	{
+		// Each iteration loads the settings again because createMap modifies the resolution to fit maxSize.
+		settings = BenchmarkImages.loadSettings(settingsFile);
+		ImageCache.clear();
+	}
+
+	@Benchmark
+	public BufferedImage createMap() throws IOException
+	{
+		return new MapCreator().createMap(settings, new Dimension(maxSize, maxSize), null);
+	}
+}
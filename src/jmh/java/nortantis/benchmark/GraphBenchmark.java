@@ -0,0 +1,68 @@
+package nortantis.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import hoten.voronoi.NoisyEdges;
+import nortantis.GraphCreator;
+import nortantis.MapCreator;
+import nortantis.MapSettings;
+import nortantis.MapSettings.LineStyle;
+import nortantis.WorldGraph;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GraphBenchmark
+{
+	private static final double width = 2048;
+	private static final double height = 1152;
+
+	@Param({ "2000", "8000", "16000" })
+	public int worldSize;
+
+	private double sizeMultiplier;
+	private WorldGraph graph;
+
+	@Setup
+	public void setup()
+	{
+		sizeMultiplier = MapCreator.calcSizeMultiplier(width);
+		graph = createGraph();
+	}
+
+	private WorldGraph createGraph()
+	{
+		return GraphCreator.createGraph(width, height, worldSize, 0.25, 0.1, new Random(1), sizeMultiplier, LineStyle.Jagged,
+				MapSettings.defaultPointPrecision);
+	}
+
+	@Benchmark
+	public WorldGraph createGraphBenchmark()
+	{
+		return createGraph();
+	}
+
+	@Benchmark
+	public NoisyEdges buildNoisyEdges()
+	{
+		NoisyEdges noisyEdges = new NoisyEdges(sizeMultiplier, LineStyle.Jagged);
+		noisyEdges.buildNoisyEdges(graph);
+		return noisyEdges;
+	}
+}
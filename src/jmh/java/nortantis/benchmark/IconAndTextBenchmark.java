@@ -0,0 +1,78 @@
+package nortantis.benchmark;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nortantis.MapCreator;
+import nortantis.MapParts;
+import nortantis.MapSettings;
+import nortantis.TextDrawer;
+import nortantis.util.ImageHelper;
+
+/**
+ * Benchmarks drawing icons and text onto a map. The map is created once during setup, and its parts are reused to
+ * draw icons and text again onto a copy of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IconAndTextBenchmark
+{
+	@Param({ "old_paper.json" })
+	public String settingsFile;
+
+	@Param({ "2048" })
+	public int maxSize;
+
+	private MapSettings settings;
+	private MapParts mapParts;
+	private BufferedImage map;
+	private BufferedImage mapCopy;
+
+	@Setup(Level.Trial)
+	public void createMap() throws IOException
+	{
+		settings = BenchmarkImages.loadSettings(settingsFile);
+		mapParts = new MapParts();
+		map = new MapCreator().createMap(settings, new Dimension(maxSize, maxSize), mapParts);
+	}
+
+	@Setup(Level.Invocation)
+	public void copyMap()
+	{
+		mapCopy = ImageHelper.deepCopy(map);
+	}
+
+	@Benchmark
+	public BufferedImage drawAllIcons()
+	{
+		mapParts.iconDrawer.drawAllIcons(mapCopy, mapParts.landBackground);
+		return mapCopy;
+	}
+
+	@Benchmark
+	public BufferedImage drawText()
+	{
+		TextDrawer textDrawer = new TextDrawer(settings, mapParts.sizeMultiplier);
+		textDrawer.drawText(mapParts.graph, mapCopy, mapParts.landBackground, mapParts.mountainGroups, mapParts.cityDrawTasks);
+		return mapCopy;
+	}
+}
@@ -0,0 +1,77 @@
+package nortantis.benchmark;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nortantis.util.ImageHelper;
+import nortantis.util.ImageHelper.ColorifyAlgorithm;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ImageHelperBenchmark
+{
+	@Param({ "256", "1024", "2048" })
+	public int size;
+
+	@Param({ "16" })
+	public int kernelSize;
+
+	private BufferedImage gray;
+	private BufferedImage color1;
+	private BufferedImage color2;
+	private BufferedImage mask;
+	private float[][] kernel;
+
+	@Setup
+	public void setup()
+	{
+		Random rand = new Random(42);
+		gray = BenchmarkImages.createRandomImage(rand, size, size, BufferedImage.TYPE_BYTE_GRAY);
+		color1 = BenchmarkImages.createRandomImage(rand, size, size, BufferedImage.TYPE_INT_RGB);
+		color2 = BenchmarkImages.createRandomImage(rand, size, size, BufferedImage.TYPE_INT_RGB);
+		mask = BenchmarkImages.createRandomImage(rand, size, size, BufferedImage.TYPE_BYTE_GRAY);
+		kernel = ImageHelper.createGaussianKernel(kernelSize);
+	}
+
+	@Benchmark
+	public BufferedImage convolveGrayscale()
+	{
+		return ImageHelper.convolveGrayscale(gray, kernel, true);
+	}
+
+	@Benchmark
+	public BufferedImage maskWithImage()
+	{
+		return ImageHelper.maskWithImage(color1, color2, mask);
+	}
+
+	@Benchmark
+	public BufferedImage maskWithColor()
+	{
+		return ImageHelper.maskWithColor(color1, Color.black, mask, false);
+	}
+
+	@Benchmark
+	public BufferedImage colorify()
+	{
+		return ImageHelper.colorify(gray, new Color(180, 150, 100), ColorifyAlgorithm.algorithm3);
+	}
+}
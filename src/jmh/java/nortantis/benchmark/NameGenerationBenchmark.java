@@ -0,0 +1,64 @@
+package nortantis.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nortantis.NotEnoughNamesException;
+import nortantis.nlp.CharacterNGram;
+import nortantis.util.AssetsPath;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NameGenerationBenchmark
+{
+	private static final List<String> books = List.of("A Princess of Mars", "Ancient Egypt", "Jungle Tales of Tarzan");
+
+	private List<String> placeNames;
+	private CharacterNGram nGram;
+
+	@Setup
+	public void setup() throws IOException
+	{
+		var base = AssetsPath.get("books");
+		placeNames = new ArrayList<>();
+		for (String book : books)
+		{
+			Files.readAllLines(base.resolve(book + "_place_names.txt")).stream().filter(line -> !line.isBlank()).forEach(placeNames::add);
+		}
+		nGram = new CharacterNGram(new Random(1), 3);
+		nGram.addData(placeNames);
+	}
+
+	@Benchmark
+	public CharacterNGram train()
+	{
+		CharacterNGram model = new CharacterNGram(new Random(1), 3);
+		model.addData(placeNames);
+		return model;
+	}
+
+	@Benchmark
+	public String generateNameNotInCorpora() throws NotEnoughNamesException
+	{
+		return nGram.generateNameNotInCorpora();
+	}
+}
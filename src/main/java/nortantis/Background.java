@@ -1,11 +1,14 @@
 package nortantis;
 
+import nortantis.util.Helper;
 import nortantis.util.ImageHelper;
 import nortantis.util.ImageHelper.ColorifyAlgorithm;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Random;
 
 /**
@@ -34,7 +37,6 @@ public class Background
 		&& (!settings.generateBackgroundFromTexture || settings.colorizeLand)
 		&& !settings.transparentBackground;
 
-        BufferedImage landGeneratedBackground;
 		landColorifyAlgorithm = ColorifyAlgorithm.none;
 		mapBounds = calcMapBoundsAndAdjustResolutionIfNeeded(settings, maxDimensions);
 		if (settings.generateBackground || settings.generateBackgroundFromTexture || settings.transparentBackground)
@@ -42,140 +44,24 @@ public class Background
 
 			borderWidthScaled = settings.drawBorder ? (int) (settings.borderWidth * settings.resolution) : 0;
 										
-			if (settings.generateBackground)
+			if (settings.generateBackground || settings.generateBackgroundFromTexture)
 			{
-				// Fractal generated background images
-				
-				BufferedImage oceanGeneratedBackground = FractalBGGenerator.generate(
-						new Random(settings.backgroundRandomSeed), settings.fractalPower, 
-						(int)mapBounds.getWidth() + borderWidthScaled * 2, (int)mapBounds.getHeight() + borderWidthScaled * 2, 0.75f);
-				landGeneratedBackground = oceanGeneratedBackground;
-				landColorifyAlgorithm = ImageHelper.ColorifyAlgorithm.algorithm2;
-				borderBackground = ImageHelper.colorify(oceanGeneratedBackground, settings.oceanColor, ImageHelper.ColorifyAlgorithm.algorithm2);
-				
-				if (settings.drawBorder)
-				{
-					ocean = removeBorderPadding(borderBackground);
-				}
-				else
-				{
-					ocean = borderBackground;
-					borderBackground = null;
-				}
-				
-				if (shouldDrawRegionColors)
-				{
-					// Drawing region colors must be done later because it depends on the graph.
-					land = removeBorderPadding(landGeneratedBackground);
-				}
-				else
-				{
-					land = ImageHelper.colorify(removeBorderPadding(landGeneratedBackground), settings.landColor, landColorifyAlgorithm);
-				}
-			}
-			else if (settings.generateBackgroundFromTexture)
-			{
-				// Generate the background images from a texture
-				
-				BufferedImage texture;
-				try
-				{
-					texture = ImageCache.getInstance().getImageFromFile(settings.backgroundTextureImage);
-				}
-				catch (RuntimeException e)
-				{
-					throw new RuntimeException("Unable to read the texture image file name \"" + settings.backgroundTextureImage + "\"", e);
-				}
-				
-				BufferedImage oceanGeneratedBackground;
-				if (settings.colorizeOcean)
-				{
-					oceanGeneratedBackground = BackgroundGenerator.generateUsingWhiteNoiseConvolution(
-						new Random(settings.backgroundRandomSeed), ImageHelper.convertToGrayscale(texture), 
-						(int)mapBounds.getHeight() + borderWidthScaled * 2, (int)mapBounds.getWidth() + borderWidthScaled * 2);
-					borderBackground = ImageHelper.colorify(oceanGeneratedBackground, settings.oceanColor, ImageHelper.ColorifyAlgorithm.algorithm3);
-					if (settings.drawBorder)
-					{
-						ocean = ImageHelper.deepCopy(removeBorderPadding(borderBackground));
-					}
-					else
-					{
-						ocean = borderBackground;
-						borderBackground = null;
-					}
-				}
-				else
-				{
-					oceanGeneratedBackground = BackgroundGenerator.generateUsingWhiteNoiseConvolution(
-							new Random(settings.backgroundRandomSeed), texture, (int)mapBounds.getHeight() + borderWidthScaled *  2, 
-							(int)mapBounds.getWidth() + borderWidthScaled * 2);
-					if (settings.drawBorder)
-					{
-						ocean = removeBorderPadding(oceanGeneratedBackground);
-						borderBackground = oceanGeneratedBackground;
-					}
-					else
-					{
-						ocean = oceanGeneratedBackground;
-					}
-				}
-				
-				if (settings.colorizeLand == settings.colorizeOcean)
+				if (settings.generateBackground)
 				{
-					// Don't generate the same image twice.
-					landGeneratedBackground = oceanGeneratedBackground;
-					
-					if (settings.colorizeLand)
-					{
-						landColorifyAlgorithm = ImageHelper.ColorifyAlgorithm.algorithm3;					
-						if (shouldDrawRegionColors)
-						{
-							// Drawing region colors must be done later because it depends on the graph.
-							land = removeBorderPadding(landGeneratedBackground);
-						}
-						else
-						{
-							land = ImageHelper.colorify(removeBorderPadding(landGeneratedBackground), settings.landColor, ImageHelper.ColorifyAlgorithm.algorithm3);
-						}
-					}
-					else
-					{
-						landColorifyAlgorithm = ImageHelper.ColorifyAlgorithm.none;
-						land = removeBorderPadding(landGeneratedBackground);
-					}
+					landColorifyAlgorithm = ImageHelper.ColorifyAlgorithm.algorithm2;
 				}
 				else
 				{
-					if (settings.colorizeLand)
-					{
-						// It's necessary to generate landGeneratedBackground at a larger size including border width, then crop out the part we want because 
-						// otherwise the random texture of the land won't match the texture of the ocean.
-						
-						landGeneratedBackground = BackgroundGenerator.generateUsingWhiteNoiseConvolution(
-							new Random(settings.backgroundRandomSeed), ImageHelper.convertToGrayscale(texture), 
-							(int)mapBounds.getHeight() + borderWidthScaled * 2,
-							(int)mapBounds.getWidth() + borderWidthScaled * 2);
-						if (shouldDrawRegionColors)
-						{
-							// Drawing region colors must be done later because it depends on the graph.
-							land = removeBorderPadding(landGeneratedBackground);
-						}
-						else
-						{
-							land = ImageHelper.colorify(removeBorderPadding(landGeneratedBackground), settings.landColor, ImageHelper.ColorifyAlgorithm.algorithm3);
-						}
-						landColorifyAlgorithm = ImageHelper.ColorifyAlgorithm.algorithm3;
-					}
-					else
-					{
-						landGeneratedBackground = BackgroundGenerator.generateUsingWhiteNoiseConvolution(
-								new Random(settings.backgroundRandomSeed), texture, 
-								(int)mapBounds.getHeight() + borderWidthScaled * 2, 
-								(int)mapBounds.getWidth() + borderWidthScaled * 2);
-						land = removeBorderPadding(landGeneratedBackground);
-						landColorifyAlgorithm = ImageHelper.ColorifyAlgorithm.none;
-					}
+					landColorifyAlgorithm = settings.colorizeLand ? ImageHelper.ColorifyAlgorithm.algorithm3 : ImageHelper.ColorifyAlgorithm.none;
 				}
+
+				String cacheKey = createCacheKey(settings);
+				BackgroundCache.Images images = cacheKey == null ? generateImages(settings)
+						: BackgroundCache.getInstance().getImages(cacheKey, () -> generateImages(settings));
+				land = images.land();
+				ocean = images.ocean();
+				// The map is drawn onto the border background, so it can't be the cached image.
+				borderBackground = images.borderBackground() == null ? null : ImageHelper.deepCopy(images.borderBackground());
 			}
 			else
 			{
@@ -248,6 +134,195 @@ public class Background
 		}
 	}
 			
+	/**
+	 * Generates the land, ocean, and border background images from a fractal or a texture.
+	 */
+	private BackgroundCache.Images generateImages(MapSettings settings)
+	{
+		BufferedImage land;
+		BufferedImage ocean;
+		BufferedImage borderBackground = null;
+		BufferedImage landGeneratedBackground;
+		if (settings.generateBackground)
+		{
+			// Fractal generated background images
+			
+			BufferedImage oceanGeneratedBackground = FractalBGGenerator.generate(
+					new Random(settings.backgroundRandomSeed), settings.fractalPower, 
+					(int)mapBounds.getWidth() + borderWidthScaled * 2, (int)mapBounds.getHeight() + borderWidthScaled * 2, 0.75f);
+			landGeneratedBackground = oceanGeneratedBackground;
+			borderBackground = ImageHelper.colorify(oceanGeneratedBackground, settings.oceanColor, ImageHelper.ColorifyAlgorithm.algorithm2);
+			
+			if (settings.drawBorder)
+			{
+				ocean = removeBorderPadding(borderBackground);
+			}
+			else
+			{
+				ocean = borderBackground;
+				borderBackground = null;
+			}
+			
+			if (shouldDrawRegionColors)
+			{
+				// Drawing region colors must be done later because it depends on the graph.
+				land = removeBorderPadding(landGeneratedBackground);
+			}
+			else
+			{
+				land = ImageHelper.colorify(removeBorderPadding(landGeneratedBackground), settings.landColor, landColorifyAlgorithm);
+			}
+		}
+		else
+		{
+			// Generate the background images from a texture
+			
+			BufferedImage texture;
+			try
+			{
+				texture = ImageCache.getInstance().getImageFromFile(settings.backgroundTextureImage);
+			}
+			catch (RuntimeException e)
+			{
+				throw new RuntimeException("Unable to read the texture image file name \"" + settings.backgroundTextureImage + "\"", e);
+			}
+			
+			BufferedImage oceanGeneratedBackground;
+			if (settings.colorizeOcean)
+			{
+				oceanGeneratedBackground = BackgroundGenerator.generateUsingWhiteNoiseConvolution(
+					new Random(settings.backgroundRandomSeed), ImageHelper.convertToGrayscale(texture), 
+					(int)mapBounds.getHeight() + borderWidthScaled * 2, (int)mapBounds.getWidth() + borderWidthScaled * 2);
+				borderBackground = ImageHelper.colorify(oceanGeneratedBackground, settings.oceanColor, ImageHelper.ColorifyAlgorithm.algorithm3);
+				if (settings.drawBorder)
+				{
+					ocean = ImageHelper.deepCopy(removeBorderPadding(borderBackground));
+				}
+				else
+				{
+					ocean = borderBackground;
+					borderBackground = null;
+				}
+			}
+			else
+			{
+				oceanGeneratedBackground = BackgroundGenerator.generateUsingWhiteNoiseConvolution(
+						new Random(settings.backgroundRandomSeed), texture, (int)mapBounds.getHeight() + borderWidthScaled *  2, 
+						(int)mapBounds.getWidth() + borderWidthScaled * 2);
+				if (settings.drawBorder)
+				{
+					ocean = removeBorderPadding(oceanGeneratedBackground);
+					borderBackground = oceanGeneratedBackground;
+				}
+				else
+				{
+					ocean = oceanGeneratedBackground;
+				}
+			}
+			
+			if (settings.colorizeLand == settings.colorizeOcean)
+			{
+				// Don't generate the same image twice.
+				landGeneratedBackground = oceanGeneratedBackground;
+				
+				if (settings.colorizeLand)
+				{
+					if (shouldDrawRegionColors)
+					{
+						// Drawing region colors must be done later because it depends on the graph.
+						land = removeBorderPadding(landGeneratedBackground);
+					}
+					else
+					{
+						land = ImageHelper.colorify(removeBorderPadding(landGeneratedBackground), settings.landColor, ImageHelper.ColorifyAlgorithm.algorithm3);
+					}
+				}
+				else
+				{
+					land = removeBorderPadding(landGeneratedBackground);
+				}
+			}
+			else
+			{
+				if (settings.colorizeLand)
+				{
+					// It's necessary to generate landGeneratedBackground at a larger size including border width, then crop out the part we want because 
+					// otherwise the random texture of the land won't match the texture of the ocean.
+					
+					landGeneratedBackground = BackgroundGenerator.generateUsingWhiteNoiseConvolution(
+						new Random(settings.backgroundRandomSeed), ImageHelper.convertToGrayscale(texture), 
+						(int)mapBounds.getHeight() + borderWidthScaled * 2,
+						(int)mapBounds.getWidth() + borderWidthScaled * 2);
+					if (shouldDrawRegionColors)
+					{
+						// Drawing region colors must be done later because it depends on the graph.
+						land = removeBorderPadding(landGeneratedBackground);
+					}
+					else
+					{
+						land = ImageHelper.colorify(removeBorderPadding(landGeneratedBackground), settings.landColor, ImageHelper.ColorifyAlgorithm.algorithm3);
+					}
+				}
+				else
+				{
+					landGeneratedBackground = BackgroundGenerator.generateUsingWhiteNoiseConvolution(
+							new Random(settings.backgroundRandomSeed), texture, 
+							(int)mapBounds.getHeight() + borderWidthScaled * 2, 
+							(int)mapBounds.getWidth() + borderWidthScaled * 2);
+					land = removeBorderPadding(landGeneratedBackground);
+				}
+			}
+		}
+		return new BackgroundCache.Images(land, ocean, borderBackground);
+	}
+
+	/**
+	 * Creates a key for BackgroundCache from every setting that affects the images generateImages creates.
+	 *
+	 * @return The key, or null if the texture file can't be read, in which case the background shouldn't be cached.
+	 */
+	private String createCacheKey(MapSettings settings)
+	{
+		StringBuilder key = new StringBuilder();
+		key.append(settings.generateBackground ? "fractal" : "texture");
+		key.append(" seed=").append(settings.backgroundRandomSeed);
+		key.append(" size=").append((int) mapBounds.getWidth()).append("x").append((int) mapBounds.getHeight());
+		key.append(" border=").append(settings.drawBorder ? borderWidthScaled : -1);
+		key.append(" regionColors=").append(shouldDrawRegionColors);
+		boolean isLandColorized;
+		boolean isOceanColorized;
+		if (settings.generateBackground)
+		{
+			key.append(" power=").append(settings.fractalPower);
+			isLandColorized = true;
+			isOceanColorized = true;
+		}
+		else
+		{
+			try
+			{
+				key.append(" texture=").append(Helper.sha256Hex(Files.readAllBytes(settings.backgroundTextureImage)));
+			}
+			catch (IOException e)
+			{
+				return null;
+			}
+			key.append(" colorizeLand=").append(settings.colorizeLand);
+			key.append(" colorizeOcean=").append(settings.colorizeOcean);
+			isLandColorized = settings.colorizeLand;
+			isOceanColorized = settings.colorizeOcean;
+		}
+		if (isLandColorized && !shouldDrawRegionColors)
+		{
+			key.append(" landColor=").append(settings.landColor.getRGB());
+		}
+		if (isOceanColorized)
+		{
+			key.append(" oceanColor=").append(settings.oceanColor.getRGB());
+		}
+		return key.toString();
+	}
+
 	DimensionDouble calcMapBoundsAndAdjustResolutionIfNeeded(MapSettings settings, Dimension maxDimensions)
 	{
 		if (settings.generateBackground || settings.generateBackgroundFromTexture || settings.transparentBackground)
@@ -0,0 +1,360 @@
+package nortantis;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import nortantis.util.Helper;
+import nortantis.util.Logger;
+import nortantis.util.RawRaster;
+
+/**
+ * Caches the generated land, ocean, and border background images so that maps drawn with the same background settings
+ * don't generate them again.
+ *
+ * Backgrounds are keyed by a string that Background builds from every setting that affects them, so maps that differ
+ * only in other settings, such as text or icons, share a background. The cache holds at most a configurable number of
+ * bytes in memory, evicting the least recently used backgrounds first. Backgrounds are held by soft references, so the
+ * garbage collector can reclaim them before the budget is reached when memory runs low, such as in a long editing
+ * session. If a folder is set, with setFolder or the system property nortantis.backgroundCacheFolder, backgrounds are
+ * also stored there as RawRaster files so that other runs of the program can reuse them.
+ *
+ * The cached images are shared, so callers must not draw on them.
+ */
+public class BackgroundCache
+{
+	// Increment this when the background generators change so that old files are regenerated.
+	private static final int fileVersion = 1;
+	private static final String keyFileExtension = ".key";
+
+	private static BackgroundCache instance;
+
+	/**
+	 * Every cached background in least to most recently used order. Guarded by itself.
+	 */
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long bytes;
+	private long maxBytes = Runtime.getRuntime().maxMemory() / 8;
+	private Path folder;
+
+	/**
+	 * Backgrounds being created, so that other threads asking for the same key can wait for them.
+	 */
+	private final Map<String, CompletableFuture<Images>> inProgress = new ConcurrentHashMap<>();
+
+	/**
+	 * The background images for one set of settings.
+	 *
+	 * @param borderBackground The ocean background including the area under the border, or null if the map has no border.
+	 */
+	public record Images(BufferedImage land, BufferedImage ocean, BufferedImage borderBackground)
+	{
+		/**
+		 * The images can share pixels, such as when ocean is a subimage of borderBackground, so each DataBuffer is
+		 * counted once.
+		 */
+		long sizeInBytes()
+		{
+			Set<DataBuffer> buffers = Collections.newSetFromMap(new IdentityHashMap<>());
+			long size = 0;
+			for (BufferedImage image : new BufferedImage[] { land, ocean, borderBackground })
+			{
+				if (image != null && buffers.add(image.getRaster().getDataBuffer()))
+				{
+					size += BackgroundCache.sizeInBytes(image.getRaster().getDataBuffer());
+				}
+			}
+			return size;
+		}
+	}
+
+	private static class Entry
+	{
+		final SoftReference<Images> images;
+		final long bytes;
+
+		Entry(Images images)
+		{
+			this.images = new SoftReference<>(images);
+			bytes = images.sizeInBytes();
+		}
+	}
+
+	public BackgroundCache(Path folder)
+	{
+		this.folder = folder;
+	}
+
+	public synchronized static BackgroundCache getInstance()
+	{
+		if (instance == null)
+		{
+			String folder = System.getProperty("nortantis.backgroundCacheFolder");
+			instance = new BackgroundCache(folder != null ? Paths.get(folder) : null);
+		}
+		return instance;
+	}
+
+	/**
+	 * Sets the number of bytes of images the cache may hold in memory before it evicts the least recently used
+	 * backgrounds. The default is an eighth of the maximum heap size. Zero turns off caching in memory.
+	 */
+	public void setMaxBytes(long maxBytes)
+	{
+		synchronized (entries)
+		{
+			this.maxBytes = maxBytes;
+			evictIfOverBudget();
+		}
+	}
+
+	/**
+	 * Sets the folder to store backgrounds in, or null to only cache them in memory.
+	 */
+	public synchronized void setFolder(Path folder)
+	{
+		this.folder = folder;
+	}
+
+	private synchronized Path getFolder()
+	{
+		return folder;
+	}
+
+	public void clear()
+	{
+		synchronized (entries)
+		{
+			entries.clear();
+			bytes = 0;
+		}
+	}
+
+	/**
+	 * Gets the background for a key from memory or disk, or creates it if it isn't cached. If another thread is
+	 * already creating it, this waits for it rather than creating it again. Problems reading or writing the cache
+	 * folder are logged and the background is created in memory instead.
+	 *
+	 * @param key Identifies the background. Must include every setting that affects the images create returns.
+	 * @param create Generates the background.
+	 */
+	public Images getImages(String key, Supplier<Images> create)
+	{
+		Images images = getIfPresent(key);
+		if (images != null)
+		{
+			return images;
+		}
+
+		CompletableFuture<Images> future = new CompletableFuture<>();
+		CompletableFuture<Images> existing = inProgress.putIfAbsent(key, future);
+		if (existing != null)
+		{
+			return join(existing);
+		}
+
+		try
+		{
+			// Check again in case another thread finished creating the background between the first check and now.
+			images = getIfPresent(key);
+			if (images == null)
+			{
+				images = readOrCreate(key, create);
+				put(key, images);
+			}
+			future.complete(images);
+			return images;
+		}
+		catch (RuntimeException | Error e)
+		{
+			future.completeExceptionally(e);
+			throw e;
+		}
+		finally
+		{
+			inProgress.remove(key, future);
+		}
+	}
+
+	private Images readOrCreate(String key, Supplier<Images> create)
+	{
+		Path folder = getFolder();
+		if (folder == null)
+		{
+			return create.get();
+		}
+
+		String baseName = Helper.sha256Hex(key.getBytes(StandardCharsets.UTF_8));
+		if (Files.exists(folder.resolve(baseName + keyFileExtension)))
+		{
+			try
+			{
+				Images images = read(folder, baseName, key);
+				if (images != null)
+				{
+					return images;
+				}
+			}
+			catch (IOException | RuntimeException e)
+			{
+				Logger.println("Unable to read cached background " + baseName + " from " + folder + ". It will be recreated. " + e.getMessage());
+			}
+		}
+
+		Images images = create.get();
+		try
+		{
+			write(folder, baseName, key, images);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			Logger.println("Unable to store background " + baseName + " in " + folder + ". " + e.getMessage());
+		}
+		return images;
+	}
+
+	private Images getIfPresent(String key)
+	{
+		synchronized (entries)
+		{
+			Entry entry = entries.get(key);
+			if (entry == null)
+			{
+				return null;
+			}
+			Images images = entry.images.get();
+			if (images == null)
+			{
+				// The garbage collector reclaimed it.
+				entries.remove(key);
+				bytes -= entry.bytes;
+			}
+			return images;
+		}
+	}
+
+	private void put(String key, Images images)
+	{
+		synchronized (entries)
+		{
+			Entry entry = new Entry(images);
+			Entry previous = entries.put(key, entry);
+			if (previous != null)
+			{
+				bytes -= previous.bytes;
+			}
+			bytes += entry.bytes;
+			evictIfOverBudget();
+		}
+	}
+
+	private void evictIfOverBudget()
+	{
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (bytes > maxBytes && iterator.hasNext())
+		{
+			bytes -= iterator.next().bytes;
+			iterator.remove();
+		}
+	}
+
+	private static Images join(CompletableFuture<Images> future)
+	{
+		try
+		{
+			return future.join();
+		}
+		catch (CompletionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	private static long sizeInBytes(DataBuffer buffer)
+	{
+		return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+	}
+
+	/**
+	 * @return The background, or null if the files were written by a different version or for a different key.
+	 */
+	private static Images read(Path folder, String baseName, String key) throws IOException
+	{
+		if (!Files.readString(folder.resolve(baseName + keyFileExtension)).equals(createKeyFileContents(key)))
+		{
+			return null;
+		}
+		Path borderPath = getImagePath(folder, baseName, "border");
+		return new Images(RawRaster.read(getImagePath(folder, baseName, "land")), RawRaster.read(getImagePath(folder, baseName, "ocean")),
+				Files.exists(borderPath) ? RawRaster.read(borderPath) : null);
+	}
+
+	private static void write(Path folder, String baseName, String key, Images images) throws IOException
+	{
+		Files.createDirectories(folder);
+		writeAtomically(folder, getImagePath(folder, baseName, "land"), temp -> RawRaster.write(images.land(), temp));
+		writeAtomically(folder, getImagePath(folder, baseName, "ocean"), temp -> RawRaster.write(images.ocean(), temp));
+		if (images.borderBackground() != null)
+		{
+			writeAtomically(folder, getImagePath(folder, baseName, "border"), temp -> RawRaster.write(images.borderBackground(), temp));
+		}
+		else
+		{
+			Files.deleteIfExists(getImagePath(folder, baseName, "border"));
+		}
+		// The key file is written last because readers look for it to know the images are complete.
+		writeAtomically(folder, folder.resolve(baseName + keyFileExtension), temp -> Files.writeString(temp, createKeyFileContents(key)));
+	}
+
+	private interface FileWriter
+	{
+		void write(Path path) throws IOException;
+	}
+
+	/**
+	 * Writes to a temporary file first so that other processes never see a partly written file.
+	 */
+	private static void writeAtomically(Path folder, Path path, FileWriter writer) throws IOException
+	{
+		Path temp = Files.createTempFile(folder, "background", ".tmp");
+		try
+		{
+			writer.write(temp);
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private static Path getImagePath(Path folder, String baseName, String imageName)
+	{
+		return folder.resolve(baseName + "." + imageName + "." + RawRaster.fileExtension);
+	}
+
+	private static String createKeyFileContents(String key)
+	{
+		return fileVersion + "\n" + key;
+	}
+}
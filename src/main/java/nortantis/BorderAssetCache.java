@@ -0,0 +1,346 @@
+package nortantis;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import nortantis.util.AssetManifest;
+import nortantis.util.AssetsPath;
+import nortantis.util.ImageHelper;
+import nortantis.util.Logger;
+
+/**
+ * Caches the corner and edge images of each border, scaled to the border's width, so that they are loaded, scaled, and
+ * flipped once rather than each time a map with a border is drawn.
+ *
+ * Border folders only need one corner and one edge image. The missing ones are created by flipping and rotating the
+ * ones that are there.
+ */
+public class BorderAssetCache
+{
+	// Each set takes a few MB at most, and maps are usually drawn at one or two resolutions at a time.
+	private static final int maxCachedBorderSets = 8;
+
+	private static BorderAssetCache instance;
+
+	private final Map<Key, CompletableFuture<BorderSet>> borderSets;
+
+	private record Key(String borderType, int borderWidth)
+	{
+	}
+
+	/**
+	 * The corners and edges of a border. Loaded corners and the left edge are scaled to borderWidth pixels wide, and the
+	 * other loaded edges are scaled to borderWidth pixels tall.
+	 */
+	public record BorderSet(BufferedImage upperLeftCorner, BufferedImage upperRightCorner, BufferedImage lowerLeftCorner,
+			BufferedImage lowerRightCorner, BufferedImage topEdge, BufferedImage bottomEdge, BufferedImage leftEdge, BufferedImage rightEdge)
+	{
+	}
+
+	private BorderAssetCache()
+	{
+		borderSets = new LinkedHashMap<>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, CompletableFuture<BorderSet>> eldest)
+			{
+				return size() > maxCachedBorderSets;
+			}
+		};
+	}
+
+	public synchronized static BorderAssetCache getInstance()
+	{
+		if (instance == null)
+		{
+			instance = new BorderAssetCache();
+		}
+		return instance;
+	}
+
+	/**
+	 * Gets the corners and edges of a border scaled to the given width, creating them if they are not cached. If
+	 * another thread is already creating them, this waits for it rather than creating them again.
+	 *
+	 * @param borderType The name of a folder in assets/borders.
+	 * @param borderWidth The width of the border in pixels.
+	 */
+	public BorderSet getBorderSet(String borderType, int borderWidth)
+	{
+		Key key = new Key(borderType, borderWidth);
+		CompletableFuture<BorderSet> future;
+		boolean isNew = false;
+		synchronized (borderSets)
+		{
+			future = borderSets.get(key);
+			if (future == null)
+			{
+				future = new CompletableFuture<>();
+				borderSets.put(key, future);
+				isNew = true;
+			}
+		}
+
+		if (isNew)
+		{
+			try
+			{
+				future.complete(createBorderSet(borderType, borderWidth));
+			}
+			catch (RuntimeException e)
+			{
+				synchronized (borderSets)
+				{
+					borderSets.remove(key);
+				}
+				future.completeExceptionally(e);
+			}
+		}
+		return join(future);
+	}
+
+	public void clear()
+	{
+		synchronized (borderSets)
+		{
+			borderSets.clear();
+		}
+	}
+
+	private static BorderSet createBorderSet(String borderType, int borderWidth)
+	{
+		var allBordersPath = AssetsPath.get("borders");
+		var borderPath = allBordersPath.resolve(borderType);
+		if (!Files.exists(borderPath))
+		{
+			throw new RuntimeException("The selected border type '" + borderType + "' does not have a folder for images in " + allBordersPath + ".");
+		}
+
+		// Load and scale each image in parallel.
+		var upperLeftFuture = loadScaledAsync(borderPath, "upper_left_corner.", image -> ImageHelper.scaleByWidth(image, borderWidth));
+		var upperRightFuture = loadScaledAsync(borderPath, "upper_right_corner.", image -> ImageHelper.scaleByWidth(image, borderWidth));
+		var lowerLeftFuture = loadScaledAsync(borderPath, "lower_left_corner.", image -> ImageHelper.scaleByWidth(image, borderWidth));
+		var lowerRightFuture = loadScaledAsync(borderPath, "lower_right_corner.", image -> ImageHelper.scaleByWidth(image, borderWidth));
+		var topFuture = loadScaledAsync(borderPath, "top_edge.", image -> ImageHelper.scaleByHeight(image, borderWidth));
+		var bottomFuture = loadScaledAsync(borderPath, "bottom_edge.", image -> ImageHelper.scaleByHeight(image, borderWidth));
+		var leftFuture = loadScaledAsync(borderPath, "left_edge.", image -> ImageHelper.scaleByWidth(image, borderWidth));
+		var rightFuture = loadScaledAsync(borderPath, "right_edge.", image -> ImageHelper.scaleByHeight(image, borderWidth));
+
+		// Corners
+		BufferedImage upperLeftCorner = join(upperLeftFuture);
+		BufferedImage upperRightCorner = join(upperRightFuture);
+		BufferedImage lowerLeftCorner = join(lowerLeftFuture);
+		BufferedImage lowerRightCorner = join(lowerRightFuture);
+		if (upperLeftCorner == null)
+		{
+			if (upperRightCorner != null)
+			{
+				upperLeftCorner = createCornerFromCornerByFlipping(upperRightCorner, CornerType.upperRight, CornerType.upperLeft);
+			}
+			else if (lowerLeftCorner != null)
+			{
+				upperLeftCorner = createCornerFromCornerByFlipping(lowerLeftCorner, CornerType.lowerLeft, CornerType.upperLeft);
+			}
+			else if (lowerRightCorner != null)
+			{
+				upperLeftCorner = createCornerFromCornerByFlipping(lowerRightCorner, CornerType.lowerRight, CornerType.upperLeft);
+			}
+			else
+			{
+				throw new RuntimeException("Couldn't find any corner images in " + borderPath);
+			}
+		}
+		final BufferedImage upperLeft = upperLeftCorner;
+		var upperRightCornerFuture = orCreateAsync(upperRightCorner,
+				() -> createCornerFromCornerByFlipping(upperLeft, CornerType.upperLeft, CornerType.upperRight));
+		var lowerLeftCornerFuture = orCreateAsync(lowerLeftCorner,
+				() -> createCornerFromCornerByFlipping(upperLeft, CornerType.upperLeft, CornerType.lowerLeft));
+		var lowerRightCornerFuture = orCreateAsync(lowerRightCorner,
+				() -> createCornerFromCornerByFlipping(upperLeft, CornerType.upperLeft, CornerType.lowerRight));
+
+		// Edges
+		BufferedImage topEdge = join(topFuture);
+		BufferedImage bottomEdge = join(bottomFuture);
+		BufferedImage leftEdge = join(leftFuture);
+		BufferedImage rightEdge = join(rightFuture);
+		if (topEdge == null)
+		{
+			if (rightEdge != null)
+			{
+				topEdge = createEdgeFromEdge(rightEdge, EdgeType.Right, EdgeType.Top);
+			}
+			else if (leftEdge != null)
+			{
+				topEdge = createEdgeFromEdge(leftEdge, EdgeType.Left, EdgeType.Top);
+			}
+			else if (bottomEdge != null)
+			{
+				topEdge = createEdgeFromEdge(bottomEdge, EdgeType.Bottom, EdgeType.Top);
+			}
+			else
+			{
+				throw new RuntimeException("Couldn't find any edge images in " + borderPath);
+			}
+		}
+		final BufferedImage top = topEdge;
+		var rightEdgeFuture = orCreateAsync(rightEdge, () -> createEdgeFromEdge(top, EdgeType.Top, EdgeType.Right));
+		var leftEdgeFuture = orCreateAsync(leftEdge, () -> createEdgeFromEdge(top, EdgeType.Top, EdgeType.Left));
+		var bottomEdgeFuture = orCreateAsync(bottomEdge, () -> createEdgeFromEdge(top, EdgeType.Top, EdgeType.Bottom));
+
+		return new BorderSet(upperLeft, join(upperRightCornerFuture), join(lowerLeftCornerFuture), join(lowerRightCornerFuture), top,
+				join(bottomEdgeFuture), join(leftEdgeFuture), join(rightEdgeFuture));
+	}
+
+	/**
+	 * Loads and scales an image in the background. The result is null if the border doesn't have the image.
+	 */
+	private static CompletableFuture<BufferedImage> loadScaledAsync(Path borderPath, String inFileName, UnaryOperator<BufferedImage> scale)
+	{
+		return CompletableFuture.supplyAsync(() ->
+		{
+			BufferedImage image = loadImageWithStringInFileName(borderPath, inFileName, false);
+			return image == null ? null : scale.apply(image);
+		});
+	}
+
+	private static CompletableFuture<BufferedImage> orCreateAsync(BufferedImage image, Supplier<BufferedImage> create)
+	{
+		return image != null ? CompletableFuture.completedFuture(image) : CompletableFuture.supplyAsync(create);
+	}
+
+	private static <T> T join(CompletableFuture<T> future)
+	{
+		try
+		{
+			return future.join();
+		}
+		catch (CompletionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	private static BufferedImage createEdgeFromEdge(BufferedImage edgeIn, EdgeType edgeTypeIn, EdgeType outputType)
+	{
+		return switch (edgeTypeIn)
+		{
+			case Bottom -> switch (outputType)
+			{
+				case Bottom -> edgeIn;
+				case Left -> ImageHelper.rotate90Degrees(edgeIn, true);
+				case Right -> ImageHelper.rotate90Degrees(edgeIn, false);
+				case Top -> ImageHelper.flipOnYAxis(edgeIn);
+			};
+			case Left -> switch (outputType)
+			{
+				case Bottom -> ImageHelper.rotate90Degrees(edgeIn, false);
+				case Left -> edgeIn;
+				case Right -> ImageHelper.flipOnXAxis(edgeIn);
+				case Top -> ImageHelper.rotate90Degrees(edgeIn, true);
+			};
+			case Right -> switch (outputType)
+			{
+				case Bottom -> ImageHelper.rotate90Degrees(edgeIn, true);
+				case Left -> ImageHelper.flipOnXAxis(edgeIn);
+				case Right -> edgeIn;
+				case Top -> ImageHelper.rotate90Degrees(edgeIn, false);
+			};
+			case Top -> switch (outputType)
+			{
+				case Bottom -> ImageHelper.flipOnYAxis(edgeIn);
+				case Left -> ImageHelper.rotate90Degrees(edgeIn, false);
+				case Right -> ImageHelper.rotate90Degrees(edgeIn, true);
+				case Top -> edgeIn;
+			};
+		};
+	}
+
+	private enum EdgeType
+	{
+		Top,
+		Bottom,
+		Left,
+		Right
+	}
+
+	private static BufferedImage createCornerFromCornerByFlipping(BufferedImage cornerIn, CornerType inputCornerType, CornerType outputType)
+	{
+		return switch (inputCornerType)
+		{
+			case lowerLeft -> switch (outputType)
+			{
+				case lowerLeft -> cornerIn;
+				case lowerRight -> ImageHelper.flipOnXAxis(cornerIn);
+				case upperLeft -> ImageHelper.flipOnYAxis(cornerIn);
+				case upperRight -> ImageHelper.flipOnXAxis(ImageHelper.flipOnYAxis(cornerIn));
+			};
+			case lowerRight -> switch (outputType)
+			{
+				case lowerLeft -> ImageHelper.flipOnXAxis(cornerIn);
+				case lowerRight -> cornerIn;
+				case upperLeft -> ImageHelper.flipOnXAxis(ImageHelper.flipOnYAxis(cornerIn));
+				case upperRight -> ImageHelper.flipOnYAxis(cornerIn);
+			};
+			case upperLeft -> switch (outputType)
+			{
+				case lowerLeft -> ImageHelper.flipOnYAxis(cornerIn);
+				case lowerRight -> ImageHelper.flipOnXAxis(ImageHelper.flipOnYAxis(cornerIn));
+				case upperLeft -> cornerIn;
+				case upperRight -> ImageHelper.flipOnXAxis(cornerIn);
+			};
+			case upperRight -> switch (outputType)
+			{
+				case lowerLeft -> ImageHelper.flipOnXAxis(ImageHelper.flipOnYAxis(cornerIn));
+				case lowerRight -> ImageHelper.flipOnYAxis(cornerIn);
+				case upperLeft -> ImageHelper.flipOnXAxis(cornerIn);
+				case upperRight -> cornerIn;
+			};
+		};
+	}
+
+	private enum CornerType
+	{
+		upperLeft,
+		upperRight,
+		lowerLeft,
+		lowerRight
+	}
+
+	private static BufferedImage loadImageWithStringInFileName(Path path, String inFileName, boolean throwExceptionIfMissing)
+	{
+		try {
+			var cornerArray = AssetManifest.listFileNames(path)
+					.filter(fileName -> fileName.contains(inFileName))
+					.map(path::resolve)
+					.toArray(Path[]::new);
+			if (cornerArray.length == 0)
+			{
+				if (throwExceptionIfMissing)
+					throw new RuntimeException("Unable to find a file containing \"" + inFileName + "\" in the directory " + path.toAbsolutePath());
+				else
+					return null;
+			}
+			if (cornerArray.length > 1)
+			{
+				throw new RuntimeException("More than one file contains \"" + inFileName + "\" in the directory " + path.toAbsolutePath());
+			}
+
+			return ImageHelper.read(cornerArray[0]);
+		} catch (IOException e) {
+			Logger.println(e.getMessage());
+			return null;
+		}
+	}
+}
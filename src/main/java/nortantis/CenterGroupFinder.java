@@ -0,0 +1,290 @@
+package nortantis;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import hoten.voronoi.Center;
+
+/**
+ * Finds groups of centers that are accepted according to a given predicate. A group is a set of accepted centers
+ * for which there exists a path from any member of the set to any other such that you never have to skip over more
+ * than maxGapSize centers not accepted at once to get to that other center. The centers in gaps are not included in
+ * the group.
+ *
+ * Searches run over center indexes using int arrays and bit sets. Results are cached by which centers were accepted,
+ * so finding the same groups again reuses them until edits change which centers are accepted.
+ */
+public class CenterGroupFinder
+{
+	private static final int maxCachedResults = 16;
+
+	private final List<Center> centers;
+	// The neighbors of center i are neighbors[neighborStarts[i]] to neighbors[neighborStarts[i + 1] - 1].
+	private final int[] neighborStarts;
+	private final int[] neighbors;
+	private final Map<CacheKey, List<Set<Center>>> cache;
+
+	private record CacheKey(int maxGapSize, BitSet accepted)
+	{
+	}
+
+	public CenterGroupFinder(List<Center> centers)
+	{
+		this.centers = centers;
+		neighborStarts = new int[centers.size() + 1];
+		for (int i = 0; i < centers.size(); i++)
+		{
+			neighborStarts[i + 1] = neighborStarts[i] + centers.get(i).neighbors.size();
+		}
+		neighbors = new int[neighborStarts[centers.size()]];
+		for (int i = 0; i < centers.size(); i++)
+		{
+			int j = neighborStarts[i];
+			for (Center n : centers.get(i).neighbors)
+			{
+				neighbors[j++] = n.index;
+			}
+		}
+
+		cache = new LinkedHashMap<>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<CacheKey, List<Set<Center>>> eldest)
+			{
+				return size() > maxCachedResults;
+			}
+		};
+	}
+
+	public List<Set<Center>> findGroups(int maxGapSize, Predicate<Center> accept)
+	{
+		return findGroups(maxGapSize, List.of(accept)).get(0);
+	}
+
+	/**
+	 * Finds the groups for several predicates, checking all of them in one pass over the centers.
+	 *
+	 * @return The groups for each predicate, in the same order as predicates. Groups are ordered by their lowest
+	 *         center index, and each group iterates over its centers in index order. The groups are shared with the
+	 *         cache, so they can't be modified.
+	 */
+	public List<List<Set<Center>>> findGroups(int maxGapSize, List<Predicate<Center>> predicates)
+	{
+		BitSet[] accepted = new BitSet[predicates.size()];
+		for (int p = 0; p < accepted.length; p++)
+		{
+			accepted[p] = new BitSet(centers.size());
+		}
+		for (int i = 0; i < centers.size(); i++)
+		{
+			Center center = centers.get(i);
+			for (int p = 0; p < accepted.length; p++)
+			{
+				if (predicates.get(p).test(center))
+				{
+					accepted[p].set(i);
+				}
+			}
+		}
+
+		List<List<Set<Center>>> result = new ArrayList<>(accepted.length);
+		for (BitSet acceptedByPredicate : accepted)
+		{
+			CacheKey key = new CacheKey(maxGapSize, acceptedByPredicate);
+			List<Set<Center>> groups;
+			synchronized (cache)
+			{
+				groups = cache.get(key);
+			}
+			if (groups == null)
+			{
+				groups = findGroups(maxGapSize, acceptedByPredicate);
+				synchronized (cache)
+				{
+					cache.put(key, groups);
+				}
+			}
+			result.add(groups);
+		}
+		return result;
+	}
+
+	private List<Set<Center>> findGroups(int maxGapSize, BitSet accepted)
+	{
+		List<Set<Center>> groups = new ArrayList<>();
+		BitSet explored = new BitSet(centers.size());
+		// The smallest gap each center not accepted has been reached with in the current search. Entries are only
+		// valid where gapSearch holds the current search's number, which saves clearing gaps between searches.
+		int[] gaps = new int[centers.size()];
+		int[] gapSearch = new int[centers.size()];
+		Arrays.fill(gapSearch, -1);
+		IntQueue queue = new IntQueue();
+		int[] members = new int[16];
+
+		int search = 0;
+		for (int start = accepted.nextSetBit(0); start >= 0; start = accepted.nextSetBit(start + 1))
+		{
+			if (explored.get(start))
+			{
+				continue;
+			}
+
+			// Do a breadth-first-search from that center, creating a new group. Each queued center carries its
+			// distance from a center in the group, with 0 meaning it is in the group.
+			explored.set(start);
+			int memberCount = 0;
+			members[memberCount++] = start;
+			queue.clear();
+			queue.add(start, 0);
+			while (!queue.isEmpty())
+			{
+				int center = queue.peekCenter();
+				int gap = queue.peekGap();
+				queue.remove();
+				for (int j = neighborStarts[center]; j < neighborStarts[center + 1]; j++)
+				{
+					int n = neighbors[j];
+					if (accepted.get(n))
+					{
+						if (!explored.get(n))
+						{
+							explored.set(n);
+							if (memberCount == members.length)
+							{
+								members = Arrays.copyOf(members, members.length * 2);
+							}
+							members[memberCount++] = n;
+							queue.add(n, 0);
+						}
+					}
+					else if (gap < maxGapSize && (gapSearch[n] != search || gaps[n] > gap + 1))
+					{
+						gapSearch[n] = search;
+						gaps[n] = gap + 1;
+						queue.add(n, gap + 1);
+					}
+				}
+			}
+
+			int[] group = Arrays.copyOf(members, memberCount);
+			Arrays.sort(group);
+			groups.add(new CenterIndexSet(group));
+			search++;
+		}
+		return groups;
+	}
+
+	/**
+	 * A queue of center indexes and gaps, stored in one int array.
+	 */
+	private static class IntQueue
+	{
+		private int[] data = new int[64];
+		private int head;
+		private int tail;
+
+		void add(int center, int gap)
+		{
+			if (tail + 2 > data.length)
+			{
+				if (head > data.length / 2)
+				{
+					System.arraycopy(data, head, data, 0, tail - head);
+					tail -= head;
+					head = 0;
+				}
+				else
+				{
+					data = Arrays.copyOf(data, data.length * 2);
+				}
+			}
+			data[tail++] = center;
+			data[tail++] = gap;
+		}
+
+		int peekCenter()
+		{
+			return data[head];
+		}
+
+		int peekGap()
+		{
+			return data[head + 1];
+		}
+
+		void remove()
+		{
+			head += 2;
+		}
+
+		boolean isEmpty()
+		{
+			return head == tail;
+		}
+
+		void clear()
+		{
+			head = 0;
+			tail = 0;
+		}
+	}
+
+	/**
+	 * An unmodifiable set of centers stored as their sorted indexes.
+	 */
+	private class CenterIndexSet extends AbstractSet<Center>
+	{
+		private final int[] indexes;
+
+		CenterIndexSet(int[] sortedIndexes)
+		{
+			this.indexes = sortedIndexes;
+		}
+
+		@Override
+		public boolean contains(Object o)
+		{
+			return o instanceof Center && Arrays.binarySearch(indexes, ((Center) o).index) >= 0;
+		}
+
+		@Override
+		public int size()
+		{
+			return indexes.length;
+		}
+
+		@Override
+		public Iterator<Center> iterator()
+		{
+			return new Iterator<Center>()
+			{
+				private int i;
+
+				@Override
+				public boolean hasNext()
+				{
+					return i < indexes.length;
+				}
+
+				@Override
+				public Center next()
+				{
+					if (i >= indexes.length)
+					{
+						throw new NoSuchElementException();
+					}
+					return centers.get(indexes[i++]);
+				}
+			};
+		}
+	}
+}
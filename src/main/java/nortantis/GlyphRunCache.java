@@ -0,0 +1,154 @@
+package nortantis;
+
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the fonts, font metrics, and laid out glyphs used to draw labels, so that each label's glyphs are laid out
+ * once rather than each time the map is drawn.
+ *
+ * Everything here uses the font render context of a Graphics2D for a new BufferedImage, which matches the one used to
+ * draw text on maps as long as the map's Graphics2D is not scaled and has no rendering hints set.
+ */
+public class GlyphRunCache
+{
+	private static final int maxCachedRuns = 4096;
+
+	private static GlyphRunCache instance;
+
+	private final Graphics2D metricsGraphics;
+	private final FontRenderContext fontRenderContext;
+	private final Map<Font, FontMetrics> metrics;
+	private final Map<Font, Font> boldFonts;
+	private final Map<RunKey, GlyphVector> runs;
+
+	private record RunKey(Font font, String text, boolean isBold)
+	{
+	}
+
+	private GlyphRunCache()
+	{
+		metricsGraphics = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+		fontRenderContext = metricsGraphics.getFontRenderContext();
+		metrics = new ConcurrentHashMap<>();
+		boldFonts = new ConcurrentHashMap<>();
+		runs = new LinkedHashMap<>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<RunKey, GlyphVector> eldest)
+			{
+				return size() > maxCachedRuns;
+			}
+		};
+	}
+
+	public synchronized static GlyphRunCache getInstance()
+	{
+		if (instance == null)
+		{
+			instance = new GlyphRunCache();
+		}
+		return instance;
+	}
+
+	public FontMetrics getMetrics(Font font)
+	{
+		return metrics.computeIfAbsent(font, f ->
+		{
+			synchronized (metricsGraphics)
+			{
+				return metricsGraphics.getFontMetrics(f);
+			}
+		});
+	}
+
+	/**
+	 * Gets the bold version of a font used to draw the background behind text. Its size is rounded down to a whole
+	 * number of points.
+	 */
+	public Font getBoldFont(Font font)
+	{
+		return boldFonts.computeIfAbsent(font, f -> f.deriveFont(Font.BOLD, f.getSize()));
+	}
+
+	/**
+	 * Gets the glyphs of the given text laid out horizontally, with each character placed after the previous one by
+	 * the width of the previous character. No kerning is applied.
+	 */
+	public GlyphVector getRun(Font font, String text)
+	{
+		return getRun(new RunKey(font, text, false));
+	}
+
+	/**
+	 * Gets the glyphs of the given text in the bold version of the font, with each glyph placed at the same location
+	 * as in getRun(font, text) so that the bold text lines up behind it.
+	 */
+	public GlyphVector getBoldBackgroundRun(Font font, String text)
+	{
+		return getRun(new RunKey(font, text, true));
+	}
+
+	private GlyphVector getRun(RunKey key)
+	{
+		synchronized (runs)
+		{
+			GlyphVector run = runs.get(key);
+			if (run != null)
+			{
+				return run;
+			}
+		}
+
+		GlyphVector run = key.isBold ? createBoldBackgroundRun(key.font, key.text) : createRun(key.font, key.text);
+		synchronized (runs)
+		{
+			runs.put(key, run);
+		}
+		return run;
+	}
+
+	private GlyphVector createRun(Font font, String text)
+	{
+		GlyphVector run = font.createGlyphVector(fontRenderContext, text);
+		if (run.getNumGlyphs() != text.length())
+		{
+			// Characters and glyphs don't line up, so use the font's own layout.
+			return run;
+		}
+
+		FontMetrics fontMetrics = getMetrics(font);
+		int x = 0;
+		for (int i = 0; i < text.length(); i++)
+		{
+			run.setGlyphPosition(i, new Point2D.Float(x, 0));
+			x += fontMetrics.charWidth(text.charAt(i));
+		}
+		run.setGlyphPosition(text.length(), new Point2D.Float(x, 0));
+		return run;
+	}
+
+	private GlyphVector createBoldBackgroundRun(Font font, String text)
+	{
+		GlyphVector positions = getRun(font, text);
+		GlyphVector run = getBoldFont(font).createGlyphVector(fontRenderContext, text);
+		if (run.getNumGlyphs() != positions.getNumGlyphs())
+		{
+			return run;
+		}
+
+		for (int i = 0; i <= run.getNumGlyphs(); i++)
+		{
+			run.setGlyphPosition(i, positions.getGlyphPosition(i));
+		}
+		return run;
+	}
+}
@@ -27,18 +27,12 @@ public class GraphCreator
     public static WorldGraph createGraph(double width, double height, int numSites, double borderPlateContinentalProbability,
     		double nonBorderPlateContinentalProbability, Random r, double sizeMultiplyer, LineStyle lineStyle, double pointPrecision)
     {
-		double startTime = System.currentTimeMillis();
-        
         //make the initial underlying voronoi structure
         final Voronoi v = new Voronoi(numSites, width, height, r, null);
 
          //assemble the voronoi structure into a usable graph object representing a map
         final WorldGraph graph = new WorldGraph(v, numLloydRelaxations, r, numSites * tectonicPlateIterationMultiplier,
     		   nonBorderPlateContinentalProbability, borderPlateContinentalProbability, sizeMultiplyer, lineStyle, pointPrecision);
-        
-		double elapsedTime = System.currentTimeMillis() - startTime;
-		Logger.println("Time to generate graph (in seconds): " + elapsedTime
-				/ 1000.0);
 
 //
 //        final BufferedImage img = new BufferedImage((int)width, (int)height, BufferedImage.TYPE_INT_RGB);
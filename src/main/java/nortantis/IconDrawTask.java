@@ -34,12 +34,12 @@ class IconDrawTask implements Comparable<IconDrawTask>
 		this.icon = icon;
 		this.mask = mask;
 		this.centerLoc = centerLoc;
-		this.scaledWidth = scaledWidth;
 		this.needsScale = needsScale;
 		
+   		// Scaled icons are drawn at a bucketed width, so their bounds and depth use that width too.
+   		int width = needsScale ? IconMipmaps.toSizeBucket(scaledWidth) : scaledWidth;
    		double aspectRatio = ((double)icon.getWidth())/icon.getHeight();
-   		scaledHeight = (int)(scaledWidth/aspectRatio);
-       	yBottom = (int)(centerLoc.y + (scaledHeight/2.0));
+   		setScaledSize(width, (int)(width/aspectRatio));
        	
        	this.ignoreMaxSize = ignoreMaxSize;
        	this.fileName = fileName;
@@ -49,12 +49,21 @@ class IconDrawTask implements Comparable<IconDrawTask>
 	{
 		if (needsScale)
 		{
-	       	icon = ImageCache.getInstance().getScaledImage(icon, scaledWidth);
-	      	mask = ImageCache.getInstance().getScaledImage(mask, scaledWidth);
+	       	icon = ImageCache.getInstance().getScaledIcon(icon, scaledWidth);
+	      	mask = ImageCache.getInstance().getScaledIcon(mask, scaledWidth);
+	      	// The scaled height can round differently than the estimate in the constructor.
+	      	setScaledSize(icon.getWidth(), icon.getHeight());
 		}
 		return this;
 	}
 	
+	private void setScaledSize(int width, int height)
+	{
+		scaledWidth = width;
+		scaledHeight = height;
+		yBottom = (int)(centerLoc.y + (scaledHeight/2.0));
+	}
+	
 	public Area createArea()
 	{
 		return new Area(new java.awt.Rectangle((int)(centerLoc.x - scaledWidth/2.0), (int)(centerLoc.y - scaledHeight/2.0), scaledWidth, scaledHeight));
@@ -13,13 +13,13 @@ import org.apache.commons.io.FilenameUtils;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
-import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static java.awt.image.BufferedImage.TYPE_BYTE_BINARY;
@@ -43,7 +43,16 @@ public class IconDrawer
 	final double maxMeansToDraw = 5.0;
 	double maxSizeToDrawIcon;
 	private final int maxGapBetweenBiomeGroups = 2;
+	// Height in pixels of the horizontal bands that icons are drawn in parallel in.
+	private static final int iconBandHeight = 64;
+	// Bounds the memory used by waterCoverage on large maps.
+	private static final int maxWaterCoverageCells = 4 * 1024 * 1024;
+	private CoverageTable waterCoverage;
 	private final MultiValuedMap<Center, IconDrawTask> iconsToDraw;
+	private final TreeTaskBuffer treesToDraw;
+	// Scaled tree images and masks, indexed by the image indexes in treesToDraw.
+	private List<Tuple2<BufferedImage, BufferedImage>> treeImages;
+	private Double averageCenterWidthBetweenNeighbors;
 	WorldGraph graph;
 	Random rand;
 	/**
@@ -56,6 +65,8 @@ public class IconDrawer
 	public IconDrawer(WorldGraph graph, Random rand, String cityIconsSetName)
 	{
 		iconsToDraw = new ArrayListValuedHashMap<>();
+		treesToDraw = new TreeTaskBuffer();
+		treeImages = new ArrayList<>();
 		this.graph = graph;
 		this.rand = rand;
 		this.cityIconsSetName = cityIconsSetName;
@@ -116,9 +127,10 @@ public class IconDrawer
 		// there tend to be long polygons along edges, so if this value is much more than 2,
 		// mountains near the ocean may be connected despite long distances between them..
 		var maxGapSizeInMountainClusters = 2;
-		var mountainGroups = findCenterGroups(graph, maxGapSizeInMountainClusters, center -> center.isMountain);
-
-		var mountainAndHillGroups = findCenterGroups(graph, maxGapSizeInMountainClusters, center -> center.isMountain || center.isHill);
+		var groups = graph.getCenterGroupFinder().findGroups(maxGapSizeInMountainClusters,
+				List.of(center -> center.isMountain, center -> center.isMountain || center.isHill));
+		var mountainGroups = groups.get(0);
+		var mountainAndHillGroups = groups.get(1);
 
 		// Assign mountain group ids to each center that is in a mountain group.
 		var curId = 0;
@@ -242,133 +254,123 @@ public class IconDrawer
 	}
 
 	/**
-	 * Finds groups of centers that accepted according to a given function. A group is a set of centers
-	 * for which there exists a path from any member of the set to any other such that you
-	 * never have to skip over more than maxGapSize centers not accepted at once
-	 * to get to that other center. If distanceThreshold > 1, the result will include those
-	 * centers which connect centeres that are accepted.
-	 */
-	private static List<Set<Center>> findCenterGroups(WorldGraph graph, int maxGapSize,
-			Function<Center, Boolean> accept)
-	{
-		var groups = new ArrayList<Set<Center>>();
-		// Contains all explored centers in this graph. This prevents me from making a new group
-		// for every center.
-		var explored = new HashSet<Center>();
-		for (var center : graph.centers)
-		{
-			if (accept.apply(center) && !explored.contains(center))
-			{
-				// Do a breadth-first-search from that center, creating a new group.
-				// "frontier" maps centers to their distance from a center of the desired biome. 
-				// 0 means it is of the desired biome.
-				var frontier = new HashMap<Center, Integer>();
-				frontier.put(center, 0);
-				var group = new HashSet<Center>();
-				group.add(center);
-				while (!frontier.isEmpty())
-				{
-					var nextFrontier = new HashMap<Center, Integer>();
-					for (var entry : frontier.entrySet())
-					{
-						for (var n : entry.getKey().neighbors)
-						{
-							if (!explored.contains(n))
-							{
-								if (accept.apply(n))
-								{
-									explored.add(n);
-									group.add(n);
-									nextFrontier.put(n, 0);
-								}
-								else if (entry.getValue() < maxGapSize)
-								{
-									nextFrontier.put(n, entry.getValue() + 1);
-								}
-							}
-						}
-					}
-					frontier = nextFrontier;
-				}
-				groups.add(group);
-				
-			}
-		}
-		return groups;
-	}
-
-
-	/**
+	 * Draws the rows of an icon that fall within [bandTop, bandBottom).
 	 * 
-=	 * @param mask A gray scale image which is white where the background should be drawn, and
+	 * @param mask A gray scale image which is white where the background should be drawn, and
 	 * black where the map should be drawn instead of the background. This is necessary so that
 	 * when I draw an icon that is transparent (such as a hand drawn mountain), I cannot see
 	 * other mountains through it.
 	 */
-	private void drawIconWithBackgroundAndMask(BufferedImage map, BufferedImage icon, 
-			BufferedImage mask, BufferedImage background, int xCenter, int yCenter, boolean ignoreMaxSize)
+	static void drawIconWithBackgroundAndMask(BufferedImage map, BufferedImage icon, 
+			BufferedImage mask, BufferedImage background, int xCenter, int yCenter, int bandTop, int bandBottom)
 	{   	
-    	if (map.getWidth() != background.getWidth())
-    		throw new IllegalArgumentException();
-       	if (map.getHeight() != background.getHeight())
-    		throw new IllegalArgumentException();
-       	if (mask.getWidth() != icon.getWidth())
-       		throw new IllegalArgumentException("The given mask's width does not match the icon' width.");
-       	if (mask.getHeight() != icon.getHeight())
-       		throw new IllegalArgumentException("The given mask's height does not match the icon' height.");
-       	
-       	if (!ignoreMaxSize && icon.getWidth() > maxSizeToDrawIcon)
-       		return;
-
 		var xLeft = xCenter - icon.getWidth()/2;
-		var yBottom = yCenter - icon.getHeight()/2;
+		var yTop = yCenter - icon.getHeight()/2;
+		int yStart = Math.max(0, bandTop - yTop);
+		int yEnd = Math.min(icon.getHeight(), bandBottom - yTop);
+		int xStart = Math.max(0, -xLeft);
+		int xEnd = Math.min(icon.getWidth(), map.getWidth() - xLeft);
       	
 		var maskRaster = mask.getRaster();
-		for (var x : new Range(icon.getWidth()))
-			for (var y : new Range(icon.getHeight()))
+		for (int y = yStart; y < yEnd; y++)
+			for (int x = xStart; x < xEnd; x++)
 			{
-				var iconColor = new Color(icon.getRGB(x, y), true);
-				var alpha = iconColor.getAlpha() / 255.0;
+				int iconColor = icon.getRGB(x, y);
+				var alpha = (iconColor >>> 24) / 255.0;
 				// grey level of mask at the corresponding pixel in mask.
 				var maskLevel = maskRaster.getSampleDouble(x, y, 0);
-				Color bgColor;
-				Color mapColor;
 				// Find the location on the background and map where this pixel will be drawn.
 				var xLoc = xLeft + x;
-				var yLoc = yBottom + y;
-				try
-				{
-					bgColor = new Color(background.getRGB(xLoc, yLoc));
-					mapColor = new Color(map.getRGB(xLoc, yLoc));
-				}
-				catch (IndexOutOfBoundsException e)
-				{
-					// Skip this pixel.
-					continue;
-				}
+				var yLoc = yTop + y;
+				int bgColor = background.getRGB(xLoc, yLoc);
+				int mapColor = map.getRGB(xLoc, yLoc);
 
-				var red = (int)(alpha * (iconColor.getRed()) + (1 - alpha) * (maskLevel * bgColor.getRed() + (1 - maskLevel) * mapColor.getRed()));
-				var green = (int)(alpha * (iconColor.getGreen()) + (1 - alpha) * (maskLevel * bgColor.getGreen() + (1 - maskLevel) * mapColor.getGreen()));
-				var blue = (int)(alpha * (iconColor.getBlue()) + (1 - alpha) * (maskLevel * bgColor.getBlue() + (1 - maskLevel) * mapColor.getBlue()));
+				var red = blend(alpha, maskLevel, (iconColor >> 16) & 0xff, (bgColor >> 16) & 0xff, (mapColor >> 16) & 0xff);
+				var green = blend(alpha, maskLevel, (iconColor >> 8) & 0xff, (bgColor >> 8) & 0xff, (mapColor >> 8) & 0xff);
+				var blue = blend(alpha, maskLevel, iconColor & 0xff, bgColor & 0xff, mapColor & 0xff);
 				
-				map.setRGB(xLoc, yLoc, new Color(red, green, blue).getRGB());
+				map.setRGB(xLoc, yLoc, 0xff000000 | (red << 16) | (green << 8) | blue);
 			}
 	}
+	
+	private static int blend(double alpha, double maskLevel, int icon, int background, int map)
+	{
+		return (int)(alpha * icon + (1 - alpha) * (maskLevel * background + (1 - maskLevel) * map));
+	}
 
 	/**
-	 * Draws all icons in iconsToDraw. I draw all the icons at once this way so that I can sort
-	 * the icons by the y-coordinate of the base of each icon. This way icons lower on the map
-	 * are drawn in front of those that are higher.
+	 * Draws all icons in iconsToDraw. Icons are sorted by the y-coordinate of their base so that
+	 * icons lower on the map are drawn in front of those that are higher.
 	 */
 	public void drawAllIcons(BufferedImage map, BufferedImage background)
 	{	
-		iconsToDraw.entries().stream()
+		if (map.getWidth() != background.getWidth())
+			throw new IllegalArgumentException();
+		if (map.getHeight() != background.getHeight())
+			throw new IllegalArgumentException();
+
+		// Create the water coverage before the parallel stream below needs it.
+		getWaterCoverage();
+		// Trees are kept in a compact buffer until now, and are added after the other icons in the order they were generated.
+		Stream<IconDrawTask> treeTasks = IntStream.range(0, treesToDraw.size()).parallel()
+				.filter(tree -> !graph.centers.get(treesToDraw.getCenterIndex(tree)).isWater)
+				.mapToObj(this::createTreeTask);
+		List<IconDrawTask> tasks = Stream.concat(iconsToDraw.entries().parallelStream()
 				.filter(not(entry -> entry.getKey().isWater))
-				.map(Map.Entry::getValue)
+				.map(Map.Entry::getValue), treeTasks)
 				.map(IconDrawTask::scaleIcon)
+				.filter(task -> task.ignoreMaxSize || task.icon.getWidth() <= maxSizeToDrawIcon)
 				.filter(not(this::isIconTouchingWater))
-				.forEach(task -> drawIconWithBackgroundAndMask(map, task.icon, task.mask, background, (int)task.centerLoc.x,
-						(int)task.centerLoc.y, task.ignoreMaxSize));
+				.collect(Collectors.toList());
+		// List.sort is stable, so icons with the same base keep the order they were added in.
+		tasks.sort(null);
+		drawIcons(tasks, map, background);
+	}
+
+	/**
+	 * Draws the given icons in the order given.
+	 * 
+	 * The map is split into horizontal bands which are drawn in parallel. Each band draws, in order,
+	 * the rows of every icon that overlaps it, so no two threads write the same pixels and the
+	 * result is the same as drawing the icons one at a time.
+	 */
+	static void drawIcons(List<IconDrawTask> tasks, BufferedImage map, BufferedImage background)
+	{
+		for (IconDrawTask task : tasks)
+		{
+	       	if (task.mask.getWidth() != task.icon.getWidth())
+	       		throw new IllegalArgumentException("The given mask's width does not match the icon' width.");
+	       	if (task.mask.getHeight() != task.icon.getHeight())
+	       		throw new IllegalArgumentException("The given mask's height does not match the icon' height.");
+		}
+		
+		int numBands = Math.max(1, (map.getHeight() + iconBandHeight - 1) / iconBandHeight);
+		List<List<IconDrawTask>> bands = new ArrayList<>(numBands);
+		for (int i = 0; i < numBands; i++)
+		{
+			bands.add(new ArrayList<>());
+		}
+		for (IconDrawTask task : tasks)
+		{
+			int yTop = (int)task.centerLoc.y - task.icon.getHeight()/2;
+			int firstBand = Math.max(0, yTop / iconBandHeight);
+			int lastBand = Math.min(numBands - 1, (yTop + task.icon.getHeight() - 1) / iconBandHeight);
+			for (int band = firstBand; band <= lastBand; band++)
+			{
+				bands.get(band).add(task);
+			}
+		}
+		
+		IntStream.range(0, numBands).parallel().forEach(band -> 
+		{
+			int bandTop = band * iconBandHeight;
+			int bandBottom = Math.min(map.getHeight(), bandTop + iconBandHeight);
+			for (IconDrawTask task : bands.get(band))
+			{
+				drawIconWithBackgroundAndMask(map, task.icon, task.mask, background, (int)task.centerLoc.x,
+						(int)task.centerLoc.y, bandTop, bandBottom);
+			}
+		});
 	}
 	
 	/**
@@ -545,7 +547,7 @@ public class IconDrawer
 			return;
         }
         
-   		var groups = findCenterGroups(graph, maxGapBetweenBiomeGroups,
+   		var groups = graph.getCenterGroupFinder().findGroups(maxGapBetweenBiomeGroups,
 				center -> center.biome.equals(Biome.TEMPERATE_DESERT));
    		
    		// This is the probability that a temperate desert will be a dune field.
@@ -600,26 +602,29 @@ public class IconDrawer
 	{	
 		trees.clear();
         
-        for (var forest : ForestType.values())
+        // Find the groups for all forest types that use biome groups at once.
+        var groupedForests = Arrays.stream(ForestType.values())
+        		.filter(forest -> forest.biomeFrequency != 1.0)
+        		.collect(Collectors.toList());
+        var forestGroups = graph.getCenterGroupFinder().findGroups(maxGapBetweenBiomeGroups, groupedForests.stream()
+        		.map(forest -> (Predicate<Center>) center -> center.biome.equals(forest.biome))
+        		.collect(Collectors.toList()));
+        for (var i : new Range(groupedForests.size()))
         {
-        	if (forest.biomeFrequency != 1.0)
-        	{
-				var groups = findCenterGroups(graph, maxGapBetweenBiomeGroups,
-						center -> center.biome.equals(forest.biome));
-        		for (var group : groups)
-        		{
-        			if (rand.nextDouble() < forest.biomeFrequency)
-        			{
-        				for (var c : group)
-        				{
-               				if (canGenerateTreesOnCenter(c))
-               				{
-               				   trees.put(c.index, new CenterTrees(forest.treeType.toString().toLowerCase(), forest.density, c.treeSeed));
-               				}
-        				}
-        			}
-        		}
-        	}
+        	var forest = groupedForests.get(i);
+    		for (var group : forestGroups.get(i))
+    		{
+    			if (rand.nextDouble() < forest.biomeFrequency)
+    			{
+    				for (var c : group)
+    				{
+           				if (canGenerateTreesOnCenter(c))
+           				{
+           				   trees.put(c.index, new CenterTrees(forest.treeType.toString().toLowerCase(), forest.density, c.treeSeed));
+           				}
+    				}
+    			}
+    		}
         }
  
         // Process forest types that don't use biome groups separately for efficiency.
@@ -649,13 +654,17 @@ public class IconDrawer
 	
 	/**
 	 * Draws all trees in this.trees.
+	 * 
+	 * Each center's trees come from a Random seeded by that center's treeSeed, so centers are
+	 * generated in parallel and then combined in center order, giving the same trees as
+	 * generating them one center at a time.
 	 */
 	public void drawTreesForAllCenters()
 	{
-		// Find the average width of all Centers.
-		var avgHeight = graph.centers.stream()
-				.mapToDouble(this::findCenterWidthBetweenNeighbors)
-				.average().orElse(0.0);
+		treesToDraw.clear();
+		treeImages = new ArrayList<>();
+		
+		var avgHeight = getAverageCenterWidthBetweenNeighbors();
 
 		// Make the tree images small. I make them all the same height.
 		var scaledHeight = (int)(avgHeight * treeScale);
@@ -676,39 +685,85 @@ public class IconDrawer
 			return;
         }
         
-         // Store which corners have had trees drawn so that I don't draw them multiple times.
-		var cornersWithTreesDrawn = new boolean[graph.corners.size()];
+        // Tree draw tasks refer to images by their index in treeImages.
+        var firstImageIndexByTreeType = new HashMap<String, Integer>();
+        for (var treeType : treesById.keySet())
+        {
+        	firstImageIndexByTreeType.put(treeType, treeImages.size());
+        	treeImages.addAll(treesById.get(treeType));
+        }
         
-        for (Center c : graph.centers)
+        // Trees are drawn at each corner only by the first center, in graph order, that has trees and
+        // touches that corner, so that no corner gets trees more than once.
+		var cornerOwners = new int[graph.corners.size()];
+		Arrays.fill(cornerOwners, -1);
+		var centerTrees = new CenterTrees[graph.centers.size()];
+        for (var i : new Range(graph.centers.size()))
         {
+        	var c = graph.centers.get(i);
 			var cTrees = trees.get(c.index);
+			if (cTrees != null && cTrees.treeType != null && treesById.containsKey(cTrees.treeType))
+			{
+				centerTrees[i] = cTrees;
+				for (var corner : c.corners)
+				{
+					if (cornerOwners[corner.index] == -1)
+					{
+						cornerOwners[corner.index] = c.index;
+					}
+				}
+			}
+        }
+        
+        var treesByCenter = new TreeTaskBuffer[graph.centers.size()];
+        IntStream.range(0, graph.centers.size()).parallel().forEach(i ->
+        {
+        	var cTrees = centerTrees[i];
         	if (cTrees != null)
         	{
-        		if (cTrees.treeType != null && treesById.containsKey(cTrees.treeType))
-        		{
-		        	drawTreesAtCenterAndCorners(cTrees.density, treesById.get(cTrees.treeType), avgHeight,
-								cornersWithTreesDrawn, c, cTrees.randomSeed);
-				}
+        		treesByCenter[i] = drawTreesAtCenterAndCorners(cTrees.density, firstImageIndexByTreeType.get(cTrees.treeType),
+        				treesById.get(cTrees.treeType).size(), avgHeight, cornerOwners, graph.centers.get(i), cTrees.randomSeed);
+        	}
+        });
+        
+        for (var buffer : treesByCenter)
+        {
+        	if (buffer != null)
+        	{
+        		treesToDraw.addAll(buffer);
         	}
         }
 	}
+	
+	private double getAverageCenterWidthBetweenNeighbors()
+	{
+		// The graph's shape doesn't change, so this is only found once even though trees are redrawn after edits.
+		if (averageCenterWidthBetweenNeighbors == null)
+		{
+			averageCenterWidthBetweenNeighbors = graph.centers.parallelStream()
+					.mapToDouble(this::findCenterWidthBetweenNeighbors)
+					.average().orElse(0.0);
+		}
+		return averageCenterWidthBetweenNeighbors;
+	}
 
-	private void drawTreesAtCenterAndCorners(double density, List<Tuple2<BufferedImage, BufferedImage>> imagesAndMasks, double avgCenterHeight,
-											 boolean[] cornersWithTreesDrawn, Center center, long randomSeed)
+	private TreeTaskBuffer drawTreesAtCenterAndCorners(double density, int firstImageIndex, int imageCount, double avgCenterHeight,
+			int[] cornerOwners, Center center, long randomSeed)
 	{
+		var result = new TreeTaskBuffer();
 		var rand = new Random(randomSeed);
-		drawTrees(imagesAndMasks, avgCenterHeight, center.loc, density, center, rand);
+		drawTrees(result, firstImageIndex, imageCount, avgCenterHeight, center.loc, density, center, rand);
 			
 		// Draw trees at the neighboring corners too.
 		for (Corner corner : center.corners)
 		{
-			if (!cornersWithTreesDrawn[corner.index])
+			if (cornerOwners[corner.index] == center.index)
 			{
-				drawTrees(imagesAndMasks, avgCenterHeight, corner.loc,
+				drawTrees(result, firstImageIndex, imageCount, avgCenterHeight, corner.loc,
 						density, center, rand);
-				cornersWithTreesDrawn[corner.index] = true;
 			}
 		}
+		return result;
 	}
 
 	private enum ForestType{
@@ -743,10 +798,10 @@ public class IconDrawer
 		return Math.abs(eastMostNeighbor.loc.x - westMostNeighbor.loc.x);
 	}
 
-	private void drawTrees(List<Tuple2<BufferedImage, BufferedImage>> imagesAndMasks, double cSize, Point loc,
+	private void drawTrees(TreeTaskBuffer result, int firstImageIndex, int imageCount, double cSize, Point loc,
 						   double forestDensity, Center center, Random rand)
 	{
-		if (imagesAndMasks == null || imagesAndMasks.isEmpty())
+		if (imageCount == 0)
 		{
 			return;
 		}
@@ -759,9 +814,7 @@ public class IconDrawer
 		       	
        	for (var i = 0; i < numTrees; i++)
        	{
-			var item = imagesAndMasks.get(rand.nextInt(imagesAndMasks.size()));
-			var image = item.first();
-			var mask = item.second();
+			var imageIndex = firstImageIndex + rand.nextInt(imageCount);
            	     
            	// Draw the image such that it is centered in the center of c.
 			var x = (int) loc.x;
@@ -771,30 +824,52 @@ public class IconDrawer
            	x += rand.nextGaussian() * sqrtSize*2.0;
            	y += rand.nextGaussian() * sqrtSize*2.0;
         	
-           	iconsToDraw.put(center, new IconDrawTask(image, mask, new Point(x, y), image.getWidth(), false, false));
+           	result.add(x, y, imageIndex, center.index);
        	}
 	}
 	
+	private IconDrawTask createTreeTask(int tree)
+	{
+		var imageAndMask = treeImages.get(treesToDraw.getImageIndex(tree));
+		var image = imageAndMask.first();
+		return new IconDrawTask(image, imageAndMask.second(), new Point(treesToDraw.getX(tree), treesToDraw.getY(tree)),
+				image.getWidth(), false, false);
+	}
+	
+	/**
+	 * Sets the mask of land (white) and water (black) used to check whether icons touch water.
+	 * This must be called again whenever which centers are water changes. If it is never called,
+	 * the mask is drawn from the graph the first time it is needed.
+	 */
+	public void setLandMask(BufferedImage landMask)
+	{
+		waterCoverage = new CoverageTable(landMask, maxWaterCoverageCells);
+	}
+	
+	private CoverageTable getWaterCoverage()
+	{
+		if (waterCoverage == null)
+		{
+			BufferedImage landMask = new BufferedImage(graph.getWidth(), graph.getHeight(), TYPE_BYTE_BINARY);
+			Graphics2D g = landMask.createGraphics();
+			graph.drawLandAndOceanBlackAndWhite(g, graph.centers);
+			setLandMask(landMask);
+		}
+		return waterCoverage;
+	}
+	
 	private boolean isIconTouchingWater(IconDrawTask iconTask)
 	{       	
-       	int imageUpperLeftX = (int)iconTask.centerLoc.x - iconTask.scaledWidth/2;
-       	int imageUpperLeftY = (int)iconTask.centerLoc.y + iconTask.scaledHeight/2;
-
-       	// Only check precision*precision points.
-       	var precision = DoubleStream.of(iconTask.scaledWidth, iconTask.scaledHeight, 32)
-				.min().orElse(0.0);
-       	for (int x = 0; x < precision; x++)
+       	int left = (int)iconTask.centerLoc.x - iconTask.scaledWidth/2;
+       	int bottom = (int)iconTask.centerLoc.y + iconTask.scaledHeight/2;
+       	int top = bottom - iconTask.scaledHeight + 1;
+       	
+       	CoverageTable coverage = getWaterCoverage();
+       	if (coverage.isOutside(left, top, iconTask.scaledWidth, iconTask.scaledHeight))
        	{
-       		for (int y = 0; y < precision; y++)
-       		{
-       			Center center = graph.findClosestCenter(imageUpperLeftX + (int)(iconTask.scaledWidth * (x/precision)), 
-       					(imageUpperLeftY - (int)(iconTask.scaledHeight * (y/precision))));
-       	       	if (center.isWater)
-       	       		return true;
-       		}
+       		return true;
        	}
-       
-       	return false;
+       	return coverage.containsAny(left, top, iconTask.scaledWidth, iconTask.scaledHeight);
 	}
 	
 	/**
@@ -822,7 +897,7 @@ public class IconDrawer
 			}
 
 			var icon = imageCache.getImageFromFile(path);
-			var mask = imageCache.getOrCreateImage(format("mask %s", path), () -> createMask(icon));
+			var mask = imageCache.getOrCreateImage(format("mask %s", path), () -> IconMaskCache.getInstance().getMask(path, icon));
 
 			var parts = FilenameUtils.getBaseName(fileName).split("width=");
 			if (parts.length < 2)
@@ -855,7 +930,7 @@ public class IconDrawer
 					.map(groupPath::resolve)
 					.map(x -> {
 						var icon = ImageCache.getInstance().getImageFromFile(x);
-						var mask = ImageCache.getInstance().getOrCreateImage(format("mask %s", x), () -> createMask(icon));
+						var mask = ImageCache.getInstance().getOrCreateImage(format("mask %s", x), () -> IconMaskCache.getInstance().getMask(x, icon));
 
 						return  new Tuple2<>(icon, mask);
 					})
@@ -878,11 +953,7 @@ public class IconDrawer
 
 		var path = AssetsPath.get("icons", iconType.toString());
 		try {
-			return Files.list(path)
-					.filter(Files::isDirectory)
-					.map(Path::getFileName)
-					.map(Path::toString)
-					.collect(toSet());
+			return AssetManifest.listFolderNames(path).collect(toSet());
 		} catch (IOException e) {
 			Logger.println(e.getMessage());
 			return Set.of();
@@ -925,11 +996,7 @@ public class IconDrawer
 		}
 
 		try {
-			return Files.list(path)
-					.filter(Files::isDirectory)
-					.map(Path::getFileName)
-					.map(Path::toString)
-					.sorted();
+			return AssetManifest.listFolderNames(path);
 		} catch (IOException e) {
 			Logger.println(e.getMessage());
 			return Stream.empty();
@@ -944,11 +1011,7 @@ public class IconDrawer
 	public static Stream<String> getIconGroupFileNames(IconType iconType, String groupName, String setName)
 	{
 		try {
-			return Files.list(getIconGroupPath(iconType, groupName, setName))
-					.filter(Files::isRegularFile)
-					.map(Path::getFileName)
-					.map(Path::toString)
-					.sorted();
+			return AssetManifest.listFileNames(getIconGroupPath(iconType, groupName, setName));
 		} catch (IOException e) {
 			Logger.println(e.getMessage());
 			return Stream.empty();
@@ -0,0 +1,231 @@
+package nortantis;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import nortantis.util.AssetsPath;
+import nortantis.util.Helper;
+import nortantis.util.ImageHelper;
+import nortantis.util.Logger;
+
+/**
+ * Stores icon masks on disk so they don't have to be recreated with IconDrawer.createMask each time the program starts.
+ *
+ * Masks are keyed by a hash of the icon file's contents, so editing or replacing an icon creates a new mask. Each mask
+ * is stored 1 bit per pixel. The folder defaults to ".nortantis/icon masks" in the user's home folder, and can be
+ * changed with the system property nortantis.iconMaskCacheFolder.
+ *
+ * Running this class's main method creates masks for every icon in the assets folder in parallel, and writes a
+ * manifest listing which mask belongs to which icon.
+ */
+public class IconMaskCache
+{
+	private static final int magic = 0x4e4d534b; // "NMSK"
+	// Increment this when IconDrawer.createMask changes so that old masks are recreated.
+	private static final int maskVersion = 1;
+	// The magic number, version, width, and height.
+	private static final int headerSize = 16;
+	private static final String manifestFileName = "manifest.tsv";
+
+	private static IconMaskCache instance;
+
+	private final Path folder;
+
+	public IconMaskCache(Path folder)
+	{
+		this.folder = folder;
+	}
+
+	public synchronized static IconMaskCache getInstance()
+	{
+		if (instance == null)
+		{
+			String folder = System.getProperty("nortantis.iconMaskCacheFolder");
+			instance = new IconMaskCache(folder != null ? Paths.get(folder) : Paths.get(System.getProperty("user.home"), ".nortantis", "icon masks"));
+		}
+		return instance;
+	}
+
+	/**
+	 * Gets the mask for an icon from disk, or creates and stores it if it isn't there. Problems reading or writing the
+	 * cache are logged and the mask is created in memory instead.
+	 *
+	 * @param iconPath The file the icon was loaded from.
+	 * @param icon The icon loaded from iconPath.
+	 */
+	public BufferedImage getMask(Path iconPath, BufferedImage icon)
+	{
+		String hash;
+		try
+		{
+			hash = Helper.sha256Hex(Files.readAllBytes(iconPath));
+		}
+		catch (IOException e)
+		{
+			Logger.println("Unable to read icon file to look up its mask: " + iconPath + ". " + e.getMessage());
+			return IconDrawer.createMask(icon);
+		}
+		return getMask(hash, icon);
+	}
+
+	private BufferedImage getMask(String hash, BufferedImage icon)
+	{
+		Path maskPath = folder.resolve(hash + ".mask");
+		if (Files.exists(maskPath))
+		{
+			try
+			{
+				BufferedImage mask = readMask(maskPath, icon.getWidth(), icon.getHeight());
+				if (mask != null)
+				{
+					return mask;
+				}
+			}
+			catch (IOException | RuntimeException e)
+			{
+				Logger.println("Unable to read cached icon mask " + maskPath + ". It will be recreated. " + e.getMessage());
+			}
+		}
+
+		BufferedImage mask = IconDrawer.createMask(icon);
+		try
+		{
+			writeMask(maskPath, mask);
+		}
+		catch (IOException e)
+		{
+			Logger.println("Unable to store icon mask in " + maskPath + ". " + e.getMessage());
+		}
+		return mask;
+	}
+
+	/**
+	 * @return The mask, or null if the file was written by a different version of the mask algorithm, is for an icon
+	 *         of a different size, or is not the length its header says it should be.
+	 */
+	private static BufferedImage readMask(Path maskPath, int width, int height) throws IOException
+	{
+		try (var in = new DataInputStream(Files.newInputStream(maskPath)))
+		{
+			if (in.readInt() != magic || in.readInt() != maskVersion)
+			{
+				return null;
+			}
+			// Check the size before allocating so that a corrupt header can't ask for a huge image.
+			if (in.readInt() != width || in.readInt() != height)
+			{
+				return null;
+			}
+			if (Files.size(maskPath) != headerSize + (long) getRowBytes(width) * height)
+			{
+				return null;
+			}
+			BufferedImage mask = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+			in.readFully(((DataBufferByte) mask.getRaster().getDataBuffer()).getData());
+			return mask;
+		}
+	}
+
+	/**
+	 * TYPE_BYTE_BINARY images store 1 bit per pixel, with each row padded to a whole byte.
+	 */
+	private static int getRowBytes(int width)
+	{
+		return (width + 7) / 8;
+	}
+
+	private void writeMask(Path maskPath, BufferedImage mask) throws IOException
+	{
+		if (mask.getType() != BufferedImage.TYPE_BYTE_BINARY)
+		{
+			throw new IllegalArgumentException("Icon masks must be TYPE_BYTE_BINARY.");
+		}
+
+		var bytes = new ByteArrayOutputStream();
+		try (var out = new DataOutputStream(bytes))
+		{
+			out.writeInt(magic);
+			out.writeInt(maskVersion);
+			out.writeInt(mask.getWidth());
+			out.writeInt(mask.getHeight());
+			out.write(((DataBufferByte) mask.getRaster().getDataBuffer()).getData());
+		}
+
+		// Write to a temporary file first so that other processes never see a partly written mask.
+		Files.createDirectories(folder);
+		Path temp = Files.createTempFile(folder, "mask", ".tmp");
+		try
+		{
+			Files.write(temp, bytes.toByteArray());
+			Files.move(temp, maskPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Creates the masks for all of the given icon files in parallel and writes a manifest of them.
+	 *
+	 * @return The number of icons processed.
+	 */
+	public int precompute(List<Path> iconPaths) throws IOException
+	{
+		List<String> manifestLines = iconPaths.parallelStream().map(path ->
+		{
+			String hash;
+			try
+			{
+				hash = Helper.sha256Hex(Files.readAllBytes(path));
+			}
+			catch (IOException e)
+			{
+				throw new RuntimeException("Unable to read icon " + path, e);
+			}
+			BufferedImage mask = getMask(hash, ImageHelper.read(path));
+			return hash + "\t" + mask.getWidth() + "\t" + mask.getHeight() + "\t" + toManifestName(path);
+		}).sorted().collect(Collectors.toList());
+
+		Files.createDirectories(folder);
+		Files.write(folder.resolve(manifestFileName), manifestLines);
+		return manifestLines.size();
+	}
+
+	private static String toManifestName(Path iconPath)
+	{
+		Path iconsFolder = AssetsPath.get("icons");
+		return iconPath.startsWith(iconsFolder) ? iconsFolder.relativize(iconPath).toString() : iconPath.toString();
+	}
+
+	public static List<Path> findAllIcons() throws IOException
+	{
+		try (Stream<Path> files = Files.walk(AssetsPath.get("icons")))
+		{
+			return files.filter(Files::isRegularFile).filter(path -> path.toString().toLowerCase().endsWith(".png")).collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * Creates the masks for every icon in the assets folder ahead of time.
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		long startTime = System.currentTimeMillis();
+		IconMaskCache cache = getInstance();
+		int count = cache.precompute(findAllIcons());
+		Logger.println("Created masks for " + count + " icons in " + cache.folder + " in "
+				+ (System.currentTimeMillis() - startTime) / 1000.0 + " seconds.");
+	}
+}
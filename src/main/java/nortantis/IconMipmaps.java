@@ -0,0 +1,209 @@
+package nortantis;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * A chain of successively half-sized copies of an icon or icon mask, used to scale it quickly to any width.
+ *
+ * Scaling an icon with Scalr's quality method halves it repeatedly from its full size each time a new width is
+ * needed. The halved levels here are built once per icon, so scaling only needs one bilinear pass from the smallest
+ * level that is at least as large as the requested size. Colors are stored premultiplied by alpha so that transparent
+ * pixels don't darken the edges of scaled icons.
+ */
+public class IconMipmaps
+{
+	private static final int bucketsPerOctave = 16;
+	private static final int smallestBucketedWidth = 24;
+
+	private final boolean isMask;
+	private final int[][] levels;
+	private final int[] widths;
+	private final int[] heights;
+	private final double aspectRatio;
+
+	public IconMipmaps(BufferedImage image)
+	{
+		isMask = image.getType() == BufferedImage.TYPE_BYTE_BINARY || image.getType() == BufferedImage.TYPE_BYTE_GRAY;
+		aspectRatio = ((double) image.getHeight()) / image.getWidth();
+
+		int count = 1;
+		for (int w = image.getWidth(), h = image.getHeight(); w > 1 && h > 1; w /= 2, h /= 2)
+		{
+			count++;
+		}
+		levels = new int[count][];
+		widths = new int[count];
+		heights = new int[count];
+
+		widths[0] = image.getWidth();
+		heights[0] = image.getHeight();
+		levels[0] = toPremultiplied(image);
+		for (int i = 1; i < count; i++)
+		{
+			widths[i] = Math.max(1, widths[i - 1] / 2);
+			heights[i] = Math.max(1, heights[i - 1] / 2);
+			levels[i] = halve(levels[i - 1], widths[i - 1], heights[i - 1], widths[i], heights[i]);
+		}
+	}
+
+	public long getSizeInBytes()
+	{
+		long size = 0;
+		for (int[] level : levels)
+		{
+			size += level.length * 4L;
+		}
+		return size;
+	}
+
+	/**
+	 * Rounds a width to one of a small set of sizes, about 4% apart, so that icons drawn at nearly the same size share
+	 * one scaled image. Small widths are not rounded because a few pixels matter more there.
+	 */
+	public static int toSizeBucket(int width)
+	{
+		if (width <= smallestBucketedWidth)
+		{
+			return width;
+		}
+		double step = Math.round(Math.log(width) / Math.log(2) * bucketsPerOctave);
+		return (int) Math.round(Math.pow(2, step / bucketsPerOctave));
+	}
+
+	/**
+	 * Creates a copy of the image with the given width, preserving aspect ratio. The result has the same type as
+	 * ImageHelper.scaleByWidth gives: TYPE_BYTE_BINARY for masks and TYPE_INT_ARGB for icons.
+	 */
+	public BufferedImage scaleByWidth(int width)
+	{
+		int height = Math.max(1, (int) (width * aspectRatio));
+
+		int level = 0;
+		while (level + 1 < levels.length && widths[level + 1] >= width && heights[level + 1] >= height)
+		{
+			level++;
+		}
+		int[] source = levels[level];
+		int sourceWidth = widths[level];
+		int sourceHeight = heights[level];
+
+		int[] scaled = new int[width * height];
+		double xScale = ((double) sourceWidth) / width;
+		double yScale = ((double) sourceHeight) / height;
+		for (int y = 0; y < height; y++)
+		{
+			double sy = Math.max(0, (y + 0.5) * yScale - 0.5);
+			int y0 = Math.min((int) sy, sourceHeight - 1);
+			int y1 = Math.min(y0 + 1, sourceHeight - 1);
+			double fy = sy - y0;
+			for (int x = 0; x < width; x++)
+			{
+				double sx = Math.max(0, (x + 0.5) * xScale - 0.5);
+				int x0 = Math.min((int) sx, sourceWidth - 1);
+				int x1 = Math.min(x0 + 1, sourceWidth - 1);
+				double fx = sx - x0;
+				scaled[y * width + x] = bilinear(source[y0 * sourceWidth + x0], source[y0 * sourceWidth + x1], source[y1 * sourceWidth + x0],
+						source[y1 * sourceWidth + x1], fx, fy);
+			}
+		}
+
+		return isMask ? toMask(scaled, width, height) : toArgb(scaled, width, height);
+	}
+
+	private static int[] toPremultiplied(BufferedImage image)
+	{
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+		for (int i = 0; i < pixels.length; i++)
+		{
+			int p = pixels[i];
+			int a = p >>> 24;
+			int r = ((p >> 16) & 0xff) * a / 255;
+			int g = ((p >> 8) & 0xff) * a / 255;
+			int b = (p & 0xff) * a / 255;
+			pixels[i] = (a << 24) | (r << 16) | (g << 8) | b;
+		}
+		return pixels;
+	}
+
+	private static int[] halve(int[] source, int sourceWidth, int sourceHeight, int width, int height)
+	{
+		int[] result = new int[width * height];
+		for (int y = 0; y < height; y++)
+		{
+			int sy0 = Math.min(y * 2, sourceHeight - 1);
+			int sy1 = Math.min(y * 2 + 1, sourceHeight - 1);
+			for (int x = 0; x < width; x++)
+			{
+				int sx0 = Math.min(x * 2, sourceWidth - 1);
+				int sx1 = Math.min(x * 2 + 1, sourceWidth - 1);
+				result[y * width + x] = average(source[sy0 * sourceWidth + sx0], source[sy0 * sourceWidth + sx1], source[sy1 * sourceWidth + sx0],
+						source[sy1 * sourceWidth + sx1]);
+			}
+		}
+		return result;
+	}
+
+	private static int average(int p00, int p10, int p01, int p11)
+	{
+		int result = 0;
+		for (int shift = 0; shift < 32; shift += 8)
+		{
+			int sum = ((p00 >>> shift) & 0xff) + ((p10 >>> shift) & 0xff) + ((p01 >>> shift) & 0xff) + ((p11 >>> shift) & 0xff);
+			result |= ((sum + 2) / 4) << shift;
+		}
+		return result;
+	}
+
+	private static int bilinear(int p00, int p10, int p01, int p11, double fx, double fy)
+	{
+		int result = 0;
+		for (int shift = 0; shift < 32; shift += 8)
+		{
+			double top = ((p00 >>> shift) & 0xff) * (1 - fx) + ((p10 >>> shift) & 0xff) * fx;
+			double bottom = ((p01 >>> shift) & 0xff) * (1 - fx) + ((p11 >>> shift) & 0xff) * fx;
+			int value = (int) Math.round(top * (1 - fy) + bottom * fy);
+			result |= Math.min(255, value) << shift;
+		}
+		return result;
+	}
+
+	private static BufferedImage toArgb(int[] premultiplied, int width, int height)
+	{
+		BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		int[] data = ((DataBufferInt) result.getRaster().getDataBuffer()).getData();
+		for (int i = 0; i < premultiplied.length; i++)
+		{
+			int p = premultiplied[i];
+			int a = p >>> 24;
+			if (a == 0)
+			{
+				continue;
+			}
+			int r = Math.min(255, ((p >> 16) & 0xff) * 255 / a);
+			int g = Math.min(255, ((p >> 8) & 0xff) * 255 / a);
+			int b = Math.min(255, (p & 0xff) * 255 / a);
+			data[i] = (a << 24) | (r << 16) | (g << 8) | b;
+		}
+		return result;
+	}
+
+	private static BufferedImage toMask(int[] pixels, int width, int height)
+	{
+		BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+		var raster = result.getRaster();
+		for (int y = 0; y < height; y++)
+		{
+			for (int x = 0; x < width; x++)
+			{
+				if (((pixels[y * width + x] >> 16) & 0xff) >= 128)
+				{
+					raster.setSample(x, y, 0, 1);
+				}
+			}
+		}
+		return result;
+	}
+}
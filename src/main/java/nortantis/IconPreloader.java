@@ -0,0 +1,83 @@
+package nortantis;
+
+import static java.lang.String.format;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import nortantis.util.Logger;
+
+/**
+ * Loads icons and their masks into the ImageCache in the background, so that the first map drawn doesn't have to wait
+ * for them to be listed and decoded.
+ *
+ * Icons are cached under the same keys IconDrawer uses, so IconDrawer finds them already loaded. Preloading can be
+ * turned off by setting the system property nortantis.preloadIcons to false.
+ */
+public class IconPreloader
+{
+	/**
+	 * Starts loading every icon that doesn't use sets, and the icons in the given city icon set, in parallel in the
+	 * background.
+	 *
+	 * @param cityIconSetName The city icon set to load, or null to not load city icons.
+	 * @return A future that completes when the icons are loaded, or right away if preloading is turned off.
+	 */
+	public static CompletableFuture<Void> preloadInBackground(String cityIconSetName)
+	{
+		if ("false".equals(System.getProperty("nortantis.preloadIcons")))
+		{
+			return CompletableFuture.completedFuture(null);
+		}
+
+		return CompletableFuture.runAsync(() ->
+		{
+			long startTime = System.currentTimeMillis();
+			List<Path> paths = findIconPaths(cityIconSetName);
+			paths.parallelStream().forEach(IconPreloader::load);
+			Logger.debug("Preloaded " + paths.size() + " icons in " + (System.currentTimeMillis() - startTime) / 1000.0 + " seconds.");
+		});
+	}
+
+	private static List<Path> findIconPaths(String cityIconSetName)
+	{
+		List<Path> paths = new ArrayList<>();
+		for (IconType iconType : IconType.values())
+		{
+			if (iconType == IconType.cities)
+			{
+				if (cityIconSetName != null)
+				{
+					addIconPaths(paths, iconType, null, cityIconSetName);
+				}
+			}
+			else
+			{
+				IconDrawer.getIconGroupNames(iconType, null).forEach(groupName -> addIconPaths(paths, iconType, groupName, null));
+			}
+		}
+		return paths;
+	}
+
+	private static void addIconPaths(List<Path> paths, IconType iconType, String groupName, String setName)
+	{
+		Path groupPath = IconDrawer.getIconGroupPath(iconType, groupName, setName);
+		IconDrawer.getIconGroupFileNames(iconType, groupName, setName).map(groupPath::resolve).forEach(paths::add);
+	}
+
+	private static void load(Path path)
+	{
+		try
+		{
+			var icon = ImageCache.getInstance().getImageFromFile(path);
+			ImageCache.getInstance().getOrCreateImage(format("mask %s", path), () -> IconMaskCache.getInstance().getMask(path, icon));
+		}
+		catch (RuntimeException e)
+		{
+			// IconDrawer will report the problem if it uses this icon.
+			Logger.debug("Unable to preload icon " + path + ". " + e.getMessage());
+		}
+	}
+}
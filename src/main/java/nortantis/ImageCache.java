@@ -3,34 +3,85 @@ package nortantis;
 import nortantis.util.ImageHelper;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.lang.ref.SoftReference;
 import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 import static nortantis.util.ImageHelper.scaleByWidth;
 
 /**
  * Caches icons in memory to avoid recreating or reloading them.
+ *
+ * The cache holds at most a configurable number of bytes of images, evicting the least recently used entries first,
+ * so entries are weighted by their size. Entries can optionally be held by soft references so the garbage collector
+ * can reclaim them before the budget is reached. When several threads ask for the same missing entry at once, only
+ * one of them creates it and the others wait for it.
  */
 public class ImageCache
 {
 	private static ImageCache instance;
-	
+
 	/**
-	 * Maps original images, to scaled width, to scaled images.
+	 * Keys for each kind of cached value. Images are compared by identity.
 	 */
-	private final Map<BufferedImage, Map<Integer, BufferedImage>> scaledCache = new ConcurrentHashMap<>();
-	
+	private record ScaledImageKey(BufferedImage image, int width, boolean isIcon) {}
+	private record MipmapsKey(BufferedImage image) {}
+	private record FileKey(Path path) {}
+	private record GeneratedImageKey(String key) {}
+
+	private static class Entry
+	{
+		final Object value;
+		final SoftReference<Object> softValue;
+		final long bytes;
+
+		Entry(Object value, long bytes, boolean useSoftReference)
+		{
+			this.value = useSoftReference ? null : value;
+			this.softValue = useSoftReference ? new SoftReference<>(value) : null;
+			this.bytes = bytes;
+		}
+
+		Object get()
+		{
+			return softValue == null ? value : softValue.get();
+		}
+	}
+
+	public record Stats(long hits, long misses, long evictions, long bytes, int entries)
+	{
+		@Override
+		public String toString()
+		{
+			return String.format("%d entries using %.1f MB, %d hits, %d misses, %d evictions", entries, bytes / (1024.0 * 1024.0), hits,
+					misses, evictions);
+		}
+	}
+
 	/**
-	 * Maps file path (or any string key) to images.
+	 * Every cached value in least to most recently used order. Guarded by itself.
 	 */
-	private final Map<Path, BufferedImage> fileCache = new ConcurrentHashMap<>();
+	private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long bytes;
+	private long maxBytes = Runtime.getRuntime().maxMemory() / 4;
+	private boolean useSoftReferences;
 
 	/**
-	 * Maps string keys to images generated (not loaded directly from files).
+	 * Values being created, so that other threads asking for the same key can wait for them.
 	 */
-	private final Map<String, BufferedImage> generatedImageCache = new ConcurrentHashMap<>();
+	private final Map<Object, CompletableFuture<Object>> inProgress = new ConcurrentHashMap<>();
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
 
 	/**
 	 * Singleton
@@ -38,47 +89,218 @@ public class ImageCache
 	private ImageCache()
 	{
 	}
-	
+
 	public synchronized static ImageCache getInstance()
 	{
 		if (instance == null)
 			instance = new ImageCache();
 		return instance;
 	}
-	
+
+	/**
+	 * Sets the number of bytes of images the cache may hold before it evicts the least recently used ones.
+	 * The default is a quarter of the maximum heap size.
+	 */
+	public void setMaxBytes(long maxBytes)
+	{
+		synchronized (entries)
+		{
+			this.maxBytes = maxBytes;
+			evictIfOverBudget();
+		}
+	}
+
+	/**
+	 * If true, entries added from now on are held by soft references, so the garbage collector may reclaim them
+	 * when memory runs low even if the cache is within its budget.
+	 */
+	public void setUseSoftReferences(boolean useSoftReferences)
+	{
+		synchronized (entries)
+		{
+			this.useSoftReferences = useSoftReferences;
+		}
+	}
+
+	public Stats getStats()
+	{
+		synchronized (entries)
+		{
+			return new Stats(hits.get(), misses.get(), evictions.get(), bytes, entries.size());
+		}
+	}
+
 	public BufferedImage getScaledImage(BufferedImage icon, int width)
 	{
-		// There is a small chance the 2 different threads might both add the same image at the same time, 
-		// but if that did happen it would only results in a little bit of duplicated work, not a functional
-		// problem.
-		return scaledCache
-				.computeIfAbsent(icon, k -> new ConcurrentHashMap<>())
-				.computeIfAbsent(width, k1 -> scaleByWidth(icon, width));
+		return get(new ScaledImageKey(icon, width, false), () -> scaleByWidth(icon, width));
 	}
-	
+
+	/**
+	 * Scales an icon or icon mask to about the given width. The width is rounded to one of a limited set of
+	 * sizes (see IconMipmaps.toSizeBucket) so that icons drawn at many slightly different sizes share scaled images.
+	 */
+	public BufferedImage getScaledIcon(BufferedImage icon, int width)
+	{
+		int bucketWidth = IconMipmaps.toSizeBucket(width);
+		return get(new ScaledImageKey(icon, bucketWidth, true),
+				() -> this.<IconMipmaps>get(new MipmapsKey(icon), () -> new IconMipmaps(icon)).scaleByWidth(bucketWidth));
+	}
+
 	public BufferedImage getImageFromFile(Path path)
 	{
-		return fileCache
-				.computeIfAbsent(path, k -> ImageHelper.read(path));
+		return get(new FileKey(path), () -> ImageHelper.read(path));
 	}
-	
+
 	public boolean containsImageFile(Path path)
 	{
-		return fileCache.containsKey(path);
+		synchronized (entries)
+		{
+			Entry entry = entries.get(new FileKey(path));
+			return entry != null && entry.get() != null;
+		}
 	}
-	
+
 	/**
 	 * Get an image from cache or create it using createFun.
 	 */
 	public BufferedImage getOrCreateImage(String key, Supplier<BufferedImage> createFun)
 	{
-		return generatedImageCache.computeIfAbsent(key, k -> createFun.get());
+		return get(new GeneratedImageKey(key), createFun);
 	}
-	
+
 	public static void clear()
 	{
-		getInstance().scaledCache.clear();
-		getInstance().fileCache.clear();
-		getInstance().generatedImageCache.clear();
+		ImageCache cache = getInstance();
+		synchronized (cache.entries)
+		{
+			cache.entries.clear();
+			cache.bytes = 0;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T get(Object key, Supplier<T> create)
+	{
+		Object value = getIfPresent(key);
+		if (value != null)
+		{
+			hits.incrementAndGet();
+			return (T) value;
+		}
+
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		CompletableFuture<Object> existing = inProgress.putIfAbsent(key, future);
+		if (existing != null)
+		{
+			// Another thread is creating this value.
+			hits.incrementAndGet();
+			return (T) join(existing);
+		}
+
+		try
+		{
+			// Check again in case another thread finished creating the value between the first check and now.
+			value = getIfPresent(key);
+			if (value != null)
+			{
+				hits.incrementAndGet();
+			}
+			else
+			{
+				misses.incrementAndGet();
+				value = create.get();
+				put(key, value);
+			}
+			future.complete(value);
+			return (T) value;
+		}
+		catch (RuntimeException | Error e)
+		{
+			future.completeExceptionally(e);
+			throw e;
+		}
+		finally
+		{
+			inProgress.remove(key, future);
+		}
+	}
+
+	private Object getIfPresent(Object key)
+	{
+		synchronized (entries)
+		{
+			Entry entry = entries.get(key);
+			if (entry == null)
+			{
+				return null;
+			}
+			Object value = entry.get();
+			if (value == null)
+			{
+				// The garbage collector reclaimed it.
+				entries.remove(key);
+				bytes -= entry.bytes;
+				evictions.incrementAndGet();
+			}
+			return value;
+		}
+	}
+
+	private void put(Object key, Object value)
+	{
+		synchronized (entries)
+		{
+			Entry entry = new Entry(value, sizeInBytes(value), useSoftReferences);
+			Entry previous = entries.put(key, entry);
+			if (previous != null)
+			{
+				bytes -= previous.bytes;
+			}
+			bytes += entry.bytes;
+			evictIfOverBudget();
+		}
+	}
+
+	private void evictIfOverBudget()
+	{
+		Iterator<Entry> iterator = entries.values().iterator();
+		// Always keep the most recently added entry, even if it alone is over budget.
+		while (bytes > maxBytes && entries.size() > 1 && iterator.hasNext())
+		{
+			Entry eldest = iterator.next();
+			iterator.remove();
+			bytes -= eldest.bytes;
+			evictions.incrementAndGet();
+		}
+	}
+
+	private static Object join(CompletableFuture<Object> future)
+	{
+		try
+		{
+			return future.join();
+		}
+		catch (CompletionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	private static long sizeInBytes(Object value)
+	{
+		if (value instanceof BufferedImage image)
+		{
+			DataBuffer buffer = image.getRaster().getDataBuffer();
+			return (long) buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+		}
+		if (value instanceof IconMipmaps mipmaps)
+		{
+			return mipmaps.getSizeInBytes();
+		}
+		return 0;
 	}
 }
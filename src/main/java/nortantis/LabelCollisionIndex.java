@@ -0,0 +1,257 @@
+package nortantis;
+
+import java.awt.geom.Area;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds whether the bounds of a label overlap the bounds of labels and icons already placed, without intersecting a
+ * copy of every placed java.awt.geom.Area with the new one.
+ *
+ * Bounds that are rectangles, including rotated ones, are stored as the 4 corners of an oriented box and compared
+ * using the separating axis test. Other shapes fall back to Area intersection. Bounds are stored in each cell of a
+ * uniform grid that their bounding box touches, so only nearby bounds are compared.
+ *
+ * This is not thread safe.
+ */
+class LabelCollisionIndex
+{
+	// Relative tolerance for rounding error in the corners of rotated areas.
+	private static final double epsilon = 1e-9;
+
+	private final double cellSize;
+	private final int columns;
+	private final int rows;
+	private final List<List<Bounds>> cells;
+	// Used to compare each stored bounds at most once per query, even if it is in several of the cells searched.
+	private int queryNumber;
+
+	/**
+	 * @param width Width of the region labels are placed in. Bounds outside of it are stored in the edge cells.
+	 * @param height Height of the region labels are placed in.
+	 * @param cellSize Width and height of each grid cell. About the height of a label works well.
+	 */
+	public LabelCollisionIndex(double width, double height, double cellSize)
+	{
+		this.cellSize = cellSize;
+		columns = Math.max(1, (int) Math.ceil(width / cellSize));
+		rows = Math.max(1, (int) Math.ceil(height / cellSize));
+		cells = new ArrayList<>(columns * rows);
+		for (int i = 0; i < columns * rows; i++)
+		{
+			cells.add(null);
+		}
+	}
+
+	public void add(Area area)
+	{
+		Bounds bounds = new Bounds(area);
+		if (bounds.isEmpty())
+		{
+			return;
+		}
+
+		for (int row = toRow(bounds.box.getMinY()); row <= toRow(bounds.box.getMaxY()); row++)
+		{
+			for (int column = toColumn(bounds.box.getMinX()); column <= toColumn(bounds.box.getMaxX()); column++)
+			{
+				int i = row * columns + column;
+				if (cells.get(i) == null)
+				{
+					cells.set(i, new ArrayList<>(4));
+				}
+				cells.get(i).add(bounds);
+			}
+		}
+	}
+
+	/**
+	 * @return True if the given area overlaps any area added, by more than just touching edges.
+	 */
+	public boolean overlaps(Area area)
+	{
+		Bounds query = new Bounds(area);
+		if (query.isEmpty())
+		{
+			return false;
+		}
+
+		queryNumber++;
+		for (int row = toRow(query.box.getMinY()); row <= toRow(query.box.getMaxY()); row++)
+		{
+			for (int column = toColumn(query.box.getMinX()); column <= toColumn(query.box.getMaxX()); column++)
+			{
+				List<Bounds> cell = cells.get(row * columns + column);
+				if (cell == null)
+				{
+					continue;
+				}
+				for (Bounds bounds : cell)
+				{
+					if (bounds.lastQueryNumber == queryNumber)
+					{
+						continue;
+					}
+					bounds.lastQueryNumber = queryNumber;
+					if (query.box.intersects(bounds.box) && query.intersects(bounds))
+					{
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	private int toColumn(double x)
+	{
+		return Math.max(0, Math.min(columns - 1, (int) Math.floor(x / cellSize)));
+	}
+
+	private int toRow(double y)
+	{
+		return Math.max(0, Math.min(rows - 1, (int) Math.floor(y / cellSize)));
+	}
+
+	private static class Bounds
+	{
+		final Area area;
+		final Rectangle2D box;
+		// The corners of the area in order around it if it is a possibly rotated rectangle, or else null.
+		final double[] xs;
+		final double[] ys;
+		int lastQueryNumber;
+
+		Bounds(Area area)
+		{
+			this.area = area;
+			box = area.getBounds2D();
+
+			double[] cornerXs = new double[4];
+			double[] cornerYs = new double[4];
+			if (findRectangleCorners(area, cornerXs, cornerYs))
+			{
+				xs = cornerXs;
+				ys = cornerYs;
+			}
+			else
+			{
+				xs = null;
+				ys = null;
+			}
+		}
+
+		boolean isEmpty()
+		{
+			return area.isEmpty();
+		}
+
+		boolean intersects(Bounds other)
+		{
+			if (xs == null || other.xs == null)
+			{
+				Area copy = new Area(area);
+				copy.intersect(other.area);
+				return !copy.isEmpty();
+			}
+			return !hasSeparatingAxis(this, other) && !hasSeparatingAxis(other, this);
+		}
+
+		/**
+		 * Checks whether any of the edge normals of a separates the two boxes. Opposite edges of a rectangle are
+		 * parallel, so only 2 edges need to be checked.
+		 */
+		private static boolean hasSeparatingAxis(Bounds a, Bounds b)
+		{
+			for (int edge = 0; edge < 2; edge++)
+			{
+				double axisX = -(a.ys[edge + 1] - a.ys[edge]);
+				double axisY = a.xs[edge + 1] - a.xs[edge];
+
+				double aMin = Double.POSITIVE_INFINITY;
+				double aMax = Double.NEGATIVE_INFINITY;
+				double bMin = Double.POSITIVE_INFINITY;
+				double bMax = Double.NEGATIVE_INFINITY;
+				for (int i = 0; i < 4; i++)
+				{
+					double aProjection = a.xs[i] * axisX + a.ys[i] * axisY;
+					aMin = Math.min(aMin, aProjection);
+					aMax = Math.max(aMax, aProjection);
+					double bProjection = b.xs[i] * axisX + b.ys[i] * axisY;
+					bMin = Math.min(bMin, bProjection);
+					bMax = Math.max(bMax, bProjection);
+				}
+
+				double tolerance = epsilon * (1 + Math.abs(aMax) + Math.abs(bMax));
+				if (aMax <= bMin + tolerance || bMax <= aMin + tolerance)
+				{
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * Finds the corners of the area if it is a single rectangle, which may be rotated.
+		 *
+		 * @return True if the area is a rectangle, in which case the corners were stored in xs and ys.
+		 */
+		private static boolean findRectangleCorners(Area area, double[] xs, double[] ys)
+		{
+			if (!area.isSingular())
+			{
+				return false;
+			}
+
+			int count = 0;
+			double[] coords = new double[6];
+			for (PathIterator it = area.getPathIterator(null); !it.isDone(); it.next())
+			{
+				int type = it.currentSegment(coords);
+				if (type == PathIterator.SEG_CLOSE)
+				{
+					continue;
+				}
+				if (type != PathIterator.SEG_MOVETO && type != PathIterator.SEG_LINETO)
+				{
+					return false;
+				}
+				if (count > 0 && coords[0] == xs[0] && coords[1] == ys[0])
+				{
+					// The path returned to its start.
+					continue;
+				}
+				if (count == 4)
+				{
+					return false;
+				}
+				xs[count] = coords[0];
+				ys[count] = coords[1];
+				count++;
+			}
+			if (count != 4)
+			{
+				return false;
+			}
+
+			// Each corner must be a right angle.
+			for (int i = 0; i < 4; i++)
+			{
+				int previous = (i + 3) % 4;
+				int next = (i + 1) % 4;
+				double dx1 = xs[previous] - xs[i];
+				double dy1 = ys[previous] - ys[i];
+				double dx2 = xs[next] - xs[i];
+				double dy2 = ys[next] - ys[i];
+				double lengths = Math.hypot(dx1, dy1) * Math.hypot(dx2, dy2);
+				if (Math.abs(dx1 * dx2 + dy1 * dy2) > 1e-6 * lengths)
+				{
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -15,7 +15,6 @@ import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.*;
@@ -32,10 +31,20 @@ public class MapCreator
 	private Random r;
 	// This is a base width for determining how large to draw text and effects.
 
+	private RenderMetrics metrics;
+
 	public MapCreator()
 	{
 	}
 
+	/**
+	 * @return Timing and allocation measurements for each stage of the last call to createMap, or null if createMap hasn't been called.
+	 */
+	public RenderMetrics getRenderMetrics()
+	{
+		return metrics;
+	}
+
 	/**
 	 * Draws a map.
 	 * 
@@ -56,25 +65,35 @@ public class MapCreator
 			throw new IllegalArgumentException("Ocean background image file does not exists: " + settings.oceanBackgroundImage);
 		
 		double startTime = System.currentTimeMillis();				
+		metrics = new RenderMetrics();
 						
         r = new Random(settings.randomSeed);        
 		
-        Background background;
-        if (mapParts != null && mapParts.background != null)
-        {
-        	background = mapParts.background;
-        }
-        else
-        {
-    		Logger.println("Generating the background image.");
-        	background = new Background(settings, maxDimensions);	
-        }
-        
-        if (mapParts != null)
-        {
-        	mapParts.background = background;
-        }
-        
+		if (settings.drawText || settings.alwaysCreateTextDrawerAndUpdateLandBackgroundWithOcean)
+		{
+			// Names need the word dictionary, so start loading it while the background is created.
+			WordDictionary.preloadInBackground();
+		}
+
+		Background background;
+		try (var stage = metrics.startStage("background"))
+		{
+			if (mapParts != null && mapParts.background != null)
+			{
+				background = mapParts.background;
+			}
+			else
+			{
+				Logger.println("Generating the background image.");
+				background = new Background(settings, maxDimensions);
+			}
+
+			if (mapParts != null)
+			{
+				mapParts.background = background;
+			}
+		}
+
         double sizeMultiplier = calcSizeMultiplier(background.mapBounds.getWidth());
         if (mapParts != null)
         {
@@ -83,158 +102,181 @@ public class MapCreator
 		
 		
 		TextDrawer textDrawer = null;
-		if (settings.drawText || settings.alwaysCreateTextDrawerAndUpdateLandBackgroundWithOcean)
+		try (var stage = metrics.startStage("text setup"))
 		{
-			if (mapParts == null || mapParts.textDrawer == null || settings.alwaysCreateTextDrawerAndUpdateLandBackgroundWithOcean)
+			if (settings.drawText || settings.alwaysCreateTextDrawerAndUpdateLandBackgroundWithOcean)
 			{
-				textDrawer = new TextDrawer(settings, sizeMultiplier);
+				if (mapParts == null || mapParts.textDrawer == null || settings.alwaysCreateTextDrawerAndUpdateLandBackgroundWithOcean)
+				{
+					textDrawer = new TextDrawer(settings, sizeMultiplier);
 				
-				if (mapParts != null)
+					if (mapParts != null)
+					{
+						mapParts.textDrawer = textDrawer;
+					}
+				}
+				else
 				{
-					mapParts.textDrawer = textDrawer;
+					textDrawer = mapParts.textDrawer;
 				}
 			}
-			else
-			{
-				textDrawer = mapParts.textDrawer;
-			}
 		}
 		
-        WorldGraph graph;
-		if (mapParts == null || mapParts.graph == null)
+		WorldGraph graph;
+		try (var stage = metrics.startStage("graph"))
 		{
-			Logger.println("Creating the graph.");
-			graph = createGraph(settings, background.mapBounds.getWidth(), background.mapBounds.getHeight(), r, sizeMultiplier);
-			if (mapParts != null)
+			if (mapParts == null || mapParts.graph == null)
 			{
-				mapParts.graph = graph;
+				Logger.println("Creating the graph.");
+				graph = createGraph(settings, background.mapBounds.getWidth(), background.mapBounds.getHeight(), r, sizeMultiplier);
+				if (mapParts != null)
+				{
+					mapParts.graph = graph;
+				}
 			}
-		}
-		else
-		{
-			graph = mapParts.graph;
-		}
-		applyRegionEdits(graph, settings.edits);
-		applyCenterEdits(graph, settings.edits);
-		applyEdgeEdits(graph, settings.edits);
+			else
+			{
+				graph = mapParts.graph;
+			}
+			applyRegionEdits(graph, settings.edits);
+			applyCenterEdits(graph, settings.edits);
+			applyEdgeEdits(graph, settings.edits);
  		
-		background.doSetupThatNeedsGraph(graph);
-		if (mapParts == null)
-		{
-			background.landBeforeRegionColoring = null;
+			background.doSetupThatNeedsGraph(graph);
+			if (mapParts == null)
+			{
+				background.landBeforeRegionColoring = null;
+			}
 		}
 		
 		IconDrawer iconDrawer;
 		boolean needToAddIcons;
-		if (mapParts == null || mapParts.iconDrawer == null)
+		// All mountain ranges and smaller groups of mountains (include mountains that are alone).
+		List<Set<Center>> mountainGroups;
+		// All mountain ranges and smaller groups of mountains extended to include nearby hills.
+		List<Set<Center>> mountainAndHillGroups;
+		try (var stage = metrics.startStage("icon setup"))
 		{
-			iconDrawer = new IconDrawer(graph, new Random(r.nextLong()), settings.cityIconSetName);
-			if (mapParts != null)
+			if (mapParts == null || mapParts.iconDrawer == null)
 			{
-				mapParts.iconDrawer = iconDrawer;
-			}
+				iconDrawer = new IconDrawer(graph, new Random(r.nextLong()), settings.cityIconSetName);
+				if (mapParts != null)
+				{
+					mapParts.iconDrawer = iconDrawer;
+				}
 			
-			needToAddIcons = !settings.edits.hasIconEdits;
-		}
-		else
-		{
-			iconDrawer = mapParts.iconDrawer;
-			needToAddIcons = false; // The icon drawer is from cache, so it already knows what icons to draw.
-			r.nextLong(); // Use the random number generator the same as if I had created the icon drawer.
-		}
+				needToAddIcons = !settings.edits.hasIconEdits;
+			}
+			else
+			{
+				iconDrawer = mapParts.iconDrawer;
+				needToAddIcons = false; // The icon drawer is from cache, so it already knows what icons to draw.
+				r.nextLong(); // Use the random number generator the same as if I had created the icon drawer.
+			}
 
-		iconDrawer.markMountains();
-		iconDrawer.markHills();
-		iconDrawer.markCities(settings.cityProbability);
-		var pair = iconDrawer.findMountainAndHillGroups();
-		// All mountain ranges and smaller groups of mountains (include mountains that are alone).
-		var mountainGroups = pair.first();
-		// All mountain ranges and smaller groups of mountains extended to include nearby hills.
-		var mountainAndHillGroups = pair.second();
-		if (mapParts != null)
-		{
-			mapParts.mountainGroups = mountainGroups;
-		}
+			iconDrawer.markMountains();
+			iconDrawer.markHills();
+			iconDrawer.markCities(settings.cityProbability);
+			var pair = iconDrawer.findMountainAndHillGroups();
+			mountainGroups = pair.first();
+			mountainAndHillGroups = pair.second();
+			if (mapParts != null)
+			{
+				mapParts.mountainGroups = mountainGroups;
+			}
 		
-		if (!needToAddIcons)
-		{
-			iconDrawer.clearAndAddIconsFromEdits(settings.edits, sizeMultiplier);
+			if (!needToAddIcons)
+			{
+				iconDrawer.clearAndAddIconsFromEdits(settings.edits, sizeMultiplier);
+			}
 		}
 		
 		// Draw mask for land vs ocean.
 		Logger.println("Adding land.");
-		BufferedImage landMask = new BufferedImage(graph.getWidth(),
-				graph.getHeight(), BufferedImage.TYPE_BYTE_BINARY); 
+		BufferedImage landMask;
+		BufferedImage map;
+		try (var stage = metrics.startStage("land mask"))
 		{
-			Graphics2D g = landMask.createGraphics();
-			graph.drawLandAndOceanBlackAndWhite(g, graph.centers);
-		}
+			landMask = new BufferedImage(graph.getWidth(),
+					graph.getHeight(), BufferedImage.TYPE_BYTE_BINARY); 
+			{
+				Graphics2D g = landMask.createGraphics();
+				graph.drawLandAndOceanBlackAndWhite(g, graph.centers);
+			}
+			iconDrawer.setLandMask(landMask);
 		
 
-		BufferedImage map;
-		{	
-			// Combine land and ocean images.
-			map = ImageHelper.maskWithColor(background.land, Color.black, landMask, false);
-		}
-		if (mapParts == null)
-		{
-			background.land = null;
+			{	
+				// Combine land and ocean images.
+				map = ImageHelper.maskWithColor(background.land, Color.black, landMask, false);
+			}
+			if (mapParts == null)
+			{
+				background.land = null;
+			}
 		}
 		
 		BufferedImage coastlineMask = null;
-		if (settings.landBlur > 0 || settings.oceanEffectSize > 0)
+		try (var stage = metrics.startStage("coastline"))
 		{
-			Logger.println("Creating coastline effects.");
-			coastlineMask = new BufferedImage(graph.getWidth(),
-					graph.getHeight(), BufferedImage.TYPE_BYTE_BINARY);
+			if (settings.landBlur > 0 || settings.oceanEffectSize > 0)
 			{
-				Graphics2D g = coastlineMask.createGraphics();
-				graph.paint(g, false, false, false, false, true, false, sizeMultiplier);
+				Logger.println("Creating coastline effects.");
+				coastlineMask = new BufferedImage(graph.getWidth(),
+						graph.getHeight(), BufferedImage.TYPE_BYTE_BINARY);
+				{
+					Graphics2D g = coastlineMask.createGraphics();
+					graph.paint(g, false, false, false, false, true, false, sizeMultiplier);
+				}
 			}
 		}
 		
 		
 		// Darken the land next to coast lines and optionally region borders.
+		try (var stage = metrics.startStage("land blur"))
 		{
-			BufferedImage landBlur;
-			int blurLevel = (int) (settings.landBlur * sizeMultiplier);
-			if (blurLevel > 0)
 			{
-				Logger.println("Darkening land near shores.");
-				float[][] kernel = ImageHelper.createGaussianKernel(blurLevel);
-				
-				if (background.shouldDrawRegionColors)
+				BufferedImage landBlur;
+				int blurLevel = (int) (settings.landBlur * sizeMultiplier);
+				if (blurLevel > 0)
 				{
-					BufferedImage coastlineAndRegionBorders = ImageHelper.deepCopy(coastlineMask);
-					Graphics2D g = coastlineAndRegionBorders.createGraphics();
-					g.setColor(Color.white);
-					graph.drawRegionBorders(g, sizeMultiplier, false);
-					landBlur = ImageHelper.convolveGrayscale(coastlineAndRegionBorders, kernel, true);
-					// Remove the land blur from the ocean side of the borders and color the blur
-					// according to each region's blur color.
-					landBlur = ImageHelper.maskWithColor(landBlur, Color.black, landMask, false);
-					Color[] colors;
-					if (graph.regions.size() > 0)
+					Logger.println("Darkening land near shores.");
+					float[][] kernel = ImageHelper.createGaussianKernel(blurLevel);
+				
+					if (background.shouldDrawRegionColors)
 					{
-						colors = graph.regions.stream()
-								.map(reg -> new Color((int)(reg.backgroundColor.getRed() * regionBlurColorScale),
-								(int)(reg.backgroundColor.getGreen() * regionBlurColorScale), (int)(reg.backgroundColor.getBlue() * regionBlurColorScale)))
-								.toArray(Color[]::new);
+						BufferedImage coastlineAndRegionBorders = ImageHelper.deepCopy(coastlineMask);
+						Graphics2D g = coastlineAndRegionBorders.createGraphics();
+						g.setColor(Color.white);
+						graph.drawRegionBorders(g, sizeMultiplier, false);
+						landBlur = ImageHelper.convolveGrayscale(coastlineAndRegionBorders, kernel, true);
+						// Remove the land blur from the ocean side of the borders and color the blur
+						// according to each region's blur color.
+						landBlur = ImageHelper.maskWithColor(landBlur, Color.black, landMask, false);
+						Color[] colors;
+						if (graph.regions.size() > 0)
+						{
+							colors = graph.regions.stream()
+									.map(reg -> new Color((int)(reg.backgroundColor.getRed() * regionBlurColorScale),
+									(int)(reg.backgroundColor.getGreen() * regionBlurColorScale), (int)(reg.backgroundColor.getBlue() * regionBlurColorScale)))
+									.toArray(Color[]::new);
+						}
+						else
+						{
+							colors = new Color[] {settings.landColor};
+						}
+						map = ImageHelper.maskWithMultipleColors(map, colors, background.regionIndexes, landBlur, true);
 					}
 					else
 					{
-						colors = new Color[] {settings.landColor};
+						landBlur = ImageHelper.convolveGrayscale(coastlineMask, kernel, true);
+						// Remove the land blur from the ocean side of the borders.
+						landBlur = ImageHelper.maskWithColor(landBlur, Color.black, landMask, false);
+						map = ImageHelper.maskWithColor(map, settings.landBlurColor, landBlur, true);
 					}
-					map = ImageHelper.maskWithMultipleColors(map, colors, background.regionIndexes, landBlur, true);
-				}
-				else
-				{
-					landBlur = ImageHelper.convolveGrayscale(coastlineMask, kernel, true);
-					// Remove the land blur from the ocean side of the borders.
-					landBlur = ImageHelper.maskWithColor(landBlur, Color.black, landMask, false);
-					map = ImageHelper.maskWithColor(map, settings.landBlurColor, landBlur, true);
 				}
 			}
+			
 		}
 			
 		// Store the current version of the map for a background when drawing icons later.
@@ -251,159 +293,174 @@ public class MapCreator
 		{
 		// Add rivers.
 			Logger.println("Adding rivers.");
-			drawRivers(settings, graph, map, sizeMultiplier);
+			try (var stage = metrics.startStage("rivers"))
+			{
+				drawRivers(settings, graph, map, sizeMultiplier);
+			}
 		}
 		
 		
 
 		List<IconDrawTask> cities;
-		if (needToAddIcons)
+		try (var stage = metrics.startStage("icons"))
 		{
-			Logger.println("Adding mountains and hills.");
-			iconDrawer.addMountainsAndHills(mountainAndHillGroups);
-			if (mapParts != null)
-				mapParts.mountainGroups = mountainGroups;
+			if (needToAddIcons)
+			{
+				Logger.println("Adding mountains and hills.");
+				iconDrawer.addMountainsAndHills(mountainAndHillGroups);
+				if (mapParts != null)
+					mapParts.mountainGroups = mountainGroups;
 
-			Logger.println("Adding sand dunes.");
-			iconDrawer.addSandDunes();
+				Logger.println("Adding sand dunes.");
+				iconDrawer.addSandDunes();
 			
-			Logger.println("Adding trees.");
-			iconDrawer.addTrees();
+				Logger.println("Adding trees.");
+				iconDrawer.addTrees();
 			
-			Logger.println("Adding cities.");
-			cities = iconDrawer.addOrUnmarkCities(sizeMultiplier, true);
-		}
-		else
-		{
-			// Create mountain groups for the text drawer.
-			mountainGroups = iconDrawer.findMountainAndHillGroups().first();
-			// Create city areas for the text drawer.
-			cities = iconDrawer.addOrUnmarkCities(settings.resolution, false);
-		}
+				Logger.println("Adding cities.");
+				cities = iconDrawer.addOrUnmarkCities(sizeMultiplier, true);
+			}
+			else
+			{
+				// Create mountain groups for the text drawer.
+				mountainGroups = iconDrawer.findMountainAndHillGroups().first();
+				// Create city areas for the text drawer.
+				cities = iconDrawer.addOrUnmarkCities(settings.resolution, false);
+			}
 
-		if (settings.drawRoads)
-		{
-			// TODO put back
-			//RoadDrawer roadDrawer = new RoadDrawer(r, settings, graph, iconDrawer);
-			//roadDrawer.markRoads();
-			//roadDrawer.drawRoads(map, sizeMultiplier);
-		}
+			if (settings.drawRoads)
+			{
+				// TODO put back
+				//RoadDrawer roadDrawer = new RoadDrawer(r, settings, graph, iconDrawer);
+				//roadDrawer.markRoads();
+				//roadDrawer.drawRoads(map, sizeMultiplier);
+			}
 
-		if (mapParts != null)
-		{
-			mapParts.cityDrawTasks = cities;
-		}
+			if (mapParts != null)
+			{
+				mapParts.cityDrawTasks = cities;
+			}
 		
-		if (settings.drawIcons)
-		{
-			Logger.println("Drawing all icons.");
-			iconDrawer.drawAllIcons(map, landBackground);
+			if (settings.drawIcons)
+			{
+				Logger.println("Drawing all icons.");
+				iconDrawer.drawAllIcons(map, landBackground);
+			}
 		}
 		
 		Logger.println("Drawing ocean.");
+		try (var stage = metrics.startStage("ocean"))
 		{
-			if (background.ocean.getWidth() != graph.getWidth() || background.ocean.getHeight() != graph.getHeight())
 			{
-				throw new IllegalArgumentException("The given ocean background image does not"
-						+ " have the same aspect ratio as the given land background image.");
-			}
+				if (background.ocean.getWidth() != graph.getWidth() || background.ocean.getHeight() != graph.getHeight())
+				{
+					throw new IllegalArgumentException("The given ocean background image does not"
+							+ " have the same aspect ratio as the given land background image.");
+				}
 
 			
-			if (settings.drawText || settings.alwaysCreateTextDrawerAndUpdateLandBackgroundWithOcean)
-			{
-				// Needed for drawing text.
-				landBackground = ImageHelper.maskWithImage(landBackground, background.ocean, landMask);
-			}
+				if (settings.drawText || settings.alwaysCreateTextDrawerAndUpdateLandBackgroundWithOcean)
+				{
+					// Needed for drawing text.
+					landBackground = ImageHelper.maskWithImage(landBackground, background.ocean, landMask);
+				}
 			
-			map = ImageHelper.maskWithImage(map, background.ocean, landMask);
+				map = ImageHelper.maskWithImage(map, background.ocean, landMask);
 			
-			if (mapParts == null)
-			{
-				background.ocean = null;
+				if (mapParts == null)
+				{
+					background.ocean = null;
+				}
 			}
 		}
 		
 		Logger.println("Adding effects to ocean along coastlines.");
+		try (var stage = metrics.startStage("ocean effects"))
 		{
-			BufferedImage oceanBlur;
-			int blurLevel = (int) (settings.oceanEffectSize * sizeMultiplier);
-			if (blurLevel > 0)
 			{
-				if (settings.oceanEffect == OceanEffect.Ripples || settings.oceanEffect == OceanEffect.Blur)
+				BufferedImage oceanBlur;
+				int blurLevel = (int) (settings.oceanEffectSize * sizeMultiplier);
+				if (blurLevel > 0)
 				{
-					float[][] kernel;
-					if (settings.oceanEffect == OceanEffect.Ripples)
+					if (settings.oceanEffect == OceanEffect.Ripples || settings.oceanEffect == OceanEffect.Blur)
 					{
-						kernel = ImageHelper.createPositiveSincKernel(blurLevel, 1.0 / sizeMultiplier);
-					} 
-					else
-					{
-						kernel = ImageHelper.createGaussianKernel((int) (settings.oceanEffectSize * sizeMultiplier));
+						float[][] kernel;
+						if (settings.oceanEffect == OceanEffect.Ripples)
+						{
+							kernel = ImageHelper.createPositiveSincKernel(blurLevel, 1.0 / sizeMultiplier);
+						} 
+						else
+						{
+							kernel = ImageHelper.createGaussianKernel((int) (settings.oceanEffectSize * sizeMultiplier));
+						}
+						int maxPixelValue = ImageHelper.getMaxPixelValue(BufferedImage.TYPE_BYTE_GRAY);
+						oceanBlur = ImageHelper.convolveGrayscale(coastlineMask, kernel, true, 0f, ((float)settings.oceanEffectsColor.getAlpha()) / ((float)(maxPixelValue)));
+						// Remove the ocean blur from the land side of the borders.
 					}
-					int maxPixelValue = ImageHelper.getMaxPixelValue(BufferedImage.TYPE_BYTE_GRAY);
-					oceanBlur = ImageHelper.convolveGrayscale(coastlineMask, kernel, true, 0f, ((float)settings.oceanEffectsColor.getAlpha()) / ((float)(maxPixelValue)));
-					// Remove the ocean blur from the land side of the borders.
-				}
-				else
-				{
-					oceanBlur = new BufferedImage(graph.getWidth(),
-							graph.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
-
-					double widthBetweenWaves = 12.0 * sizeMultiplier;
-					double lineWidth = 2.0 * sizeMultiplier;
-					int numWaves = (int)(blurLevel / (widthBetweenWaves + lineWidth));
-					double largestLineWidth = blurLevel - blurLevel % (widthBetweenWaves + lineWidth);
-					for (int i : new Range(0, numWaves))
+					else
 					{
+						oceanBlur = new BufferedImage(graph.getWidth(),
+								graph.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+
+						double widthBetweenWaves = 12.0 * sizeMultiplier;
+						double lineWidth = 2.0 * sizeMultiplier;
+						int numWaves = (int)(blurLevel / (widthBetweenWaves + lineWidth));
+						double largestLineWidth = blurLevel - blurLevel % (widthBetweenWaves + lineWidth);
+						for (int i : new Range(0, numWaves))
 						{
-							double whiteWidth = largestLineWidth - (i * (widthBetweenWaves + lineWidth));
-							if (whiteWidth <= 0)
 							{
-								continue;
+								double whiteWidth = largestLineWidth - (i * (widthBetweenWaves + lineWidth));
+								if (whiteWidth <= 0)
+								{
+									continue;
+								}
+								BufferedImage blur = ImageHelper.convolveGrayscale(coastlineMask, ImageHelper.createGaussianKernel((int)whiteWidth), true);
+								ImageHelper.threshold(blur, 1, settings.oceanEffectsColor.getAlpha());
+								ImageHelper.add(oceanBlur, blur);
 							}
-							BufferedImage blur = ImageHelper.convolveGrayscale(coastlineMask, ImageHelper.createGaussianKernel((int)whiteWidth), true);
-							ImageHelper.threshold(blur, 1, settings.oceanEffectsColor.getAlpha());
-							ImageHelper.add(oceanBlur, blur);
-						}
 						
-						{
-							double blackWidth = largestLineWidth - (i * (widthBetweenWaves + lineWidth)) - lineWidth;
-							if (blackWidth <= 0)
 							{
-								continue;
+								double blackWidth = largestLineWidth - (i * (widthBetweenWaves + lineWidth)) - lineWidth;
+								if (blackWidth <= 0)
+								{
+									continue;
+								}
+								BufferedImage blur = ImageHelper.convolveGrayscale(coastlineMask, ImageHelper.createGaussianKernel((int)blackWidth), true);
+								ImageHelper.threshold(blur, 1);
+								ImageHelper.subtract(oceanBlur, blur);
 							}
-							BufferedImage blur = ImageHelper.convolveGrayscale(coastlineMask, ImageHelper.createGaussianKernel((int)blackWidth), true);
-							ImageHelper.threshold(blur, 1);
-							ImageHelper.subtract(oceanBlur, blur);
 						}
-					}
 
-				}
-				oceanBlur = ImageHelper.maskWithColor(oceanBlur, Color.black, landMask, true);
+					}
+					oceanBlur = ImageHelper.maskWithColor(oceanBlur, Color.black, landMask, true);
 
-				map = ImageHelper.maskWithColor(map, settings.oceanEffectsColor, oceanBlur, true);
-				landBackground = ImageHelper.maskWithColor(landBackground, settings.oceanEffectsColor, oceanBlur, true);
-			}	
+					map = ImageHelper.maskWithColor(map, settings.oceanEffectsColor, oceanBlur, true);
+					landBackground = ImageHelper.maskWithColor(landBackground, settings.oceanEffectsColor, oceanBlur, true);
+				}	
+			}
 		}
 
 		// Draw coast lines.
+		try (var stage = metrics.startStage("coastlines"))
 		{
-			Graphics2D g = map.createGraphics();
-			g.setColor(settings.coastlineColor);
-			graph.drawCoastline(g, sizeMultiplier);
-		}
-		{
-			Graphics2D g = landBackground.createGraphics();
-			g.setColor(settings.coastlineColor);
-			graph.drawCoastline(g, sizeMultiplier);
-		}
+			{
+				Graphics2D g = map.createGraphics();
+				g.setColor(settings.coastlineColor);
+				graph.drawCoastline(g, sizeMultiplier);
+			}
+			{
+				Graphics2D g = landBackground.createGraphics();
+				g.setColor(settings.coastlineColor);
+				graph.drawCoastline(g, sizeMultiplier);
+			}
 
 				
-		// Add the rivers to landBackground so that the text doesn't erase them. I do this whether or not I draw text
-		// because I might draw the text later.
-		if (settings.drawRivers)
-		{
-			drawRivers(settings, graph, landBackground, sizeMultiplier);
+			// Add the rivers to landBackground so that the text doesn't erase them. I do this whether or not I draw text
+			// because I might draw the text later.
+			if (settings.drawRivers)
+			{
+				drawRivers(settings, graph, landBackground, sizeMultiplier);
+			}
 		}
 		
 		if (mapParts != null)
@@ -412,46 +469,55 @@ public class MapCreator
 		if (settings.drawText)
 		{
 			Logger.println("Adding text.");
-			
-			if (background.shouldDrawRegionColors)
+			try (var stage = metrics.startStage("text"))
 			{
-				Graphics2D g = landBackground.createGraphics();
-				g.setColor(settings.coastlineColor);
-				graph.drawRegionBorders(g, sizeMultiplier, true);
-			}
+			
+				if (background.shouldDrawRegionColors)
+				{
+					Graphics2D g = landBackground.createGraphics();
+					g.setColor(settings.coastlineColor);
+					graph.drawRegionBorders(g, sizeMultiplier, true);
+				}
 						
-			textDrawer.drawText(graph, map, landBackground, mountainGroups, cities);
+				textDrawer.drawText(graph, map, landBackground, mountainGroups, cities);
+			}
 		}
 
 		if (settings.drawBorder)
 		{
 			Logger.println("Adding border.");
-			map = addBorderToMap(settings, map, background);
-			if (mapParts == null)
+			try (var stage = metrics.startStage("border"))
 			{
-				background.borderBackground = null;
+				map = addBorderToMap(settings, map, background);
+				if (mapParts == null)
+				{
+					background.borderBackground = null;
+				}
 			}
 		}
 
 		if (settings.frayedBorder)
 		{
 			Logger.println("Adding frayed edges.");
-			WorldGraph frayGraph = GraphCreator.createSimpleGraph(background.borderBounds.getWidth(), 
-					background.borderBounds.getHeight(), settings.frayedBorderSize, new Random(r.nextLong()), sizeMultiplier, settings.pointPrecision);
-			BufferedImage borderMask = new BufferedImage(frayGraph.getWidth(),
-					frayGraph.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
-			frayGraph.drawBorderWhite(borderMask.createGraphics());
-
-			int blurLevel = (int) (settings.frayedBorderBlurLevel * sizeMultiplier);
-			if (blurLevel > 0)
+			try (var stage = metrics.startStage("frayed edges"))
 			{
-				float[][] kernel = ImageHelper.createGaussianKernel(blurLevel);
-				BufferedImage borderBlur = ImageHelper.convolveGrayscale(borderMask, kernel, true);
+				WorldGraph frayGraph = GraphCreator.createSimpleGraph(background.borderBounds.getWidth(), 
+						background.borderBounds.getHeight(), settings.frayedBorderSize, new Random(r.nextLong()), sizeMultiplier, settings.pointPrecision);
+				BufferedImage borderMask = new BufferedImage(frayGraph.getWidth(),
+						frayGraph.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+				frayGraph.drawBorderWhite(borderMask.createGraphics());
+
+				int blurLevel = (int) (settings.frayedBorderBlurLevel * sizeMultiplier);
+				if (blurLevel > 0)
+				{
+					float[][] kernel = ImageHelper.createGaussianKernel(blurLevel);
+					BufferedImage borderBlur = ImageHelper.convolveGrayscale(borderMask, kernel, true);
 			
-				map = ImageHelper.maskWithColor(map, settings.frayedBorderColor, borderBlur, true);
+					map = ImageHelper.maskWithColor(map, settings.frayedBorderColor, borderBlur, true);
 
+				}
+				map = ImageHelper.setAlphaFromMask(map, borderMask, true);
 			}
-			map = ImageHelper.setAlphaFromMask(map, borderMask, true);
 		}
 		else
 		{
@@ -462,19 +528,24 @@ public class MapCreator
 		if (settings.grungeWidth > 0)
 		{
 			Logger.println("Adding grunge.");
-			// 104567 is an arbitrary number added so that the grung is not the same pattern as
-			// the background.
-			BufferedImage clouds = FractalBGGenerator.generate(
-					new Random(settings.backgroundRandomSeed + 104567), settings.fractalPower, 
-					(int)map.getWidth(), (int)map.getHeight(), 0.75f);
-			// Whiten the middle of clouds.
-			darkenMiddleOfImage(settings.resolution, clouds, settings.grungeWidth);
+			try (var stage = metrics.startStage("grunge"))
+			{
+				// 104567 is an arbitrary number added so that the grung is not the same pattern as
+				// the background.
+				BufferedImage clouds = FractalBGGenerator.generate(
+						new Random(settings.backgroundRandomSeed + 104567), settings.fractalPower, 
+						(int)map.getWidth(), (int)map.getHeight(), 0.75f);
+				// Whiten the middle of clouds.
+				darkenMiddleOfImage(settings.resolution, clouds, settings.grungeWidth);
 			
-			// Add the cloud mask to the map.
-			map = ImageHelper.maskWithColor(map, settings.frayedBorderColor, clouds, true);
+				// Add the cloud mask to the map.
+				map = ImageHelper.maskWithColor(map, settings.frayedBorderColor, clouds, true);
+			}
 		}
 		
 		double elapsedTime = System.currentTimeMillis() - startTime;
+		Logger.println("Time per stage:\n" + metrics.toSummary());
+		Logger.println("Image cache: " + ImageCache.getInstance().getStats());
 		Logger.println("Total time to generate map (in seconds): " + elapsedTime / 1000.0);
 
 		Logger.println("Done creating map.");
@@ -665,134 +736,21 @@ public class MapCreator
 		background.borderBackground.getGraphics().drawImage(map, borderWidthScaled, borderWidthScaled, null);
 		map = background.borderBackground;
 
-		var allBordersPath = AssetsPath.get("borders");
-		var borderPath = allBordersPath.resolve(settings.borderType);
-		if (!Files.exists(borderPath))
-		{
-			throw new RuntimeException("The selected border type '" + settings.borderType 
-					+ "' does not have a folder for images in " + allBordersPath + ".");
-		}
-		
+		var borders = BorderAssetCache.getInstance().getBorderSet(settings.borderType, borderWidthScaled);
+
 		// Corners
-		BufferedImage upperLeftCorner = loadImageWithStringInFileName(borderPath, "upper_left_corner.", false);
-		if (upperLeftCorner != null)
-		{
-			upperLeftCorner = ImageHelper.scaleByWidth(upperLeftCorner, borderWidthScaled);
-		}
-		BufferedImage upperRightCorner = loadImageWithStringInFileName(borderPath, "upper_right_corner.", false);
-		if (upperRightCorner != null)
-		{
-			upperRightCorner = ImageHelper.scaleByWidth(upperRightCorner, borderWidthScaled);
-		}
-		BufferedImage lowerLeftCorner = loadImageWithStringInFileName(borderPath, "lower_left_corner.", false);
-		if (lowerLeftCorner != null)
-		{
-			lowerLeftCorner = ImageHelper.scaleByWidth(lowerLeftCorner, borderWidthScaled);
-		}
-		BufferedImage lowerRightCorner = loadImageWithStringInFileName(borderPath, "lower_right_corner.", false);
-		if (lowerRightCorner != null)
-		{
-			lowerRightCorner = ImageHelper.scaleByWidth(lowerRightCorner, borderWidthScaled);
-		}
-		
-		if (upperLeftCorner == null)
-		{
-			if (upperRightCorner != null)
-			{
-				upperLeftCorner = createCornerFromCornerByFlipping(upperRightCorner, CornerType.upperRight, CornerType.upperLeft);
-			}
-			else if (lowerLeftCorner != null)
-			{
-				upperLeftCorner = createCornerFromCornerByFlipping(lowerLeftCorner, CornerType.lowerLeft, CornerType.upperLeft);
-			}
-			else if (lowerRightCorner != null)
-			{
-				upperLeftCorner = createCornerFromCornerByFlipping(lowerRightCorner, CornerType.lowerRight, CornerType.upperLeft);
-			}
-			else
-			{
-				throw new RuntimeException("Couldn't find any corner images in " + borderPath);
-			}
-		}
-		if (upperRightCorner == null)
-		{
-			upperRightCorner = createCornerFromCornerByFlipping(upperLeftCorner, CornerType.upperLeft, CornerType.upperRight);
-		}
-		if (lowerLeftCorner == null)
-		{
-			lowerLeftCorner = createCornerFromCornerByFlipping(upperLeftCorner, CornerType.upperLeft, CornerType.lowerLeft);
-		}
-		if (lowerRightCorner == null)
-		{
-			lowerRightCorner = createCornerFromCornerByFlipping(upperLeftCorner, CornerType.upperLeft, CornerType.lowerRight);
-		}
-		
-		g.drawImage(upperLeftCorner, 0, 0, null);
-		g.drawImage(upperRightCorner, (int)background.borderBounds.getWidth() - borderWidthScaled, 0, null);
-		g.drawImage(lowerLeftCorner, 0, (int)background.borderBounds.getHeight() - borderWidthScaled, null);
-		g.drawImage(lowerRightCorner, (int)background.borderBounds.getWidth() - borderWidthScaled,
+		g.drawImage(borders.upperLeftCorner(), 0, 0, null);
+		g.drawImage(borders.upperRightCorner(), (int)background.borderBounds.getWidth() - borderWidthScaled, 0, null);
+		g.drawImage(borders.lowerLeftCorner(), 0, (int)background.borderBounds.getHeight() - borderWidthScaled, null);
+		g.drawImage(borders.lowerRightCorner(), (int)background.borderBounds.getWidth() - borderWidthScaled,
 				(int)background.borderBounds.getHeight() - borderWidthScaled, null);
-		
-		// Edges
-		BufferedImage topEdge = loadImageWithStringInFileName(borderPath, "top_edge.", false);
-		if (topEdge != null)
-		{
-			topEdge = ImageHelper.scaleByHeight(topEdge, borderWidthScaled);
-		}
-		BufferedImage bottomEdge = loadImageWithStringInFileName(borderPath, "bottom_edge.", false);
-		if (bottomEdge != null)
-		{
-			bottomEdge = ImageHelper.scaleByHeight(bottomEdge, borderWidthScaled);
-		}
-		BufferedImage leftEdge = loadImageWithStringInFileName(borderPath, "left_edge.", false);
-		if (leftEdge != null)
-		{
-			leftEdge = ImageHelper.scaleByWidth(leftEdge, borderWidthScaled);
-		}
-		BufferedImage rightEdge = loadImageWithStringInFileName(borderPath, "right_edge.", false);
-		if (rightEdge != null)
-		{
-			rightEdge = ImageHelper.scaleByHeight(rightEdge, borderWidthScaled);
-		}
-		
-		if (topEdge == null)
-		{
-			if (rightEdge != null)
-			{
-				topEdge = createEdgeFromEdge(rightEdge, EdgeType.Right, EdgeType.Top);
-			}
-			else if (leftEdge != null)
-			{
-				topEdge = createEdgeFromEdge(leftEdge, EdgeType.Left, EdgeType.Top);
-			}
-			else if (bottomEdge != null)
-			{
-				topEdge = createEdgeFromEdge(bottomEdge, EdgeType.Bottom, EdgeType.Top);
-			}
-			else
-			{
-				throw new RuntimeException("Couldn't find any edge images in " + borderPath);
-			}
-		}
-		if (rightEdge == null)
-		{
-			rightEdge = createEdgeFromEdge(topEdge, EdgeType.Top, EdgeType.Right);
-		}
-		if (leftEdge == null)
-		{
-			leftEdge = createEdgeFromEdge(topEdge, EdgeType.Top, EdgeType.Left);
-		}
-		if (bottomEdge == null)
-		{
-			bottomEdge = createEdgeFromEdge(topEdge, EdgeType.Top, EdgeType.Bottom);
-		}
 
 		// Draw the edges
 		
 		// Top and bottom edges
 		for (int i : new Range(2))
 		{
-			BufferedImage edge = i == 0 ? topEdge : bottomEdge;
+			BufferedImage edge = i == 0 ? borders.topEdge() : borders.bottomEdge();
 			final int y = i == 0 ? 0 : map.getHeight() - borderWidthScaled;
 
 			int end = map.getWidth() - borderWidthScaled;
@@ -816,7 +774,7 @@ public class MapCreator
 		// Left and right edges
 		for (int i : new Range(2))
 		{
-			BufferedImage edge = i == 0 ? leftEdge : rightEdge;
+			BufferedImage edge = i == 0 ? borders.leftEdge() : borders.rightEdge();
 			final int x = i == 0 ? 0 : map.getWidth() - borderWidthScaled;
 
 			int end = map.getHeight() - borderWidthScaled;
@@ -842,162 +800,6 @@ public class MapCreator
 		return map;
 	}
 		
-	private BufferedImage createEdgeFromEdge(BufferedImage edgeIn, EdgeType edgeTypeIn, EdgeType outputType)
-	{
-		switch (edgeTypeIn)
-		{
-		case Bottom:
-			switch (outputType)
-			{
-			case Bottom:
-				return edgeIn;
-			case Left:
-				return ImageHelper.rotate90Degrees(edgeIn, true);
-			case Right:
-				return ImageHelper.rotate90Degrees(edgeIn, false);
-			case Top:
-				return ImageHelper.flipOnYAxis(edgeIn);
-			}
-		case Left:
-			switch (outputType)
-			{
-			case Bottom:
-				return ImageHelper.rotate90Degrees(edgeIn, false);
-			case Left:
-				return edgeIn;
-			case Right:
-				return ImageHelper.flipOnXAxis(edgeIn);
-			case Top:
-				return ImageHelper.rotate90Degrees(edgeIn, true);
-			}
-		case Right:
-			switch (outputType)
-			{
-			case Bottom:
-				return ImageHelper.rotate90Degrees(edgeIn, true);
-			case Left:
-				return ImageHelper.flipOnXAxis(edgeIn);
-			case Right:
-				return edgeIn;
-			case Top:
-				return ImageHelper.rotate90Degrees(edgeIn, false);
-			}
-		case Top:
-			switch (outputType)
-			{
-			case Bottom:
-				return ImageHelper.flipOnYAxis(edgeIn);
-			case Left:
-				return ImageHelper.rotate90Degrees(edgeIn, false);
-			case Right:
-				return ImageHelper.rotate90Degrees(edgeIn, true);
-			case Top:
-				return edgeIn;
-			}
-		}
-		
-		throw new IllegalStateException("Unable to create a border edge from the edges given");
-	}
-	
-	private enum EdgeType
-	{
-		Top,
-		Bottom,
-		Left,
-		Right
-	}
-	
-	private BufferedImage createCornerFromCornerByFlipping(BufferedImage cornerIn, CornerType inputCornerType, CornerType outputType)
-	{
-		switch (inputCornerType)
-		{
-		case lowerLeft:
-			switch(outputType)
-			{
-			case lowerLeft:
-				return cornerIn;
-			case lowerRight:
-				return ImageHelper.flipOnXAxis(cornerIn);
-			case upperLeft:
-				return ImageHelper.flipOnYAxis(cornerIn);
-			case upperRight:
-				return ImageHelper.flipOnXAxis(ImageHelper.flipOnYAxis(cornerIn));
-			}
-			break;
-		case lowerRight:
-			switch(outputType)
-			{
-			case lowerLeft:
-				return ImageHelper.flipOnXAxis(cornerIn);
-			case lowerRight:
-				return cornerIn;
-			case upperLeft:
-				return ImageHelper.flipOnXAxis(ImageHelper.flipOnYAxis(cornerIn));
-			case upperRight:
-				return ImageHelper.flipOnYAxis(cornerIn);
-			}
-		case upperLeft:
-			switch(outputType)
-			{
-			case lowerLeft:
-				return ImageHelper.flipOnYAxis(cornerIn);
-			case lowerRight:
-				return ImageHelper.flipOnXAxis(ImageHelper.flipOnYAxis(cornerIn));
-			case upperLeft:
-				return cornerIn;
-			case upperRight:
-				return ImageHelper.flipOnXAxis(cornerIn);
-			}
-		case upperRight:
-			switch(outputType)
-			{
-			case lowerLeft:
-				return ImageHelper.flipOnXAxis(ImageHelper.flipOnYAxis(cornerIn));
-			case lowerRight:
-				return ImageHelper.flipOnYAxis(cornerIn);
-			case upperLeft:
-				return ImageHelper.flipOnXAxis(cornerIn);
-			case upperRight:
-				return cornerIn;
-			}
-		}
-		
-		throw new IllegalStateException("Unable to flip corner image.");
-	}
-	
-	private enum CornerType
-	{
-		upperLeft,
-		upperRight,
-		lowerLeft,
-		lowerRight
-	}
-	
-	private BufferedImage loadImageWithStringInFileName(Path path, String inFileName, boolean throwExceptionIfMissing)
-	{
-		try {
-			var cornerArray = Files.list(path)
-					.filter(file -> file.getFileName().toString().contains(inFileName))
-					.toArray(Path[]::new);
-			if (cornerArray.length == 0)
-			{
-				if (throwExceptionIfMissing)
-					throw new RuntimeException("Unable to find a file containing \"" + inFileName + "\" in the directory " + path.toAbsolutePath());
-				else
-					return null;
-			}
-			if (cornerArray.length > 1)
-			{
-				throw new RuntimeException("More than one file contains \"" + inFileName + "\" in the directory " + path.toAbsolutePath());
-			}
-
-			return ImageHelper.read(cornerArray[0]);
-		} catch (IOException e) {
-			Logger.println(e.getMessage());
-			return null;
-		}
-	}
-		
 	/**
 	 * Makes the middle area of a gray scale image darker following a Gauisian blur drop off.
 	 */
@@ -1098,10 +900,7 @@ public class MapCreator
 	public static Set<String> getAvailableBorderTypes()
 	{
 		try {
-			return Files.list(AssetsPath.get("borders"))
-					.filter(Files::isDirectory)
-					.map(Path::getFileName)
-					.map(Path::toString)
+			return AssetManifest.listFolderNames(AssetsPath.get("borders"))
 					.collect(toCollection(TreeSet::new));
 		} catch (IOException e) {
 			Logger.println(e.getMessage());
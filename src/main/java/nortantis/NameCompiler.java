@@ -1,12 +1,8 @@
 package nortantis;
 
-import nortantis.util.AssetsPath;
 import nortantis.util.Counter;
 import nortantis.util.Tuple2;
 
-import java.io.IOException;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
 import java.util.*;
 
 import static java.util.stream.Collectors.toList;
@@ -29,29 +25,12 @@ public class NameCompiler
 	{
 		r.setSeed(seed);
 	}
-	private final Set<String> dict;
+	private final WordDictionary dict;
 
 	public NameCompiler(Random r, List<Tuple2<String, String>> nounAdjectiveTuples,
 			List<Tuple2<String, String>> nounVerbTuples)
 	{
-		// Load the word dictionary.
-		List<String> lines;
-		try
-		{
-			lines = Files.readAllLines(AssetsPath.get("internal","en_GB.dic"), Charset.defaultCharset());
-		} catch (IOException e)
-		{
-			throw new RuntimeException("Unable to read word dictionary file.", e);
-		}
-		dict = new TreeSet<>();
-		for (var line : lines)
-		{
-			var parts = line.split("[\\s0-9/]");
-			if (parts.length == 0) continue;
-			var word = parts[0];
-			word = word.trim();
-			dict.add(word);
-		}
+		dict = WordDictionary.getInstance();
 
 		this.nounVerbTuples = convertToPresentTense(nounVerbTuples);
 
@@ -66,6 +45,19 @@ public class NameCompiler
 		counter.add("verbs", this.nounVerbTuples.size());
 	}
 
+	/**
+	 * Creates a name compiler that shares the dictionary and word pairs of another, but has its own random number
+	 * generator. This avoids reading the dictionary and converting the verbs again.
+	 */
+	public NameCompiler(Random r, NameCompiler other)
+	{
+		this.dict = other.dict;
+		this.nounAdjectiveTuples = other.nounAdjectiveTuples;
+		this.nounVerbTuples = other.nounVerbTuples;
+		this.counter = other.counter;
+		this.r = r;
+	}
+
 	private List<Tuple2<String, String>> convertToPresentTense(List<Tuple2<String, String>> tuples)
 	{
 		return tuples.stream()
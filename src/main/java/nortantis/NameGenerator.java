@@ -1,6 +1,7 @@
 package nortantis;
 
 import nortantis.nlp.CharacterNGram;
+import nortantis.nlp.CompiledNGramModel;
 
 import java.util.List;
 import java.util.Random;
@@ -33,27 +34,42 @@ public class NameGenerator
 	 */
 	public NameGenerator(Random r, List<String> placeNames, double maxWordLengthComparedToAverage,
 			double probabilityOfKeepingNameLength1, double probabilityOfKeepingNameLength2, double probabilityOfKeepingNameLength3)
+	{
+		this(r, train(placeNames), findAverageWordLength(placeNames), maxWordLengthComparedToAverage, probabilityOfKeepingNameLength1,
+				probabilityOfKeepingNameLength2, probabilityOfKeepingNameLength3);
+	}
+
+	/**
+	 * Creates a name generator from a model already trained by train, so that the model can be shared.
+	 * 
+	 * @param averageWordLength The average length of the names the model was trained on.
+	 */
+	public NameGenerator(Random r, CompiledNGramModel model, double averageWordLength, double maxWordLengthComparedToAverage,
+			double probabilityOfKeepingNameLength1, double probabilityOfKeepingNameLength2, double probabilityOfKeepingNameLength3)
 	{
 		this.maxWordLengthComparedToAverage = maxWordLengthComparedToAverage;
 		this.probabilityOfKeepingNameLength1 = probabilityOfKeepingNameLength1;
 		this.probabilityOfKeepingNameLength2 = probabilityOfKeepingNameLength2;
 		this.probabilityOfKeepingNameLength3 = probabilityOfKeepingNameLength3;
 		rand = r;
+		this.averageWordLength = averageWordLength;
+		nGram = new CharacterNGram(r, model);
+	}
 
-		// Find the average word length.
-		averageWordLength = placeNames.stream()
+	public static CompiledNGramModel train(List<String> names)
+	{
+		var nGram = new CharacterNGram(null, 3);
+		names.stream()
+				.map(String::toLowerCase)
+				.forEach(nGram::add);
+		return nGram.compile();
+	}
+
+	public static double findAverageWordLength(List<String> names)
+	{
+		return names.stream()
 				.mapToInt(String::length)
 				.average().orElse(0.0);
-
-		nGram = placeNames.stream()
-				.map(String::toLowerCase)
-				.reduce(
-						new CharacterNGram(r, 3),
-						(acc, x) -> {
-							acc.add(x);
-							return acc;
-						},
-						(x, y) -> x);
 	}
 
 	public String generateName() throws NotEnoughNamesException
@@ -0,0 +1,188 @@
+package nortantis;
+
+import static java.lang.String.format;
+import static java.util.function.Predicate.not;
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import nortantis.nlp.CompiledNGramModel;
+import nortantis.util.AssetsPath;
+import nortantis.util.Logger;
+import nortantis.util.Tuple2;
+
+/**
+ * Caches the models used to generate names for each selection of books, so that the book files are read and the
+ * models trained once rather than each time a TextDrawer is created. The models are immutable, so they are shared by
+ * all TextDrawers, each of which samples from them with its own Random.
+ *
+ * Books are read in sorted order so that the same selection gives the same names no matter what kind of Set
+ * MapSettings.books is.
+ */
+public class NameModelCache
+{
+	// Few book selections are used in one session, and each set of models is a few MB.
+	private static final int maxCachedSelections = 4;
+
+	private static NameModelCache instance;
+
+	private final Map<List<String>, CompletableFuture<NameModels>> models;
+
+	/**
+	 * The trained models for one selection of books.
+	 *
+	 * @param nameCompiler A NameCompiler to create others from with NameCompiler(Random, NameCompiler). Its own
+	 *        random number generator is not used.
+	 */
+	public record NameModels(CompiledNGramModel placeNames, double averagePlaceNameLength, CompiledNGramModel personNames,
+			double averagePersonNameLength, NameCompiler nameCompiler)
+	{
+	}
+
+	private NameModelCache()
+	{
+		models = new LinkedHashMap<>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<List<String>, CompletableFuture<NameModels>> eldest)
+			{
+				return size() > maxCachedSelections;
+			}
+		};
+	}
+
+	public synchronized static NameModelCache getInstance()
+	{
+		if (instance == null)
+		{
+			instance = new NameModelCache();
+		}
+		return instance;
+	}
+
+	/**
+	 * Gets the models for the given books, training them if they are not cached. If another thread is already training
+	 * them, this waits for it rather than training them again.
+	 */
+	public NameModels getModels(Collection<String> books)
+	{
+		List<String> key = books.stream().sorted().collect(toList());
+		CompletableFuture<NameModels> future;
+		boolean isNew = false;
+		synchronized (models)
+		{
+			future = models.get(key);
+			if (future == null)
+			{
+				future = new CompletableFuture<>();
+				models.put(key, future);
+				isNew = true;
+			}
+		}
+
+		if (isNew)
+		{
+			try
+			{
+				future.complete(train(key));
+			}
+			catch (RuntimeException e)
+			{
+				synchronized (models)
+				{
+					models.remove(key);
+				}
+				future.completeExceptionally(e);
+			}
+		}
+		return future.join();
+	}
+
+	public void clear()
+	{
+		synchronized (models)
+		{
+			models.clear();
+		}
+	}
+
+	private static NameModels train(List<String> books)
+	{
+		long startTime = System.currentTimeMillis();
+		// NameCompiler needs the dictionary, so load it while the books are read.
+		WordDictionary.preloadInBackground();
+		Path base = AssetsPath.get("books");
+		List<String> placeNames = books.stream()
+				.map(x -> base.resolve(x + "_place_names.txt"))
+				.flatMap(NameModelCache::readNameList)
+				.collect(toList());
+		List<String> personNames = books.stream()
+				.map(x -> base.resolve(x + "_person_names.txt"))
+				.flatMap(NameModelCache::readNameList)
+				.collect(toList());
+		List<Tuple2<String, String>> nounAdjectivePairs = books.stream()
+				.map(x -> base.resolve(x + "_noun_adjective_pairs.txt"))
+				.flatMap(NameModelCache::readStringPairs)
+				.collect(toList());
+		List<Tuple2<String, String>> nounVerbPairs = books.stream()
+				.map(x -> base.resolve(x + "_noun_verb_pairs.txt"))
+				.flatMap(NameModelCache::readStringPairs)
+				.collect(toList());
+
+		NameModels result = new NameModels(NameGenerator.train(placeNames), NameGenerator.findAverageWordLength(placeNames),
+				NameGenerator.train(personNames), NameGenerator.findAverageWordLength(personNames),
+				new NameCompiler(new Random(), new ArrayList<>(nounAdjectivePairs), new ArrayList<>(nounVerbPairs)));
+		Logger.debug("Trained name models for " + books.size() + " books in " + (System.currentTimeMillis() - startTime) / 1000.0
+				+ " seconds.");
+		return result;
+	}
+
+	private static Stream<Tuple2<String, String>> readStringPairs(Path filename)
+	{
+		try
+		{
+			var counter = new AtomicInteger();
+			return Files.readAllLines(filename)
+					.stream()
+					.peek(x -> counter.getAndIncrement())
+					.filter(not(String::isBlank))
+					.map(x -> x.split("\t"))
+					.peek(x ->
+					{
+						if (x.length != 2)
+							Logger.warning(format("No string pair found in %s at line %d.", filename, counter.get()));
+					})
+					.filter(x -> x.length == 2)
+					.map(x -> new Tuple2<>(x[0], x[1]));
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException(format("Unable to read names from the file %s", filename), e);
+		}
+	}
+
+	private static Stream<String> readNameList(Path filename)
+	{
+		try
+		{
+			return Files.readAllLines(filename)
+					.stream()
+					.filter(not(String::isBlank));
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException(format("Unable to read names from the file %s", filename), e);
+		}
+	}
+}
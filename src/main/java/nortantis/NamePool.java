@@ -0,0 +1,133 @@
+package nortantis;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Generates unique names in the background, in batches, so that drawing text only has to take the next name.
+ *
+ * The pool owns its NameGenerator, which should have its own Random. Only one batch is generated at a time, and each
+ * batch continues where the previous one left off, so the names come out in the same order for a given seed no matter
+ * how the background work is scheduled. The first batch starts when the pool is created, and each later one starts
+ * once half of the batch before it has been taken.
+ */
+class NamePool
+{
+	// How many times in a row to try for a name that isn't already in the pool before giving up.
+	private static final int maxRetries = 20;
+
+	private final NameGenerator generator;
+	private final int batchSize;
+	private final Set<String> namesGenerated;
+	private Batch current;
+	private int position;
+	// The batch being generated, or null if the next batch hasn't been started yet.
+	private CompletableFuture<Batch> next;
+
+	/**
+	 * @param isExhausted Whether the generator ran out of new names at the end of this batch.
+	 */
+	private record Batch(List<String> names, boolean isExhausted)
+	{
+	}
+
+	/**
+	 * Creates the pool and starts generating the first batch of names.
+	 *
+	 * @param generator Used only by this pool from now on.
+	 * @param batchSize How many names to generate ahead of the names taken.
+	 */
+	NamePool(NameGenerator generator, int batchSize)
+	{
+		this.generator = generator;
+		this.batchSize = batchSize;
+		namesGenerated = new HashSet<>();
+		current = new Batch(List.of(), false);
+		next = CompletableFuture.supplyAsync(this::generateBatch);
+	}
+
+	/**
+	 * Takes the next name, waiting for the batch it is in if that batch isn't finished yet.
+	 *
+	 * @throws NotEnoughNamesException If the generator can't create any more names that aren't already in the pool.
+	 */
+	String next() throws NotEnoughNamesException
+	{
+		while (position >= current.names.size())
+		{
+			if (current.isExhausted)
+			{
+				throw new NotEnoughNamesException();
+			}
+
+			if (next == null)
+			{
+				next = CompletableFuture.supplyAsync(this::generateBatch);
+			}
+			try
+			{
+				current = next.join();
+			}
+			catch (CompletionException e)
+			{
+				if (e.getCause() instanceof RuntimeException)
+				{
+					throw (RuntimeException) e.getCause();
+				}
+				throw e;
+			}
+			position = 0;
+			next = null;
+		}
+		String name = current.names.get(position++);
+		// Start the next batch once half of this one is used, so that it is usually ready in time without generating a
+		// whole batch nobody asks for when only a few names are needed.
+		if (next == null && !current.isExhausted && position >= current.names.size() / 2)
+		{
+			next = CompletableFuture.supplyAsync(this::generateBatch);
+		}
+		return name;
+	}
+
+	private Batch generateBatch()
+	{
+		List<String> names = new ArrayList<>(batchSize);
+		try
+		{
+			while (names.size() < batchSize)
+			{
+				String name = generateUniqueName();
+				if (name == null)
+				{
+					return new Batch(names, true);
+				}
+				names.add(name);
+			}
+		}
+		catch (NotEnoughNamesException e)
+		{
+			return new Batch(names, true);
+		}
+		return new Batch(names, false);
+	}
+
+	/**
+	 * @return A name not already in the pool, or null if none was found.
+	 */
+	private String generateUniqueName()
+	{
+		for (int i = 0; i < maxRetries; i++)
+		{
+			String name = generator.generateName();
+			if (namesGenerated.add(name))
+			{
+				return name;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,191 @@
+package nortantis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A weighted set of templates for names, such as "Kingdom of" followed by a person's name, compiled once so that
+ * generating a name allocates nothing but the name itself.
+ *
+ * Templates are sequences of parts, and a name is made by walking from part to part, the same way MarkovChain walks
+ * from element to element. Each Part object is one node in that walk, so templates share a node only when they are
+ * given the same Part object. The successors of each node are stored in a table with one entry per unit of weight, so
+ * choosing one takes a single random number and is O(1). Each step of the walk, including the step that ends it,
+ * draws one random number, just as MarkovChain.randomWalk does, so a given seed gives the same names as a MarkovChain
+ * built from the same templates.
+ */
+class NameTemplateGrammar
+{
+	private static final int start = 0;
+	private static final int end = -1;
+
+	enum Symbol
+	{
+		PlaceName,
+		PersonName,
+		/**
+		 * The kind of structure a city is named for, such as "Keep" or "Village".
+		 */
+		StructureName
+	}
+
+	/**
+	 * Appends the text for a symbol in a template to a name.
+	 */
+	interface SymbolWriter
+	{
+		void append(Symbol symbol, StringBuilder name);
+	}
+
+	static final class Part
+	{
+		private final String literal;
+		private final Symbol symbol;
+
+		private Part(String literal, Symbol symbol)
+		{
+			this.literal = literal;
+			this.symbol = symbol;
+		}
+	}
+
+	static Part literal(String text)
+	{
+		return new Part(text, null);
+	}
+
+	static Part symbol(Symbol symbol)
+	{
+		return new Part(null, symbol);
+	}
+
+	private final String separator;
+	// For each node, the text it adds, or null if it is a symbol.
+	private final String[] literals;
+	private final Symbol[] symbols;
+	// For each node, the nodes that can follow it, each repeated once per unit of weight. The start node is 0.
+	private final int[][] successors;
+
+	private NameTemplateGrammar(String separator, List<Part> parts, List<Map<Integer, Integer>> successorCounts)
+	{
+		this.separator = separator;
+		literals = new String[parts.size()];
+		symbols = new Symbol[parts.size()];
+		successors = new int[parts.size()][];
+		for (int node = 0; node < parts.size(); node++)
+		{
+			Part part = parts.get(node);
+			if (part != null)
+			{
+				literals[node] = part.literal;
+				symbols[node] = part.symbol;
+			}
+
+			Map<Integer, Integer> counts = successorCounts.get(node);
+			int[] table = new int[counts.values().stream().mapToInt(Integer::intValue).sum()];
+			int i = 0;
+			for (Map.Entry<Integer, Integer> entry : counts.entrySet())
+			{
+				for (int j = 0; j < entry.getValue(); j++)
+				{
+					table[i++] = entry.getKey();
+				}
+			}
+			successors[node] = table;
+		}
+	}
+
+	/**
+	 * Randomly chooses a template, with probability proportional to its weight, and appends the name it makes to the
+	 * given StringBuilder.
+	 */
+	void generate(Random r, StringBuilder name, SymbolWriter symbolWriter)
+	{
+		int node = start;
+		boolean isFirst = true;
+		while (true)
+		{
+			int[] table = successors[node];
+			node = table[r.nextInt(table.length)];
+			if (node == end)
+			{
+				return;
+			}
+
+			if (!isFirst)
+			{
+				name.append(separator);
+			}
+			isFirst = false;
+
+			if (literals[node] != null)
+			{
+				name.append(literals[node]);
+			}
+			else
+			{
+				symbolWriter.append(symbols[node], name);
+			}
+		}
+	}
+
+	String generate(Random r, SymbolWriter symbolWriter)
+	{
+		StringBuilder name = new StringBuilder();
+		generate(r, name, symbolWriter);
+		return name.toString();
+	}
+
+	static class Builder
+	{
+		private final String separator;
+		private final List<Part> parts;
+		private final Map<Part, Integer> nodes;
+		// Kept in insertion order so that which template a random number chooses doesn't depend on hash codes.
+		private final List<Map<Integer, Integer>> successorCounts;
+
+		/**
+		 * @param separator Added between the parts of each name.
+		 */
+		Builder(String separator)
+		{
+			this.separator = separator;
+			parts = new ArrayList<>();
+			nodes = new HashMap<>();
+			successorCounts = new ArrayList<>();
+			parts.add(null);
+			successorCounts.add(new LinkedHashMap<>());
+		}
+
+		Builder add(int weight, Part... template)
+		{
+			if (weight <= 0)
+			{
+				throw new IllegalArgumentException("Template weights must be positive.");
+			}
+			int previous = start;
+			for (Part part : template)
+			{
+				int node = nodes.computeIfAbsent(part, p ->
+				{
+					parts.add(p);
+					successorCounts.add(new LinkedHashMap<>());
+					return parts.size() - 1;
+				});
+				successorCounts.get(previous).merge(node, weight, Integer::sum);
+				previous = node;
+			}
+			successorCounts.get(previous).merge(end, weight, Integer::sum);
+			return this;
+		}
+
+		NameTemplateGrammar build()
+		{
+			return new NameTemplateGrammar(separator, parts, successorCounts);
+		}
+	}
+}
@@ -0,0 +1,227 @@
+package nortantis;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records how long each stage of drawing a map took, and how much CPU time and memory allocation it used.
+ *
+ * CPU time and allocated bytes are measured both on the thread that runs the stage and across all threads. Stages
+ * such as drawing icons do most of their work on the common fork-join pool, so comparing the two shows how much of a
+ * stage ran in parallel. The all-threads numbers include anything else the process does while the stage runs, such
+ * as generating names in the background or garbage collection, and allocation by threads that end before the stage
+ * does is not counted.
+ */
+public class RenderMetrics
+{
+	private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+	private final List<StageMetrics> stages = Collections.synchronizedList(new ArrayList<>());
+
+	/**
+	 * Measurements for one stage.
+	 * @param cpuTimeSeconds CPU time of the thread that ran the stage, or -1 if the JVM doesn't support measuring
+	 *        thread CPU time.
+	 * @param allocatedBytes Bytes allocated by the thread that ran the stage, or -1 if the JVM doesn't support
+	 *        measuring thread allocation.
+	 * @param allThreadsCpuTimeSeconds CPU time of the whole process, or -1 if the JVM doesn't support measuring it.
+	 * @param allThreadsAllocatedBytes Bytes allocated by all threads, or -1 if the JVM doesn't support measuring thread
+	 *        allocation.
+	 */
+	public record StageMetrics(String name, double wallTimeSeconds, double cpuTimeSeconds, long allocatedBytes,
+			double allThreadsCpuTimeSeconds, long allThreadsAllocatedBytes)
+	{
+	}
+
+	/**
+	 * A stage that is being measured. Closing it records its metrics.
+	 */
+	public class Stage implements AutoCloseable
+	{
+		private final String name;
+		private final long startWallNanos;
+		private final long startCpuNanos;
+		private final long startAllocatedBytes;
+		private final long startProcessCpuNanos;
+		private final Map<Long, Long> startAllocatedBytesByThread;
+		private boolean isClosed;
+
+		private Stage(String name)
+		{
+			this.name = name;
+			startProcessCpuNanos = getProcessCpuTime();
+			startAllocatedBytesByThread = getAllocatedBytesByThread();
+			startCpuNanos = getCurrentThreadCpuTime();
+			startAllocatedBytes = getCurrentThreadAllocatedBytes();
+			startWallNanos = System.nanoTime();
+		}
+
+		@Override
+		public void close()
+		{
+			if (isClosed)
+			{
+				return;
+			}
+			isClosed = true;
+
+			long wallNanos = System.nanoTime() - startWallNanos;
+			long endCpuNanos = getCurrentThreadCpuTime();
+			long endAllocatedBytes = getCurrentThreadAllocatedBytes();
+			long endProcessCpuNanos = getProcessCpuTime();
+			Map<Long, Long> endAllocatedBytesByThread = getAllocatedBytesByThread();
+			double cpuSeconds = startCpuNanos < 0 || endCpuNanos < 0 ? -1 : (endCpuNanos - startCpuNanos) / 1e9;
+			long allocated = startAllocatedBytes < 0 || endAllocatedBytes < 0 ? -1 : endAllocatedBytes - startAllocatedBytes;
+			double allThreadsCpuSeconds = startProcessCpuNanos < 0 || endProcessCpuNanos < 0 ? -1
+					: (endProcessCpuNanos - startProcessCpuNanos) / 1e9;
+			long allThreadsAllocated = -1;
+			if (startAllocatedBytesByThread != null && endAllocatedBytesByThread != null)
+			{
+				allThreadsAllocated = 0;
+				for (var entry : endAllocatedBytesByThread.entrySet())
+				{
+					// Threads started during the stage allocated everything they have so far during it.
+					allThreadsAllocated += entry.getValue() - startAllocatedBytesByThread.getOrDefault(entry.getKey(), 0L);
+				}
+			}
+			stages.add(new StageMetrics(name, wallNanos / 1e9, cpuSeconds, allocated, allThreadsCpuSeconds, allThreadsAllocated));
+		}
+	}
+
+	/**
+	 * Starts measuring a stage. Use in a try-with-resources block, or call close on the result when the stage is done.
+	 */
+	public Stage startStage(String name)
+	{
+		return new Stage(name);
+	}
+
+	public List<StageMetrics> getStages()
+	{
+		synchronized (stages)
+		{
+			return new ArrayList<>(stages);
+		}
+	}
+
+	public double getTotalWallTimeSeconds()
+	{
+		return getStages().stream().mapToDouble(StageMetrics::wallTimeSeconds).sum();
+	}
+
+	/**
+	 * One line per stage, for the log.
+	 */
+	public String toSummary()
+	{
+		var builder = new StringBuilder();
+		for (var stage : getStages())
+		{
+			builder.append(String.format("%-16s wall %7.3fs", stage.name(), stage.wallTimeSeconds()));
+			if (stage.cpuTimeSeconds() >= 0)
+			{
+				builder.append(String.format("  cpu %7.3fs", stage.cpuTimeSeconds()));
+			}
+			if (stage.allThreadsCpuTimeSeconds() >= 0)
+			{
+				builder.append(String.format(" (all threads %7.3fs)", stage.allThreadsCpuTimeSeconds()));
+			}
+			if (stage.allocatedBytes() >= 0)
+			{
+				builder.append(String.format("  allocated %8.1f MB", stage.allocatedBytes() / (1024.0 * 1024.0)));
+			}
+			if (stage.allThreadsAllocatedBytes() >= 0)
+			{
+				builder.append(String.format(" (all threads %8.1f MB)", stage.allThreadsAllocatedBytes() / (1024.0 * 1024.0)));
+			}
+			builder.append("\n");
+		}
+		return builder.toString();
+	}
+
+	public String toJson()
+	{
+		var root = new LinkedHashMap<String, Object>();
+		root.put("totalWallTimeSeconds", getTotalWallTimeSeconds());
+		root.put("stages", getStages());
+		try
+		{
+			return new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(root);
+		}
+		catch (JsonProcessingException e)
+		{
+			throw new RuntimeException("Unable to convert render metrics to JSON", e);
+		}
+	}
+
+	public void writeJson(Path path) throws IOException
+	{
+		Files.writeString(path, toJson());
+	}
+
+	private static long getCurrentThreadCpuTime()
+	{
+		if (!threadBean.isCurrentThreadCpuTimeSupported())
+		{
+			return -1;
+		}
+		return threadBean.getCurrentThreadCpuTime();
+	}
+
+	private static long getProcessCpuTime()
+	{
+		if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean osBean)
+		{
+			return osBean.getProcessCpuTime();
+		}
+		return -1;
+	}
+
+	/**
+	 * @return The bytes allocated so far by each live thread, by thread id, or null if the JVM doesn't support
+	 *         measuring thread allocation.
+	 */
+	private static Map<Long, Long> getAllocatedBytesByThread()
+	{
+		if (!(threadBean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported()
+				&& sunBean.isThreadAllocatedMemoryEnabled()))
+		{
+			return null;
+		}
+		long[] threadIds = sunBean.getAllThreadIds();
+		long[] allocatedBytes = sunBean.getThreadAllocatedBytes(threadIds);
+		var result = new HashMap<Long, Long>(threadIds.length * 2);
+		for (int i = 0; i < threadIds.length; i++)
+		{
+			// Threads that ended after getAllThreadIds are reported as -1.
+			if (allocatedBytes[i] >= 0)
+			{
+				result.put(threadIds[i], allocatedBytes[i]);
+			}
+		}
+		return result;
+	}
+
+	private static long getCurrentThreadAllocatedBytes()
+	{
+		if (threadBean instanceof com.sun.management.ThreadMXBean sunBean && sunBean.isThreadAllocatedMemorySupported()
+				&& sunBean.isThreadAllocatedMemoryEnabled())
+		{
+			return sunBean.getCurrentThreadAllocatedBytes();
+		}
+		return -1;
+	}
+}
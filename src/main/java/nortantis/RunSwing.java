@@ -1,17 +1,11 @@
 package nortantis;
 
-import com.fasterxml.jackson.annotation.JsonSetter;
-import com.fasterxml.jackson.annotation.Nulls;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.module.SimpleModule;
 import nortantis.MapSettings.LineStyle;
 import nortantis.MapSettings.OceanEffect;
 import nortantis.editor.EditorFrame;
 import nortantis.editor.MapEdits;
-import nortantis.json.ColorDeserializer;
-import nortantis.json.ColorSerializer;
-import nortantis.json.FontDeserializer;
-import nortantis.json.FontSerializer;
+import nortantis.json.SettingsMapper;
 import nortantis.util.*;
 import org.apache.commons.io.FilenameUtils;
 
@@ -34,8 +28,6 @@ import java.util.List;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
 
-import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.ANY;
-import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.NONE;
 import static java.awt.Font.TRUETYPE_FONT;
 import static java.awt.Font.createFont;
 import static java.lang.String.format;
@@ -148,26 +140,7 @@ public class RunSwing
 	private JRadioButton concentricWavesButton;
 	private JComboBox<String> cityIconsSetComboBox;
 
-	private final ObjectMapper mapper;
-
-	{
-		this.mapper = new ObjectMapper();
-		mapper.setDefaultSetterInfo(JsonSetter.Value.forValueNulls(Nulls.SKIP));
-		mapper.setVisibility(mapper.getSerializationConfig().getDefaultVisibilityChecker()
-				.withFieldVisibility(ANY)
-				.withGetterVisibility(NONE)
-				.withIsGetterVisibility(NONE)
-				.withSetterVisibility(NONE)
-				.withCreatorVisibility(NONE));
-
-		var module = new SimpleModule()
-				.addDeserializer(Font.class, new FontDeserializer(Font.class))
-				.addDeserializer(Color.class, new ColorDeserializer(Color.class))
-				.addSerializer(Font.class, new FontSerializer(Font.class))
-				.addSerializer(Color.class, new ColorSerializer(Color.class));
-
-		mapper.registerModule(module);
-	}
+	private final ObjectMapper mapper = SettingsMapper.create();
 
 
 	public static boolean isRunning()
@@ -196,6 +169,9 @@ public class RunSwing
 			e.printStackTrace();
 		}
 
+		// Decode the icons most maps use while the window opens. New maps use the same city icon set as MapSettings does by default.
+		IconPreloader.preloadInBackground(IconDrawer.getIconSets(IconType.cities).stream().findFirst().orElse(null));
+
 		EventQueue.invokeLater(() -> {
 			try
 			{
@@ -2026,9 +2002,7 @@ public class RunSwing
 	public static List<String> getAllBooks()
 	{
 		try {
-			return Files.list(AssetsPath.get("books"))
-					.map(Path::getFileName)
-					.map(Path::toString)
+			return AssetManifest.listFileNames(AssetsPath.get("books"))
 					.filter(name -> name.endsWith("_place_names.txt"))
 					.map(name -> name.replace("_place_names.txt", ""))
 					.sorted()
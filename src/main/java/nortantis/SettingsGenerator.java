@@ -3,6 +3,7 @@ package nortantis;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import nortantis.MapSettings.LineStyle;
 import nortantis.MapSettings.OceanEffect;
+import nortantis.util.AssetManifest;
 import nortantis.util.AssetsPath;
 import nortantis.util.Counter;
 import nortantis.util.Range;
@@ -156,7 +157,7 @@ public class SettingsGenerator
 			List<Path> textureFiles;
 			try
 			{
-				textureFiles = Files.list(exampleTexturesPath).filter(path -> !Files.isDirectory(path)).collect(Collectors.toList());
+				textureFiles = AssetManifest.listFileNames(exampleTexturesPath).map(exampleTexturesPath::resolve).collect(Collectors.toList());
 			}
 			catch(IOException ex)
 			{
@@ -4,7 +4,6 @@ import hoten.geom.Point;
 import hoten.voronoi.Center;
 import hoten.voronoi.Corner;
 import hoten.voronoi.Edge;
-import nortantis.nlp.MarkovChain;
 import nortantis.util.*;
 import org.apache.commons.math3.exception.NoDataException;
 import org.apache.commons.math3.stat.regression.SimpleRegression;
@@ -12,21 +11,18 @@ import org.apache.commons.math3.stat.regression.SimpleRegression;
 import java.awt.*;
 import java.awt.geom.Area;
 import java.awt.image.BufferedImage;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.List;
 import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import static java.lang.String.format;
+import static nortantis.NameTemplateGrammar.literal;
+import static nortantis.NameTemplateGrammar.symbol;
 import static java.util.Arrays.asList;
 import static java.util.Collections.*;
 import static java.util.Comparator.comparingDouble;
-import static java.util.function.Predicate.not;
 import static java.util.stream.Collectors.*;
 
 public class TextDrawer
@@ -38,10 +34,15 @@ public class TextDrawer
 	private BufferedImage landAndOceanBackground;
 	private CopyOnWriteArrayList<MapText> mapTexts;
 	private List<Area> cityAreas;
+	// Holds the bounds of cities and of the text in mapTexts while text is generated.
+	private LabelCollisionIndex collisionIndex;
+	// The number of texts at the start of mapTexts that have been added to collisionIndex.
+	private int textsInCollisionIndex;
 	Random r;
 	long originalSeed;
-	private final NameGenerator placeNameGenerator;
-	private final NameGenerator personNameGenerator;
+	// Names are generated in the background while the graph and icons are created.
+	private final NamePool placeNames;
+	private final NamePool personNames;
 	private final NameCompiler nameCompiler;
 	Area graphBounds;
 	private final Font titleFontScaled;
@@ -51,6 +52,43 @@ public class TextDrawer
 	private final Font riverFontScaled;
 	Set<String> namesGenerated;
 
+	private static final NameTemplateGrammar decoratedTitleNames;
+	private static final NameTemplateGrammar regionNamesFromPersonNames;
+	private static final NameTemplateGrammar regionNamesFromPlaceNames;
+	private static final NameTemplateGrammar cityNamesFromPersonNames;
+	private static final NameTemplateGrammar cityNamesFromPlaceNames;
+	static
+	{
+		var placeName = NameTemplateGrammar.Symbol.PlaceName;
+		var personName = NameTemplateGrammar.Symbol.PersonName;
+		var structureName = NameTemplateGrammar.Symbol.StructureName;
+
+		// Both title templates start from the same part, so the template is chosen after "The Land of".
+		var theLandOf = literal("The Land of");
+		decoratedTitleNames = new NameTemplateGrammar.Builder(" ")
+				.add(3, theLandOf, symbol(personName))
+				.add(7, theLandOf, symbol(placeName))
+				.build();
+		regionNamesFromPersonNames = new NameTemplateGrammar.Builder(" ")
+				.add(5, literal("Kingdom of"), symbol(personName))
+				.add(1, literal("Empire of"), symbol(placeName))
+				.build();
+		regionNamesFromPlaceNames = new NameTemplateGrammar.Builder(" ")
+				.add(10, literal("Kingdom of"), symbol(placeName))
+				.add(2, literal("Empire of"), symbol(placeName))
+				.add(85, symbol(placeName))
+				.build();
+		cityNamesFromPersonNames = new NameTemplateGrammar.Builder("")
+				.add(3, symbol(structureName), literal(" of "), symbol(personName))
+				.add(2, symbol(personName), literal("'s "), symbol(structureName))
+				.build();
+		cityNamesFromPlaceNames = new NameTemplateGrammar.Builder(" ")
+				.add(10, symbol(structureName), literal("of"), symbol(placeName))
+				.add(11, symbol(placeName), symbol(structureName))
+				.add(15, symbol(placeName))
+				.build();
+	}
+
 	/**
 	 *
 	 * @param settings The map settings to use. Some of these settings are for text drawing.
@@ -67,32 +105,23 @@ public class TextDrawer
 		this.originalSeed = settings.textRandomSeed;
 		this.namesGenerated = new HashSet<>();
 
-		var base = AssetsPath.get("books");
-		var placeNames = settings.books.stream()
-				.map(x -> base.resolve(x + "_place_names.txt"))
-				.flatMap(this::readNameList)
-				.collect(toList());
-		var personNames = settings.books.stream()
-				.map(x -> base.resolve(x + "_person_names.txt"))
-				.flatMap(this::readNameList)
-				.collect(toList());
-		var nounAdjectivePairs = settings.books.stream()
-				.map(x -> base.resolve(x + "_noun_adjective_pairs.txt"))
-				.flatMap(this::readStringPairs)
-				.collect(toList());
-		var nounVerbPairs = settings.books.stream()
-				.map(x -> base.resolve(x + "_noun_verb_pairs.txt"))
-				.flatMap(this::readStringPairs)
-				.collect(toList());
+		// The models are trained once per selection of books and shared between TextDrawers.
+		var models = NameModelCache.getInstance().getModels(settings.books);
 
 		var maxWordLengthComparedToAverage = 2.0;
 		var probabilityOfKeepingNameLength1 = 0.0;
 		var probabilityOfKeepingNameLength2 = 0.0;
 		var probabilityOfKeepingNameLength3 = 0.3;
-		placeNameGenerator = new NameGenerator(r, placeNames, maxWordLengthComparedToAverage, probabilityOfKeepingNameLength1, probabilityOfKeepingNameLength2, probabilityOfKeepingNameLength3);
-		personNameGenerator = new NameGenerator(r, personNames, maxWordLengthComparedToAverage, probabilityOfKeepingNameLength1, probabilityOfKeepingNameLength2, probabilityOfKeepingNameLength3);
+		// Each pool has its own random number generator so that the names it generates in the background don't depend on
+		// how r is used while text is drawn. They are seeded from the text seed rather than from r so that creating them
+		// doesn't change the numbers r gives for label placement.
+		var placeNameGenerator = new NameGenerator(new Random(settings.textRandomSeed * 31 + 1), models.placeNames(), models.averagePlaceNameLength(), maxWordLengthComparedToAverage, probabilityOfKeepingNameLength1, probabilityOfKeepingNameLength2, probabilityOfKeepingNameLength3);
+		var personNameGenerator = new NameGenerator(new Random(settings.textRandomSeed * 31 + 2), models.personNames(), models.averagePersonNameLength(), maxWordLengthComparedToAverage, probabilityOfKeepingNameLength1, probabilityOfKeepingNameLength2, probabilityOfKeepingNameLength3);
+		var namesPerBatch = 128;
+		placeNames = new NamePool(placeNameGenerator, namesPerBatch);
+		personNames = new NamePool(personNameGenerator, namesPerBatch);
 
-		nameCompiler = new NameCompiler(r, nounAdjectivePairs, nounVerbPairs);
+		nameCompiler = new NameCompiler(r, models.nameCompiler());
 
 		titleFontScaled = settings.titleFont.deriveFont(settings.titleFont.getStyle(),
 				(int)(settings.titleFont.getSize() * sizeMultiplier));
@@ -107,37 +136,6 @@ public class TextDrawer
 
 	}
 
-	private Stream<Tuple2<String, String>> readStringPairs(Path filename)
-	{
-		try {
-			var counter = new AtomicInteger();
-			return Files.readAllLines(filename)
-					.stream()
-					.peek(x -> counter.getAndIncrement())
-					.filter(not(String::isBlank))
-					.map(x -> x.split("\t"))
-					.peek(x -> {
-						if (x.length != 2)
-							System.out.printf("Warning: No string pair found in %s at line %d.%n", filename, counter.get());
-					})
-					.filter(x -> x.length == 2)
-					.map(x -> new Tuple2<>(x[0], x[1]));
-		} catch (IOException e) {
-			throw new RuntimeException(format("Unable to read names from the file %s", filename), e);
-		}
-	}
-
-	private Stream<String> readNameList(Path filename)
-	{
-		try {
-			return Files.readAllLines(filename)
-					.stream()
-					.filter(not(String::isBlank));
-		} catch (IOException e) {
-			throw new RuntimeException("Unable to read names from the file " + filename, e);
-		}
-	}
-
 	public void drawText(WorldGraph graph, BufferedImage map, BufferedImage landAndOceanBackground,
 			List<Set<Center>> mountainRanges, List<IconDrawTask> cityDrawTasks)
 	{
@@ -166,6 +164,10 @@ public class TextDrawer
 		// text on top of other text, the latter will not be displayed.
 
 		graphBounds = new Area(new java.awt.Rectangle(0, 0, graph.getWidth(), graph.getHeight()));
+		collisionIndex = new LabelCollisionIndex(graph.getWidth(), graph.getHeight(), 
+				citiesAndOtherMountainsFontScaled.getSize() * 4.0);
+		textsInCollisionIndex = 0;
+		cityAreas.forEach(collisionIndex::add);
 
 		var g = map.createGraphics();
 		g.setColor(settings.textColor);
@@ -174,7 +176,7 @@ public class TextDrawer
 
 		g.setFont(citiesAndOtherMountainsFontScaled);
 		// Get the height of the city/mountain font.
-		var metrics = g.getFontMetrics(g.getFont());
+		var metrics = GlyphRunCache.getInstance().getMetrics(g.getFont());
 		var cityMountainFontHeight = getFontHeight(metrics);
 		for (var city : cityDrawTasks)
 		{
@@ -301,6 +303,8 @@ public class TextDrawer
 	 */
 	public synchronized void drawUserModifiedText(BufferedImage map, WorldGraph graph)
 	{
+		createTextHazesInParallel(settings.edits.text);
+
 		var g = map.createGraphics();
 
 		g.setColor(settings.textColor);
@@ -400,11 +404,7 @@ public class TextDrawer
 
 				switch (titleType) {
 					case Decorated:
-						var chain = new MarkovChain<Supplier<String>>();
-						Supplier<String> land = () -> "The Land of";
-						chain.addAll(Stream.of(land, personNameGenerator::generateName), 3);
-						chain.addAll(Stream.of(land, placeNameGenerator::generateName), 7);
-						return chain.randomWalk(r).map(Supplier::get).collect(joining(" "));
+						return decoratedTitleNames.generate(r, this::appendNameSymbol);
 					case NameOnly:
 						return generatePlaceName("%s", requireUnique);
 					default:
@@ -413,16 +413,9 @@ public class TextDrawer
 			}
 			case Region -> {
 				if (r.nextDouble() < 0.2) {
-					var chain = new MarkovChain<Supplier<String>>();
-					chain.addAll(Stream.of(() -> "Kingdom of", personNameGenerator::generateName), 5);
-					chain.addAll(Stream.of(() -> "Empire of", placeNameGenerator::generateName), 1);
-					return chain.randomWalk(r).map(Supplier::get).collect(joining(" "));
+					return regionNamesFromPersonNames.generate(r, this::appendNameSymbol);
 				} else {
-					var chain = new MarkovChain<Supplier<String>>();
-					chain.addAll(Stream.of(() -> "Kingdom of", placeNameGenerator::generateName), 10);
-					chain.addAll(Stream.of(() -> "Empire of", placeNameGenerator::generateName), 2);
-					chain.addAll(Stream.of(placeNameGenerator::generateName), 85);
-					return chain.randomWalk(r).map(Supplier::get).collect(joining(" "));
+					return regionNamesFromPlaceNames.generate(r, this::appendNameSymbol);
 				}
 			}
 			case Mountain_range -> {
@@ -470,16 +463,9 @@ public class TextDrawer
 				}
 
 				if (r.nextDouble() < 0.5) {
-					var chain = new MarkovChain<Supplier<String>>();
-					chain.addAll(Stream.of(() -> structureName, () -> " of ", personNameGenerator::generateName), 3);
-					chain.addAll(Stream.of(personNameGenerator::generateName, () -> "'s ", () -> structureName), 2);
-					return chain.randomWalk(r).map(Supplier::get).collect(joining());
+					return cityNamesFromPersonNames.generate(r, (symbol, name) -> appendNameSymbol(symbol, name, structureName));
 				} else {
-					var chain = new MarkovChain<Supplier<String>>();
-					chain.addAll(Stream.of(() -> structureName, () -> "of", placeNameGenerator::generateName), 10);
-					chain.addAll(Stream.of(placeNameGenerator::generateName, () -> structureName), 11);
-					chain.addAll(Stream.of(placeNameGenerator::generateName), 15);
-					return chain.randomWalk(r).map(Supplier::get).collect(joining(" "));
+					return cityNamesFromPlaceNames.generate(r, (symbol, name) -> appendNameSymbol(symbol, name, structureName));
 				}
 			}
 			case River -> {
@@ -501,6 +487,21 @@ public class TextDrawer
 		}
 	}
 
+	private void appendNameSymbol(NameTemplateGrammar.Symbol symbol, StringBuilder name)
+	{
+		appendNameSymbol(symbol, name, null);
+	}
+
+	private void appendNameSymbol(NameTemplateGrammar.Symbol symbol, StringBuilder name, String structureName)
+	{
+		switch (symbol)
+		{
+			case PlaceName -> name.append(placeNames.next());
+			case PersonName -> name.append(personNames.next());
+			case StructureName -> name.append(structureName);
+		}
+	}
+
 	private String getOtherMountainNameFormat(OtherMountainsType mountainType)
 	{
 		return switch (mountainType) {
@@ -561,12 +562,12 @@ public class TextDrawer
 
 	public String generatePlaceName(String format, boolean requireUnique)
 	{
-		return innerCreateUniqueName(format, requireUnique, placeNameGenerator::generateName);
+		return innerCreateUniqueName(format, requireUnique, placeNames::next);
 	}
 
 	public String generatePersonName(String format, boolean requireUnique)
 	{
-		return innerCreateUniqueName(format, requireUnique, personNameGenerator::generateName);
+		return innerCreateUniqueName(format, requireUnique, personNames::next);
 	}
 
 
@@ -577,19 +578,18 @@ public class TextDrawer
 
 	private String innerCreateUniqueName(String format, boolean requireUnique, Supplier<String> nameCreator)
 	{
-        String name;
 		var maxRetries = 20;
-        do {
-            name = format(format, nameCreator.get());
-            maxRetries--;
-        } while ((maxRetries > 0 && !namesGenerated.contains(name)) || !requireUnique);
-
-        if (name == null)
-            throw new RuntimeException("Unable to create enough unique names. You can select more books, or shrink the world size, or try a different seed.");
-
-        namesGenerated.add(name);
+		for (int i = 0; i < maxRetries; i++)
+		{
+			var name = format(format, nameCreator.get());
+			if (!requireUnique || !namesGenerated.contains(name))
+			{
+				namesGenerated.add(name);
+				return name;
+			}
+		}
 
-        return name;
+		throw new RuntimeException("Unable to create enough unique names. You can select more books, or shrink the world size, or try a different seed.");
 	}
 
 	private void addTitle(BufferedImage map, WorldGraph graph, Graphics2D g)
@@ -834,32 +834,88 @@ public class TextDrawer
 	 */
 	private void drawBackgroundBlendingForText(BufferedImage map, Graphics2D g, Point textStart, double angle, FontMetrics metrics, String text)
 	{
-		var textWidth = metrics.stringWidth(text);
-		var textHeight = getFontHeight(metrics);
-
-		// This magic number below is a result of trial and error to get the blur levels to look right.
-		var kernelSize = (int)((13.0 / 54.0) * textHeight);
-		if (kernelSize == 0)
+		var haze = getTextHaze(text, g.getFont(), metrics);
+		if (haze == null)
 		{
 			return;
 		}
-		var padding = kernelSize/2;
+		var padding = findHazePadding(metrics);
+
+		ImageHelper.combineImagesWithMaskInRegion(map, landAndOceanBackground, haze,
+				((int)textStart.x) - padding, (int)(textStart.y) - metrics.getAscent() - padding, angle);
+	}
 
-		var textBG = new BufferedImage(textWidth + padding*2, textHeight + padding*2, BufferedImage.TYPE_BYTE_GRAY);
+	private static int findHazeKernelSize(FontMetrics metrics)
+	{
+		// This magic number below is a result of trial and error to get the blur levels to look right.
+		return (int)((13.0 / 54.0) * getFontHeight(metrics));
+	}
 
-		var bG = textBG.createGraphics();
-		bG.setFont(g.getFont());
-		bG.setColor(Color.white);
-		bG.drawString(text, padding, padding + metrics.getAscent());
+	private static int findHazePadding(FontMetrics metrics)
+	{
+		return findHazeKernelSize(metrics)/2;
+	}
+
+	/**
+	 * Creates a hazy mask around the given text, for drawing the land and ocean background behind text to make it
+	 * easier to read. Masks are cached by the text and font because the same text is drawn again each time the map
+	 * is redrawn in the editor.
+	 * 
+	 * @return The mask, or null if the font is too small to need one.
+	 */
+	private static BufferedImage getTextHaze(String text, Font font, FontMetrics metrics)
+	{
+		var kernelSize = findHazeKernelSize(metrics);
+		if (kernelSize == 0)
+		{
+			return null;
+		}
 
-		// Use convolution to make a hazy background for the text.
-		var haze = ImageHelper.convolveGrayscale(textBG, ImageHelper.createGaussianKernel(kernelSize), true);
-		// Threshold it and convolve it again to make the haze bigger.
-		ImageHelper.threshold(haze, 1);
-		haze = ImageHelper.convolveGrayscale(haze, ImageHelper.createGaussianKernel(kernelSize), true);
+		var key = "text haze\n" + font.getFontName() + "\n" + font.getStyle() + "\n" + font.getSize2D() + "\n" + text;
+		return ImageCache.getInstance().getOrCreateImage(key, () ->
+		{
+			var padding = findHazePadding(metrics);
+			var textBG = new BufferedImage(metrics.stringWidth(text) + padding*2, getFontHeight(metrics) + padding*2,
+					BufferedImage.TYPE_BYTE_GRAY);
+
+			var bG = textBG.createGraphics();
+			bG.setFont(font);
+			bG.setColor(Color.white);
+			bG.drawString(text, padding, padding + metrics.getAscent());
+			bG.dispose();
+
+			// Use convolution to make a hazy background for the text. The Gaussian kernel is separable, which is
+			// much faster than convolving with FFTs for kernels this small.
+			var kernel = ImageHelper.createGaussianKernel1D(kernelSize);
+			var haze = ImageHelper.convolveGrayscaleSeparable(textBG, kernel, true);
+			// Threshold it and convolve it again to make the haze bigger.
+			ImageHelper.threshold(haze, 1);
+			return ImageHelper.convolveGrayscaleSeparable(haze, kernel, true);
+		});
+	}
 
-		ImageHelper.combineImagesWithMaskInRegion(map, landAndOceanBackground, haze,
-				((int)textStart.x) - padding, (int)(textStart.y) - metrics.getAscent() - padding, angle);
+	/**
+	 * Creates the haze masks for text that is drawn on one line in parallel, so that they are cached before the
+	 * text is drawn one at a time.
+	 */
+	private void createTextHazesInParallel(List<MapText> texts)
+	{
+		texts.parallelStream()
+				.filter(text -> text.value != null && text.value.trim().length() > 0)
+				.forEach(text ->
+				{
+					var font = switch (text.type) {
+						case City, Other_mountains -> citiesAndOtherMountainsFontScaled;
+						case Mountain_range -> mountainRangeFontScaled;
+						case River -> riverFontScaled;
+						// Titles and regions can be split onto 2 lines, so their hazes are created when they are drawn.
+						default -> null;
+					};
+					if (font != null)
+					{
+						getTextHaze(text.value, font, GlyphRunCache.getInstance().getMetrics(font));
+					}
+				});
 	}
 
 	private void drawNameHorizontalAtPoint(Graphics2D g, String name, Point location, boolean boldBackground)
@@ -867,25 +923,15 @@ public class TextDrawer
 		if (name.length() == 0)
 			return;
 
-		var original = g.getFont();
-		var originalColor = g.getColor();
-		var background = g.getFont().deriveFont(Font.BOLD, g.getFont().getSize());
-		var metrics = g.getFontMetrics(original);
-
-		var curLoc = new Point(location.x , location.y);
-		for (var i : new Range(name.length()))
+		var glyphRuns = GlyphRunCache.getInstance();
+		if (boldBackground)
 		{
-			if (boldBackground)
-			{
-				g.setFont(background);
-				g.setColor(settings.boldBackgroundColor);
-				g.drawString("" + name.charAt(i), (int)curLoc.x, (int)curLoc.y);
-				g.setFont(original);
-				g.setColor(originalColor);
-			}
-			g.drawString("" + name.charAt(i), (int)curLoc.x, (int)curLoc.y);
-			curLoc.x += metrics.stringWidth("" + name.charAt(i));
+			var originalColor = g.getColor();
+			g.setColor(settings.boldBackgroundColor);
+			g.drawGlyphVector(glyphRuns.getBoldBackgroundRun(g.getFont(), name), (int)location.x, (int)location.y);
+			g.setColor(originalColor);
 		}
+		g.drawGlyphVector(glyphRuns.getRun(g.getFont(), name), (int)location.x, (int)location.y);
 	}
 
 	private boolean drawNameHorizontal(BufferedImage map, Graphics2D g, String name, Set<Point> locations,
@@ -942,7 +988,7 @@ public class TextDrawer
 			Set<Point> locations, WorldGraph graph, boolean boldBackground,
 			boolean enableBoundsChecking, MapText text)
 	{
-		var metrics = g.getFontMetrics(g.getFont());
+		var metrics = GlyphRunCache.getInstance().getMetrics(g.getFont());
 		int width = metrics.stringWidth(text.value);
 		int height = getFontHeight(metrics);
 		var textLocation = new Point(text.location.x * settings.resolution, text.location.y * settings.resolution);
@@ -1028,7 +1074,7 @@ public class TextDrawer
 
 	public static java.awt.Point getTextBounds(String text, Font font)
 	{
-		var metrics = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics().getFontMetrics(font);
+		var metrics = GlyphRunCache.getInstance().getMetrics(font);
 		return new java.awt.Point(metrics.stringWidth(text), metrics.getHeight());
 	}
 
@@ -1105,7 +1151,7 @@ public class TextDrawer
 	public boolean drawNameRotated(BufferedImage map, Graphics2D g,
 			double riseOffset, boolean enableBoundsChecking, MapText text)
 	{
-		var metrics = g.getFontMetrics(g.getFont());
+		var metrics = GlyphRunCache.getInstance().getMetrics(g.getFont());
 		var width = metrics.stringWidth(text.value);
 		var height = getFontHeight(metrics);
 
@@ -1184,30 +1230,24 @@ public class TextDrawer
 
 	private boolean overlapsExistingTextOrCityOrIsOffMap(Area bounds)
 	{
-		for (var mp : mapTexts)
+		if (!graphBounds.contains(bounds.getBounds2D()))
 		{
+			return true;
+		}
+		
+		// Text is only ever appended to mapTexts while it is generated, so only the texts added since the last
+		// check need to be indexed.
+		for (; textsInCollisionIndex < mapTexts.size(); textsInCollisionIndex++)
+		{
+			var mp = mapTexts.get(textsInCollisionIndex);
 			// Ignore empty text and ignore edited text.
 			if (mp.value.length() > 0)
 			{
-				for (var a : mp.areas)
-				{
-					var aCopy = new Area(a);
-					aCopy.intersect(bounds);
-					if (!aCopy.isEmpty())
-						return true;
-				}
+				mp.areas.forEach(collisionIndex::add);
 			}
 		}
 
-		for (var a : cityAreas)
-		{
-			var aCopy = new Area(a);
-			aCopy.intersect(bounds);
-			if (!aCopy.isEmpty())
-				return true;
-		}
-
-		return !graphBounds.contains(bounds.getBounds2D());
+		return collisionIndex.overlaps(bounds);
 	}
 
 	/**
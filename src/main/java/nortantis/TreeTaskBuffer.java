@@ -0,0 +1,81 @@
+package nortantis;
+
+import java.util.Arrays;
+
+/**
+ * Trees to draw, stored in one int array rather than as an IconDrawTask per tree, since large maps can have tens of
+ * thousands of trees. Each tree is its location, the index of its image in IconDrawer's tree images, and the index of
+ * the center it was generated for.
+ */
+class TreeTaskBuffer
+{
+	private static final int intsPerTree = 4;
+	private int[] data;
+	private int size;
+
+	public TreeTaskBuffer()
+	{
+		this(16);
+	}
+
+	public TreeTaskBuffer(int initialCapacity)
+	{
+		data = new int[Math.max(1, initialCapacity) * intsPerTree];
+	}
+
+	public void add(int x, int y, int imageIndex, int centerIndex)
+	{
+		ensureCapacity(size + 1);
+		int i = size * intsPerTree;
+		data[i] = x;
+		data[i + 1] = y;
+		data[i + 2] = imageIndex;
+		data[i + 3] = centerIndex;
+		size++;
+	}
+
+	public void addAll(TreeTaskBuffer other)
+	{
+		ensureCapacity(size + other.size);
+		System.arraycopy(other.data, 0, data, size * intsPerTree, other.size * intsPerTree);
+		size += other.size;
+	}
+
+	private void ensureCapacity(int treeCount)
+	{
+		if (treeCount * intsPerTree > data.length)
+		{
+			data = Arrays.copyOf(data, Math.max(treeCount, size * 2) * intsPerTree);
+		}
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public void clear()
+	{
+		size = 0;
+	}
+
+	public int getX(int tree)
+	{
+		return data[tree * intsPerTree];
+	}
+
+	public int getY(int tree)
+	{
+		return data[tree * intsPerTree + 1];
+	}
+
+	public int getImageIndex(int tree)
+	{
+		return data[tree * intsPerTree + 2];
+	}
+
+	public int getCenterIndex(int tree)
+	{
+		return data[tree * intsPerTree + 3];
+	}
+}
@@ -0,0 +1,186 @@
+package nortantis;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import nortantis.util.AssetsPath;
+import nortantis.util.Logger;
+
+/**
+ * The English word dictionary used by NameCompiler to conjugate verbs. It is loaded once per process and shared by all
+ * NameCompilers.
+ *
+ * The words are sorted and packed end to end into one char array, with an array of offsets to the start of each word,
+ * which takes far less memory than a set of Strings. Lookups are a binary search.
+ */
+public class WordDictionary
+{
+	private static CompletableFuture<WordDictionary> instance;
+
+	private final char[] chars;
+	// Word i is chars[offsets[i]] to chars[offsets[i + 1] - 1].
+	private final int[] offsets;
+
+	private WordDictionary(List<String> sortedWords)
+	{
+		offsets = new int[sortedWords.size() + 1];
+		int length = 0;
+		for (int i = 0; i < sortedWords.size(); i++)
+		{
+			offsets[i] = length;
+			length += sortedWords.get(i).length();
+		}
+		offsets[sortedWords.size()] = length;
+
+		chars = new char[length];
+		for (int i = 0; i < sortedWords.size(); i++)
+		{
+			sortedWords.get(i).getChars(0, sortedWords.get(i).length(), chars, offsets[i]);
+		}
+	}
+
+	/**
+	 * Starts loading the dictionary in a background thread if it is not already loaded or loading, so that it is
+	 * likely ready by the time getInstance is called.
+	 */
+	public synchronized static void preloadInBackground()
+	{
+		if (instance == null)
+		{
+			instance = CompletableFuture.supplyAsync(WordDictionary::load);
+		}
+	}
+
+	/**
+	 * Gets the dictionary, loading it first if needed, or waiting for a background load to finish.
+	 */
+	public static WordDictionary getInstance()
+	{
+		CompletableFuture<WordDictionary> future;
+		synchronized (WordDictionary.class)
+		{
+			if (instance == null)
+			{
+				instance = new CompletableFuture<>();
+				try
+				{
+					instance.complete(load());
+				}
+				catch (RuntimeException e)
+				{
+					instance = null;
+					throw e;
+				}
+			}
+			future = instance;
+		}
+		return future.join();
+	}
+
+	private static WordDictionary load()
+	{
+		long startTime = System.currentTimeMillis();
+		List<String> lines;
+		try
+		{
+			lines = Files.readAllLines(AssetsPath.get("internal", "en_GB.dic"), StandardCharsets.UTF_8);
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException("Unable to read word dictionary file.", e);
+		}
+
+		List<String> words = new ArrayList<>(lines.size());
+		for (String line : lines)
+		{
+			words.add(parseWord(line));
+		}
+		Collections.sort(words);
+
+		List<String> uniqueWords = new ArrayList<>(words.size());
+		for (String word : words)
+		{
+			if (uniqueWords.isEmpty() || !uniqueWords.get(uniqueWords.size() - 1).equals(word))
+			{
+				uniqueWords.add(word);
+			}
+		}
+
+		WordDictionary result = new WordDictionary(uniqueWords);
+		Logger.debug("Loaded word dictionary in " + (System.currentTimeMillis() - startTime) / 1000.0 + " seconds.");
+		return result;
+	}
+
+	/**
+	 * Gets the word at the start of a line of a Hunspell dictionary file, which is followed by either white space, the
+	 * affix flags after a '/', or a number.
+	 */
+	static String parseWord(String line)
+	{
+		int end = 0;
+		while (end < line.length() && !isWordTerminator(line.charAt(end)))
+		{
+			end++;
+		}
+		return line.substring(0, end).trim();
+	}
+
+	private static boolean isWordTerminator(char c)
+	{
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r' || c == '/' || (c >= '0' && c <= '9');
+	}
+
+	public boolean contains(String word)
+	{
+		int low = 0;
+		int high = offsets.length - 2;
+		while (low <= high)
+		{
+			int mid = (low + high) >>> 1;
+			int comparison = compareWordTo(mid, word);
+			if (comparison < 0)
+			{
+				low = mid + 1;
+			}
+			else if (comparison > 0)
+			{
+				high = mid - 1;
+			}
+			else
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public int size()
+	{
+		return offsets.length - 1;
+	}
+
+	/**
+	 * Compares word i to the given word the same way String.compareTo does.
+	 */
+	private int compareWordTo(int i, String word)
+	{
+		int start = offsets[i];
+		int length = offsets[i + 1] - start;
+		int commonLength = Math.min(length, word.length());
+		for (int j = 0; j < commonLength; j++)
+		{
+			char c = chars[start + j];
+			char other = word.charAt(j);
+			if (c != other)
+			{
+				return c - other;
+			}
+		}
+		return length - word.length();
+	}
+}
@@ -71,6 +71,7 @@ public class WorldGraph extends VoronoiGraph
    // Maps plate ids to plates.
     Set<TectonicPlate> plates;
     public List<Region> regions;
+    private CenterGroupFinder centerGroupFinder;
 
     public WorldGraph(Voronoi v, int numLloydRelaxations, Random r, int numIterationsForTectonicPlateCreation,
     		double nonBorderPlateContinentalProbability, double borderPlateContinentalProbability,
@@ -416,6 +417,19 @@ public class WorldGraph extends VoronoiGraph
     	return dividedRegion;
     }
     
+    /**
+     * Finds groups of centers, such as mountain ranges and forests. It is created the first time it is needed
+     * because the graph's neighbors must be set up first.
+     */
+    public synchronized CenterGroupFinder getCenterGroupFinder()
+    {
+    	if (centerGroupFinder == null)
+    	{
+    		centerGroupFinder = new CenterGroupFinder(centers);
+    	}
+    	return centerGroupFinder;
+    }
+    
     public Set<Center> breadthFirstSearch(Function<Center, Boolean> accept, Center start)
     {
     	Set<Center> explored = new HashSet<>();
@@ -0,0 +1,48 @@
+package nortantis.json;
+
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import nortantis.MapSettings;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.ANY;
+import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.NONE;
+
+/**
+ * Creates the object mapper used to read and write map settings files.
+ */
+public class SettingsMapper {
+
+    public static ObjectMapper create() {
+        var mapper = new ObjectMapper();
+        mapper.setDefaultSetterInfo(JsonSetter.Value.forValueNulls(Nulls.SKIP));
+        mapper.setVisibility(mapper.getSerializationConfig().getDefaultVisibilityChecker()
+                .withFieldVisibility(ANY)
+                .withGetterVisibility(NONE)
+                .withIsGetterVisibility(NONE)
+                .withSetterVisibility(NONE)
+                .withCreatorVisibility(NONE));
+
+        var module = new SimpleModule()
+                .addDeserializer(Font.class, new FontDeserializer(Font.class))
+                .addDeserializer(Color.class, new ColorDeserializer(Color.class))
+                .addSerializer(Font.class, new FontSerializer(Font.class))
+                .addSerializer(Color.class, new ColorSerializer(Color.class));
+
+        mapper.registerModule(module);
+        return mapper;
+    }
+
+    public static MapSettings readSettings(Path path) {
+        try {
+            return create().reader().readValue(path.toFile(), MapSettings.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read settings from " + path, e);
+        }
+    }
+}
@@ -18,8 +18,13 @@ public class CharacterNGram
 {
 	private final int n;
 	private final Random r;
+	// Null if this was created from an already compiled model.
 	private final Map<List<Character>, Counter<Character>> lcMap;
 	private final Set<String> namesFromCorpora = new HashSet<>();
+	// Created from lcMap the first time a name is generated after data is added.
+	private CompiledNGramModel compiledModel;
+	// Reused between calls to generateName to avoid growing a new buffer for each name.
+	private char[] nameBuffer = new char[32];
 	
 	private final char startToken = 0;
 	private final char endToken = 4;
@@ -36,6 +41,19 @@ public class CharacterNGram
 		this.lcMap = new HashMap<>();
 	}
 	
+	/**
+	 * Creates a generator from a model compiled by another CharacterNGram. No more data can be added to it.
+	 * 
+	 * @param r The randomizer
+	 */
+	public CharacterNGram(Random r, CompiledNGramModel model)
+	{
+		this.n = model.getContextLength() + 1;
+		this.r = r;
+		this.lcMap = null;
+		this.compiledModel = model;
+	}
+	
 	public void addData(Collection<String> phrases)
 	{
 		for (var phrase : phrases)
@@ -45,6 +63,10 @@ public class CharacterNGram
 	}
 
 	public void add(String phrase) {
+		if (lcMap == null)
+		{
+			throw new IllegalStateException("Data cannot be added to a CharacterNGram created from a compiled model.");
+		}
 		for (var i : new Range(phrase.length()))
 		{
 			var lastChars = new ArrayList<Character>(n - 1);
@@ -63,6 +85,7 @@ public class CharacterNGram
 		}
 		lcMap.computeIfAbsent(lastChars, x -> new Counter<>()).add(endToken);
 		namesFromCorpora.add(phrase);
+		compiledModel = null;
 	}
 
 	public String generateNameNotInCorpora() throws NotEnoughNamesException
@@ -70,35 +93,43 @@ public class CharacterNGram
 		return Stream.generate(this::generateName)
 				.limit(20)
 				.filter(x -> x.length() > 1)
-				.filter(not(namesFromCorpora::contains))
+				.filter(not(compile()::isInCorpora))
 				.findFirst()
 				.orElseThrow(NotEnoughNamesException::new);
 	}
 	
-	private String generateName()
+	/**
+	 * @return An immutable copy of this generator's data, which can be shared by other generators.
+	 */
+	public CompiledNGramModel compile()
 	{
-		if (lcMap.size() == 0)
-			throw new IllegalStateException("At least one book must be selected to generate text.");
-		var lastChars = new ArrayList<Character>();
-		for (@SuppressWarnings("unused") var i : new Range(n - 1))
+		if (compiledModel == null)
 		{
-			lastChars.add(startToken);
+			compiledModel = new CompiledNGramModel(n - 1, lcMap, namesFromCorpora);
 		}
+		return compiledModel;
+	}
+	
+	private String generateName()
+	{
+		compile();
+		if (compiledModel.isEmpty())
+			throw new IllegalStateException("At least one book must be selected to generate text.");
 		
-		var result = new StringBuilder();
+		var context = compiledModel.createContext(startToken);
+		var length = 0;
 		char next;
-		do
+		while ((next = compiledModel.sample(context, r)) != endToken)
 		{
-			var counter = lcMap.get(lastChars);
-			next = counter == null ? null : counter.random(r);
-			lastChars.remove(0);
-			lastChars.add(next);
-			if (next != endToken)
-				result.append(next);
+			if (length == nameBuffer.length)
+			{
+				nameBuffer = Arrays.copyOf(nameBuffer, length * 2);
+			}
+			nameBuffer[length++] = next;
+			context = compiledModel.append(context, next);
 		}
-		while(next != endToken);
 
-		return result.toString();
+		return new String(nameBuffer, 0, length);
 	}
 	
 	public static void main(String[] args)
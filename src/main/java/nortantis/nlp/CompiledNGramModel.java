@@ -0,0 +1,160 @@
+package nortantis.nlp;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import nortantis.util.Counter;
+
+/**
+ * An immutable, compact form of a character n-gram model, used to sample characters quickly.
+ *
+ * Each context (the previous n - 1 characters) is packed 16 bits per character into a long and looked up in an open
+ * addressing hash table. The characters that followed a context in the training data are stored in one char array,
+ * one entry per occurrence, in the order Counter iterates over them. Sampling picks a uniformly random entry, which is
+ * O(1) and gives exactly the same character for a given random number as Counter.random does.
+ *
+ * Since it is immutable, one model can be shared by generators in different threads, each with its own Random.
+ */
+public class CompiledNGramModel
+{
+	private final int contextLength;
+	private final long contextMask;
+	private final long[] slotKeys;
+	// The context index stored in each slot of slotKeys, or -1 if the slot is empty.
+	private final int[] slotContexts;
+	// The characters that can follow context i are outcomes[outcomeStarts[i]] to outcomes[outcomeStarts[i + 1] - 1].
+	private final int[] outcomeStarts;
+	private final char[] outcomes;
+	private final Set<String> namesFromCorpora;
+
+	/**
+	 * @param contextLength The number of previous characters each context holds, which is n - 1 for n-grams. At most 4.
+	 * @param model Maps contexts, which must have contextLength characters, to counts of the characters that followed
+	 *        them.
+	 * @param namesFromCorpora The phrases the model was trained on.
+	 */
+	CompiledNGramModel(int contextLength, Map<? extends List<Character>, Counter<Character>> model, Set<String> namesFromCorpora)
+	{
+		if (contextLength > 4)
+		{
+			throw new IllegalArgumentException("Contexts longer than 4 characters cannot be packed into a long.");
+		}
+		this.contextLength = contextLength;
+		contextMask = contextLength == 4 ? -1L : (1L << (16 * contextLength)) - 1;
+
+		int capacity = Integer.highestOneBit(Math.max(1, model.size() * 2 - 1)) * 2;
+		slotKeys = new long[capacity];
+		slotContexts = new int[capacity];
+		Arrays.fill(slotContexts, -1);
+
+		outcomeStarts = new int[model.size() + 1];
+		int totalOutcomes = model.values().stream().mapToInt(Counter::size).sum();
+		outcomes = new char[totalOutcomes];
+
+		int context = 0;
+		int outcome = 0;
+		for (var entry : model.entrySet())
+		{
+			long key = 0;
+			for (char c : entry.getKey())
+			{
+				key = append(key, c);
+			}
+			int slot = findSlot(key);
+			slotKeys[slot] = key;
+			slotContexts[slot] = context;
+
+			outcomeStarts[context] = outcome;
+			// This iterates over each character once per time it was counted, in the same order Counter.random uses.
+			for (char c : entry.getValue())
+			{
+				outcomes[outcome++] = c;
+			}
+			context++;
+		}
+		outcomeStarts[context] = outcome;
+		this.namesFromCorpora = Set.copyOf(namesFromCorpora);
+	}
+
+	public int getContextLength()
+	{
+		return contextLength;
+	}
+
+	/**
+	 * @return The context made of every character in the given context but the first, followed by c.
+	 */
+	public long append(long context, char c)
+	{
+		return ((context << 16) | c) & contextMask;
+	}
+
+	/**
+	 * @return The context in which every character is the given character, such as the start token.
+	 */
+	public long createContext(char c)
+	{
+		long context = 0;
+		for (int i = 0; i < contextLength; i++)
+		{
+			context = append(context, c);
+		}
+		return context;
+	}
+
+	/**
+	 * Randomly chooses the next character after the given context, with each character chosen with probability
+	 * proportional to how often it followed the context in the training data.
+	 *
+	 * @throws IllegalStateException If the context was never seen in the training data.
+	 */
+	public char sample(long context, Random r)
+	{
+		int slot = findSlot(context);
+		int contextIndex = slotContexts[slot];
+		if (contextIndex == -1)
+		{
+			throw new IllegalStateException("The n-gram model has no data for the current context.");
+		}
+		int start = outcomeStarts[contextIndex];
+		return outcomes[start + r.nextInt(outcomeStarts[contextIndex + 1] - start)];
+	}
+
+	/**
+	 * @return The slot holding the given key, or the empty slot it would go in.
+	 */
+	private int findSlot(long key)
+	{
+		int mask = slotKeys.length - 1;
+		int slot = (int) (mix(key) & mask);
+		while (slotContexts[slot] != -1 && slotKeys[slot] != key)
+		{
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private static long mix(long key)
+	{
+		// The finalizer from MurmurHash3, which spreads the packed characters across all bits.
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return key;
+	}
+
+	public boolean isInCorpora(String name)
+	{
+		return namesFromCorpora.contains(name);
+	}
+
+	public boolean isEmpty()
+	{
+		return outcomeStarts.length == 1;
+	}
+}
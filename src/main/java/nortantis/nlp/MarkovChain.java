@@ -1,12 +1,16 @@
 package nortantis.nlp;
 
 import org.apache.commons.collections4.Bag;
-import org.apache.commons.collections4.bag.HashBag;
+import org.apache.commons.collections4.bag.AbstractMapBag;
 
 import java.util.*;
 import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
+/**
+ * Elements are often lambdas, whose hash codes differ between runs, so successors are kept in insertion order to make
+ * walks depend only on the random number generator.
+ */
 public class MarkovChain<E> {
     private final Map<E, Bag<E>> items = new HashMap<>();
 
@@ -25,11 +29,11 @@ public class MarkovChain<E> {
     }
 
     public void addMany(E current, E next, int count) {
-        items.computeIfAbsent(current, k -> new HashBag<>()).add(next, count);
+        items.computeIfAbsent(current, k -> new InsertionOrderBag<>()).add(next, count);
     }
 
     public void add(E current, E next) {
-        items.computeIfAbsent(current, k -> new HashBag<>()).add(next);
+        items.computeIfAbsent(current, k -> new InsertionOrderBag<>()).add(next);
     }
 
     public Stream<E> randomWalk(Random random) {
@@ -41,4 +45,10 @@ public class MarkovChain<E> {
         };
         return Stream.iterate(next.apply(null), Objects::nonNull, next);
     }
+
+    private static class InsertionOrderBag<E> extends AbstractMapBag<E> {
+        InsertionOrderBag() {
+            super(new LinkedHashMap<>());
+        }
+    }
 }
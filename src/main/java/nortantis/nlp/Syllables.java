@@ -1,24 +1,127 @@
 package nortantis.nlp;
 
-import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Arrays;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
-import static java.util.regex.Pattern.CASE_INSENSITIVE;
-import static java.util.regex.Pattern.compile;
-
+/**
+ * Splits words into syllables. Between each pair of vowels:
+ * <ul>
+ * <li>A single consonant, or one of the consonant groups ch, ph, sh, th, wh, zh, or tch, starts the next syllable.</li>
+ * <li>Two consonants are split between them.</li>
+ * <li>Three consonants are split after the first, or after the first two if they are one of the groups above.</li>
+ * <li>Four consonants are split in half.</li>
+ * <li>Five or more consonants are not split.</li>
+ * </ul>
+ * Y is a consonant, and digits and underscores are neither vowels nor consonants. Words are scanned once, without
+ * creating intermediate strings.
+ */
 public class Syllables {
-    private static final Pattern splitter = compile("-+", CASE_INSENSITIVE);
-
-    private static final List<Pattern> patterns = List.of(
-            compile("\\W+", CASE_INSENSITIVE),
-            compile("(?=[aeiou](?:tch|ch|ph|sh|th|wh|zh|[a-z&&[^aeiou]])[aeiou])([aeiou])(tch|ch|ph|sh|th|wh|zh|[a-z&&[^aeiou]])", CASE_INSENSITIVE),
-            compile("(?=[aeiou][a-z&&[^aeiou]][a-z&&[^aeiou]][aeiou])([aeiou][a-z&&[^aeiou]])([a-z&&[^aeiou]])", CASE_INSENSITIVE),
-            compile("(?=[aeiou][a-z&&[^aeiou]]{3}[aeiou])([aeiou](?:tch|ch|ph|sh|th|wh|zh|[a-z&&[^aeiou]]))([a-z&&[^aeiou]]{1,2})", CASE_INSENSITIVE),
-            compile("(?=[aeiou][a-z&&[^aeiou]]{4}[aeiou])([aeiou][a-z&&[^aeiou]]{2})([a-z&&[^aeiou]]{2})", CASE_INSENSITIVE)
-    );
+    private static final String[] consonantGroups = {"ch", "ph", "sh", "th", "wh", "zh"};
 
     public static Stream<String> syllables(String word) {
-        return splitter.splitAsStream(patterns.stream().reduce(word, (acc, pair) -> pair.matcher(acc).replaceAll("$1-$2"), (a, b) -> a + b));
+        int[] breaks = findSyllableBreaks(word.toCharArray());
+        return IntStream.rangeClosed(0, breaks.length)
+                .mapToObj(i -> word.substring(i == 0 ? 0 : breaks[i - 1], i == breaks.length ? word.length() : breaks[i]));
+    }
+
+    /**
+     * @return The index at which each syllable but the first starts, in increasing order.
+     * @throws IllegalArgumentException If the word has a character other than an ASCII letter, a digit, or an underscore.
+     */
+    public static int[] findSyllableBreaks(char[] word) {
+        int[] breaks = new int[word.length];
+        int count = 0;
+        // The index of the first consonant after the most recent vowel, or -1 if something other than a consonant has
+        // come since then.
+        int consonantsStart = -1;
+        for (int i = 0; i < word.length; i++) {
+            char c = word[i];
+            if (isVowel(c)) {
+                if (consonantsStart >= 0) {
+                    int syllableBreak = findBreakInConsonants(word, consonantsStart, i);
+                    if (syllableBreak >= 0) {
+                        breaks[count++] = syllableBreak;
+                    }
+                }
+                consonantsStart = i + 1;
+            } else if (!isConsonant(c)) {
+                if (!isDigit(c) && c != '_') {
+                    throw new IllegalArgumentException("Unable to split '" + new String(word)
+                            + "' into syllables because it contains a character that is not a letter, digit, or underscore.");
+                }
+                consonantsStart = -1;
+            }
+        }
+        return Arrays.copyOf(breaks, count);
+    }
+
+    /**
+     * @return Where to split the consonants word[start] to word[end - 1], which are between two vowels, or -1 to not
+     * split them.
+     */
+    private static int findBreakInConsonants(char[] word, int start, int end) {
+        switch (end - start) {
+            case 1:
+                return start;
+            case 2:
+                return isConsonantGroup(word, start) ? start : start + 1;
+            case 3:
+                if (matches(word, start, "tch")) {
+                    return start;
+                }
+                return isConsonantGroup(word, start) ? start + 2 : start + 1;
+            case 4:
+                return start + 2;
+            default:
+                return -1;
+        }
+    }
+
+    private static boolean isConsonantGroup(char[] word, int start) {
+        for (String group : consonantGroups) {
+            if (matches(word, start, group)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(char[] word, int start, String lowerCase) {
+        if (start + lowerCase.length() > word.length) {
+            return false;
+        }
+        for (int i = 0; i < lowerCase.length(); i++) {
+            if (toLowerCase(word[start + i]) != lowerCase.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isVowel(char c) {
+        switch (toLowerCase(c)) {
+            case 'a':
+            case 'e':
+            case 'i':
+            case 'o':
+            case 'u':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isConsonant(char c) {
+        char lower = toLowerCase(c);
+        return lower >= 'a' && lower <= 'z' && !isVowel(lower);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
     }
 }
@@ -0,0 +1,298 @@
+package nortantis.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * A list of every file in the assets folder, with its size, image dimensions, default width, and hash.
+ *
+ * The build writes the manifest to assets/manifest.tsv by running this class's main method. When the assets are in a
+ * jar, listing folders through the jar's file system is slow, so the listing methods here use the manifest instead.
+ * When the assets are in a normal folder, they list the folder itself, so that assets added by users are found.
+ */
+public class AssetManifest
+{
+	public static final String fileName = "manifest.tsv";
+
+	private static AssetManifest instance;
+	private static boolean isInstanceLoaded;
+
+	private final Map<String, Entry> entries;
+	// Maps each folder to the names of the files directly in it.
+	private final Map<String, TreeSet<String>> fileNames;
+	// Maps each folder to the names of the folders directly in it.
+	private final Map<String, TreeSet<String>> folderNames;
+
+	/**
+	 * @param path The file's path relative to the assets folder, with '/' between names.
+	 * @param size The file's size in bytes.
+	 * @param width The image's width in pixels, or -1 if the file isn't an image.
+	 * @param height The image's height in pixels, or -1 if the file isn't an image.
+	 * @param defaultWidth The width given at the end of the file name in the format "width=<number>", or -1 if it
+	 *        doesn't have one.
+	 * @param hash The SHA-256 hash of the file's contents.
+	 */
+	public record Entry(String path, long size, int width, int height, int defaultWidth, String hash)
+	{
+	}
+
+	private AssetManifest(List<Entry> entries)
+	{
+		this.entries = new HashMap<>();
+		fileNames = new HashMap<>();
+		folderNames = new HashMap<>();
+		for (Entry entry : entries)
+		{
+			this.entries.put(entry.path, entry);
+			String child = entry.path;
+			int slash = child.lastIndexOf('/');
+			fileNames.computeIfAbsent(slash < 0 ? "" : child.substring(0, slash), k -> new TreeSet<>()).add(child.substring(slash + 1));
+			while (slash >= 0)
+			{
+				String folder = child.substring(0, slash);
+				int parentSlash = folder.lastIndexOf('/');
+				folderNames.computeIfAbsent(parentSlash < 0 ? "" : folder.substring(0, parentSlash), k -> new TreeSet<>())
+						.add(folder.substring(parentSlash + 1));
+				child = folder;
+				slash = parentSlash;
+			}
+		}
+	}
+
+	/**
+	 * Gets the manifest of the assets folder, or null if the assets are in a normal folder or have no manifest.
+	 */
+	public synchronized static AssetManifest getInstance()
+	{
+		if (!isInstanceLoaded)
+		{
+			isInstanceLoaded = true;
+			Path assets = AssetsPath.get();
+			Path manifestPath = assets.resolve(fileName);
+			if (assets.getFileSystem() != FileSystems.getDefault() && Files.exists(manifestPath))
+			{
+				try
+				{
+					instance = read(manifestPath);
+				}
+				catch (IOException | RuntimeException e)
+				{
+					Logger.println("Unable to read the asset manifest. Asset folders will be listed instead. " + e.getMessage());
+				}
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Lists the names of the folders in the given assets folder, sorted.
+	 */
+	public static Stream<String> listFolderNames(Path folder) throws IOException
+	{
+		AssetManifest manifest = getInstance();
+		if (manifest != null)
+		{
+			return manifest.getFolderNames(toManifestPath(folder)).stream();
+		}
+		return Files.list(folder).filter(Files::isDirectory).map(Path::getFileName).map(Path::toString).sorted();
+	}
+
+	/**
+	 * Lists the names of the files in the given assets folder, sorted.
+	 */
+	public static Stream<String> listFileNames(Path folder) throws IOException
+	{
+		AssetManifest manifest = getInstance();
+		if (manifest != null)
+		{
+			return manifest.getFileNames(toManifestPath(folder)).stream();
+		}
+		return Files.list(folder).filter(Files::isRegularFile).map(Path::getFileName).map(Path::toString).sorted();
+	}
+
+	/**
+	 * @param folder A path relative to the assets folder, with '/' between names, or "" for the assets folder.
+	 */
+	public List<String> getFolderNames(String folder)
+	{
+		return List.copyOf(folderNames.getOrDefault(folder, new TreeSet<>()));
+	}
+
+	/**
+	 * @param folder A path relative to the assets folder, with '/' between names, or "" for the assets folder.
+	 */
+	public List<String> getFileNames(String folder)
+	{
+		return List.copyOf(fileNames.getOrDefault(folder, new TreeSet<>()));
+	}
+
+	/**
+	 * @param path A path relative to the assets folder, with '/' between names.
+	 * @return The entry for the file, or null if it isn't in the manifest.
+	 */
+	public Entry getEntry(String path)
+	{
+		return entries.get(path);
+	}
+
+	public List<Entry> getEntries()
+	{
+		return entries.values().stream().sorted((e1, e2) -> e1.path.compareTo(e2.path)).collect(Collectors.toList());
+	}
+
+	private static String toManifestPath(Path path)
+	{
+		return toManifestPath(AssetsPath.get(), path);
+	}
+
+	private static String toManifestPath(Path assetsFolder, Path path)
+	{
+		Path relative = assetsFolder.relativize(path);
+		var names = new ArrayList<String>();
+		for (Path name : relative)
+		{
+			names.add(name.toString());
+		}
+		return String.join("/", names);
+	}
+
+	/**
+	 * Creates a manifest of every file in the given assets folder except an existing manifest.
+	 */
+	public static AssetManifest create(Path assetsFolder) throws IOException
+	{
+		List<Path> files;
+		try (Stream<Path> paths = Files.walk(assetsFolder))
+		{
+			files = paths.filter(Files::isRegularFile).collect(Collectors.toList());
+		}
+
+		List<Entry> entries = files.parallelStream()
+				.map(file -> toManifestPath(assetsFolder, file))
+				.filter(path -> !path.equals(fileName))
+				.map(path -> createEntry(assetsFolder, path))
+				.collect(Collectors.toList());
+		return new AssetManifest(entries);
+	}
+
+	private static Entry createEntry(Path assetsFolder, String path)
+	{
+		Path file = assetsFolder.resolve(path);
+		try
+		{
+			byte[] bytes = Files.readAllBytes(file);
+			int width = -1;
+			int height = -1;
+			try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes)))
+			{
+				var readers = in == null ? Collections.<ImageReader> emptyIterator() : ImageIO.getImageReaders(in);
+				if (readers.hasNext())
+				{
+					ImageReader reader = readers.next();
+					try
+					{
+						reader.setInput(in);
+						width = reader.getWidth(0);
+						height = reader.getHeight(0);
+					}
+					finally
+					{
+						reader.dispose();
+					}
+				}
+			}
+			return new Entry(path, bytes.length, width, height, parseDefaultWidth(path), Helper.sha256Hex(bytes));
+		}
+		catch (IOException e)
+		{
+			throw new RuntimeException("Unable to add " + file + " to the asset manifest.", e);
+		}
+	}
+
+	/**
+	 * @return The width at the end of a file name in the format "width=<number>", or -1 if there isn't one.
+	 */
+	static int parseDefaultWidth(String path)
+	{
+		String name = path.substring(path.lastIndexOf('/') + 1);
+		int dot = name.lastIndexOf('.');
+		String baseName = dot < 0 ? name : name.substring(0, dot);
+		int start = baseName.lastIndexOf("width=");
+		if (start < 0)
+		{
+			return -1;
+		}
+		try
+		{
+			return Integer.parseInt(baseName.substring(start + "width=".length()));
+		}
+		catch (NumberFormatException e)
+		{
+			return -1;
+		}
+	}
+
+	public static AssetManifest read(Path manifestPath) throws IOException
+	{
+		List<Entry> entries = new ArrayList<>();
+		for (String line : Files.readAllLines(manifestPath))
+		{
+			if (line.isEmpty() || line.startsWith("#"))
+			{
+				continue;
+			}
+			String[] parts = line.split("\t");
+			if (parts.length != 6)
+			{
+				throw new IllegalArgumentException("Invalid line in asset manifest " + manifestPath + ": " + line);
+			}
+			entries.add(new Entry(parts[0], Long.parseLong(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]),
+					Integer.parseInt(parts[4]), parts[5]));
+		}
+		return new AssetManifest(entries);
+	}
+
+	public void write(Path manifestPath) throws IOException
+	{
+		List<String> lines = new ArrayList<>();
+		lines.add("# path\tsize\twidth\theight\tdefault width\tsha-256");
+		for (Entry entry : getEntries())
+		{
+			lines.add(entry.path + "\t" + entry.size + "\t" + entry.width + "\t" + entry.height + "\t" + entry.defaultWidth + "\t" + entry.hash);
+		}
+		Files.write(manifestPath, lines);
+	}
+
+	/**
+	 * Writes the manifest of an assets folder. The build runs this on the assets copied to the output folder.
+	 *
+	 * @param args The assets folder.
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length != 1)
+		{
+			throw new IllegalArgumentException("Usage: AssetManifest <assets folder>");
+		}
+		Path assetsFolder = Paths.get(args[0]);
+		AssetManifest manifest = create(assetsFolder);
+		manifest.write(assetsFolder.resolve(fileName));
+		Logger.println("Wrote a manifest of " + manifest.entries.size() + " assets to " + assetsFolder.resolve(fileName));
+	}
+}
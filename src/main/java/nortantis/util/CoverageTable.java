@@ -0,0 +1,104 @@
+package nortantis.util;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+
+/**
+ * A summed-area table of the black pixels in a mask, for answering "does this rectangle contain any black pixels" in
+ * constant time.
+ *
+ * To bound memory on large maps, the mask is divided into square cells and the table counts black pixels per cell, so
+ * a rectangle is treated as covering every cell it overlaps.
+ */
+public class CoverageTable
+{
+	private final int width;
+	private final int height;
+	private final int cellSize;
+	private final int cols;
+	private final int rows;
+	/**
+	 * sums[r * (cols + 1) + c] is the number of black pixels in cells [0, c) x [0, r).
+	 */
+	private final int[] sums;
+
+	/**
+	 * @param mask A TYPE_BYTE_BINARY or TYPE_BYTE_GRAY image. Pixels with value 0 are counted.
+	 * @param maxCells The largest number of cells the table may have. Smaller values use coarser cells.
+	 */
+	public CoverageTable(BufferedImage mask, int maxCells)
+	{
+		if (mask.getType() != BufferedImage.TYPE_BYTE_GRAY && mask.getType() != BufferedImage.TYPE_BYTE_BINARY)
+		{
+			throw new IllegalArgumentException("Mask type must be BufferedImage.TYPE_BYTE_GRAY or TYPE_BYTE_BINARY.");
+		}
+
+		width = mask.getWidth();
+		height = mask.getHeight();
+		cellSize = Math.max(1, (int) Math.ceil(Math.sqrt(((double) width * height) / maxCells)));
+		cols = (width + cellSize - 1) / cellSize;
+		rows = (height + cellSize - 1) / cellSize;
+
+		int[] cellCounts = new int[cols * rows];
+		Raster raster = mask.getRaster();
+		int[] row = new int[width];
+		for (int y = 0; y < height; y++)
+		{
+			raster.getSamples(0, y, width, 1, 0, row);
+			int cellRowStart = (y / cellSize) * cols;
+			for (int x = 0; x < width; x++)
+			{
+				if (row[x] == 0)
+				{
+					cellCounts[cellRowStart + x / cellSize]++;
+				}
+			}
+		}
+
+		sums = new int[(cols + 1) * (rows + 1)];
+		for (int r = 0; r < rows; r++)
+		{
+			int rowSum = 0;
+			for (int c = 0; c < cols; c++)
+			{
+				rowSum += cellCounts[r * cols + c];
+				sums[(r + 1) * (cols + 1) + c + 1] = sums[r * (cols + 1) + c + 1] + rowSum;
+			}
+		}
+	}
+
+	/**
+	 * Counts the black pixels in the cells overlapped by the given rectangle. The parts of the rectangle outside the mask
+	 * are ignored.
+	 */
+	public int count(int x, int y, int rectWidth, int rectHeight)
+	{
+		int left = Math.max(0, x);
+		int top = Math.max(0, y);
+		int right = Math.min(width, x + rectWidth);
+		int bottom = Math.min(height, y + rectHeight);
+		if (left >= right || top >= bottom)
+		{
+			return 0;
+		}
+
+		int c0 = left / cellSize;
+		int r0 = top / cellSize;
+		int c1 = (right - 1) / cellSize + 1;
+		int r1 = (bottom - 1) / cellSize + 1;
+		return sums[r1 * (cols + 1) + c1] - sums[r0 * (cols + 1) + c1] - sums[r1 * (cols + 1) + c0] + sums[r0 * (cols + 1) + c0];
+	}
+
+	public boolean containsAny(int x, int y, int rectWidth, int rectHeight)
+	{
+		return count(x, y, rectWidth, rectHeight) > 0;
+	}
+
+	/**
+	 * @return True if no part of the given rectangle is within the mask.
+	 */
+	public boolean isOutside(int x, int y, int rectWidth, int rectHeight)
+	{
+		return x + rectWidth <= 0 || y + rectHeight <= 0 || x >= width || y >= height;
+	}
+}
@@ -1,6 +1,8 @@
 package nortantis.util;
 
 import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 public class Helper 
 {
@@ -42,7 +44,25 @@ public class Helper
 		}
 		return storedObjectArray;
 	}
-}
-
-
 
+	/**
+	 * @return The SHA-256 hash of the given bytes in hexadecimal.
+	 */
+	public static String sha256Hex(byte[] bytes)
+	{
+		try
+		{
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+			var hex = new StringBuilder(digest.length * 2);
+			for (byte b : digest)
+			{
+				hex.append(String.format("%02x", b));
+			}
+			return hex.toString();
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+}
@@ -1,49 +1,223 @@
 package nortantis.util;
 
-import java.lang.reflect.InvocationTargetException;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
+import javax.swing.JTextArea;
 import javax.swing.SwingUtilities;
 
 import nortantis.RunSwing;
 
+/**
+ * Sends log messages to a list of sinks. By default messages go to the GUI's console text area when the GUI is
+ * running, and to standard out otherwise.
+ *
+ * Logging never waits on the Swing event dispatch thread. Messages for the GUI are put on a lock-free queue which the
+ * event dispatch thread drains in batches, so a busy UI cannot slow down the threads drawing a map.
+ */
 public class Logger
 {
-	
+	public enum Level
+	{
+		Debug,
+		Info,
+		Warning,
+		Error
+	}
+
+	/**
+	 * Receives log messages. Sinks may be called from any thread, including several at once.
+	 */
+	public interface Sink
+	{
+		void write(Level level, String message);
+	}
+
+	private static final Sink console = new ConsoleSink(System.out);
+	private static final Sink consoleTextArea = new TextAreaSink(RunSwing::getConsoleOutputTextArea);
+	private static final Sink defaultSink = (level, message) -> (RunSwing.isRunning() ? consoleTextArea : console).write(level, message);
+
+	private static final List<Sink> sinks = new CopyOnWriteArrayList<>(List.of(defaultSink));
+	private static volatile Level minimumLevel = Level.Info;
+
 	public static void println()
-	{		
-		if (RunSwing.isRunning())
+	{
+		println("");
+	}
+
+	public static void println(final String message)
+	{
+		log(Level.Info, message);
+	}
+
+	public static void warning(String message)
+	{
+		log(Level.Warning, message);
+	}
+
+	public static void error(String message)
+	{
+		log(Level.Error, message);
+	}
+
+	public static void debug(String message)
+	{
+		log(Level.Debug, message);
+	}
+
+	public static void log(Level level, String message)
+	{
+		if (level.compareTo(minimumLevel) < 0)
 		{
-			try
-			{
-				SwingUtilities.invokeAndWait(() -> RunSwing.getConsoleOutputTextArea().append("\n"));
-			} catch (InvocationTargetException | InterruptedException e)
+			return;
+		}
+
+		for (Sink sink : sinks)
+		{
+			sink.write(level, message);
+		}
+	}
+
+	public static void setMinimumLevel(Level level)
+	{
+		minimumLevel = level;
+	}
+
+	public static void addSink(Sink sink)
+	{
+		sinks.add(sink);
+	}
+
+	public static void removeSink(Sink sink)
+	{
+		sinks.remove(sink);
+	}
+
+	/**
+	 * Removes all sinks, including the default one that writes to the GUI or standard out.
+	 */
+	public static void clearSinks()
+	{
+		sinks.clear();
+	}
+
+	/**
+	 * Restores the default sink that writes to the GUI or standard out, removing all others.
+	 */
+	public static void resetSinks()
+	{
+		sinks.clear();
+		sinks.add(defaultSink);
+	}
+
+	private static String format(Level level, String message)
+	{
+		return level == Level.Info ? message : "[" + level + "] " + message;
+	}
+
+	public static class ConsoleSink implements Sink
+	{
+		private final PrintStream out;
+
+		public ConsoleSink(PrintStream out)
+		{
+			this.out = out;
+		}
+
+		@Override
+		public void write(Level level, String message)
+		{
+			out.println(format(level, message));
+		}
+	}
+
+	/**
+	 * Appends messages to a text area. Messages are queued and appended in batches on the event dispatch thread.
+	 */
+	public static class TextAreaSink implements Sink
+	{
+		private final Supplier<JTextArea> textArea;
+		private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+		private final AtomicBoolean isDrainScheduled = new AtomicBoolean();
+
+		public TextAreaSink(Supplier<JTextArea> textArea)
+		{
+			this.textArea = textArea;
+		}
+
+		@Override
+		public void write(Level level, String message)
+		{
+			pending.add(format(level, message));
+			if (isDrainScheduled.compareAndSet(false, true))
 			{
-				e.printStackTrace();
+				SwingUtilities.invokeLater(this::drain);
 			}
-			
-			
 		}
-		else
+
+		private void drain()
 		{
-			System.out.println();
+			// Clear the flag before polling so that a message added while draining either gets drained here or
+			// schedules another drain.
+			isDrainScheduled.set(false);
+			var batch = new StringBuilder();
+			String message;
+			while ((message = pending.poll()) != null)
+			{
+				batch.append(message).append("\n");
+			}
+
+			JTextArea area = textArea.get();
+			if (batch.length() > 0 && area != null)
+			{
+				area.append(batch.toString());
+			}
 		}
 	}
 
-	public static void println(final String message)
+	/**
+	 * Appends messages to a file.
+	 */
+	public static class FileSink implements Sink, Closeable
 	{
-		if (RunSwing.isRunning())
+		private final BufferedWriter writer;
+
+		public FileSink(Path path) throws IOException
+		{
+			writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		}
+
+		@Override
+		public synchronized void write(Level level, String message)
 		{
 			try
 			{
-				SwingUtilities.invokeAndWait(() -> RunSwing.getConsoleOutputTextArea().append(message + "\n"));
-			} catch (InvocationTargetException | InterruptedException e)
+				writer.write(format(level, message));
+				writer.newLine();
+				writer.flush();
+			}
+			catch (IOException e)
 			{
 				e.printStackTrace();
 			}
 		}
-		else
+
+		@Override
+		public synchronized void close() throws IOException
 		{
-			System.out.println(message);
+			writer.close();
 		}
 	}
 }
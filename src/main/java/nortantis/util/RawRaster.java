@@ -0,0 +1,342 @@
+package nortantis.util;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+
+/**
+ * Reads and writes images as raw, uncompressed pixels, so that large intermediate images can be stored and loaded
+ * without the cost of encoding and decoding PNGs.
+ *
+ * A file is a 32 byte header followed by the image's samples in row-major order, packed the way the image type's
+ * DataBuffer stores them (for example one int per pixel for TYPE_INT_RGB), big-endian. The header is the magic number
+ * "NRAW", the format version, the BufferedImage type, the width, the height, and a compression method, each a 4 byte
+ * int, followed by padding. The only compression method so far is 0, for none.
+ *
+ * Files can either be read into a normal image on the heap, or mapped into memory so that the operating system pages
+ * the pixels in and out as they are used.
+ */
+public class RawRaster
+{
+	public static final String fileExtension = "raw";
+
+	private static final int magic = 0x4e524157; // "NRAW"
+	private static final int formatVersion = 1;
+	private static final int headerSize = 32;
+	private static final int noCompression = 0;
+	// Files are mapped in chunks of this many bytes because a single mapping can't be larger than 2 GB.
+	private static final int chunkShift = 30;
+	// How many bytes to read or write at a time.
+	private static final int ioBufferSize = 1 << 20;
+
+	private record Header(int imageType, int width, int height)
+	{
+		long getDataSize()
+		{
+			return (long) width * height * getElementsPerPixel(imageType) * getBytesPerElement(imageType);
+		}
+	}
+
+	/**
+	 * @return Whether images of the given image's type can be written in this format.
+	 */
+	public static boolean supports(BufferedImage image)
+	{
+		return getElementsPerPixel(image.getType()) > 0;
+	}
+
+	public static void write(BufferedImage image, Path path) throws IOException
+	{
+		if (!supports(image))
+		{
+			throw new IllegalArgumentException("Unable to write images of type " + ImageHelper.bufferedImageTypeToString(image.getType())
+					+ " as raw rasters.");
+		}
+
+		try (FileChannel channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING))
+		{
+			ByteBuffer headerBytes = ByteBuffer.allocate(headerSize);
+			headerBytes.putInt(magic).putInt(formatVersion).putInt(image.getType()).putInt(image.getWidth()).putInt(image.getHeight())
+					.putInt(noCompression);
+			headerBytes.clear();
+			writeFully(channel, headerBytes);
+
+			// Sub-images share a larger image's DataBuffer, so copy them into their own.
+			Header header = new Header(image.getType(), image.getWidth(), image.getHeight());
+			DataBuffer data = image.getRaster().getDataBuffer();
+			if (image.getRaster().getParent() != null || data.getOffset() != 0
+					|| (long) data.getSize() * getBytesPerElement(image.getType()) != header.getDataSize())
+			{
+				BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
+				copy.getRaster().setDataElements(0, 0, image.getRaster());
+				data = copy.getRaster().getDataBuffer();
+			}
+
+			// Write a slice of the samples at a time.
+			int elementsPerWrite = ioBufferSize / getBytesPerElement(image.getType());
+			ByteBuffer buffer = ByteBuffer.allocate(ioBufferSize);
+			for (int offset = 0; offset < data.getSize(); offset += elementsPerWrite)
+			{
+				int count = Math.min(elementsPerWrite, data.getSize() - offset);
+				buffer.clear();
+				if (data instanceof DataBufferInt ints)
+				{
+					buffer.asIntBuffer().put(ints.getData(), offset, count);
+				}
+				else if (data instanceof DataBufferUShort shorts)
+				{
+					buffer.asShortBuffer().put(shorts.getData(), offset, count);
+				}
+				else
+				{
+					buffer.put(((DataBufferByte) data).getData(), offset, count);
+				}
+				buffer.position(0).limit(count * getBytesPerElement(image.getType()));
+				writeFully(channel, buffer);
+			}
+		}
+	}
+
+	/**
+	 * Reads a raw raster file into an image on the heap with the type it was written with. The file isn't mapped, so it
+	 * can be replaced or deleted as soon as this returns.
+	 */
+	public static BufferedImage read(Path path) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, READ))
+		{
+			Header header = readHeader(channel, path);
+			BufferedImage image = new BufferedImage(header.width, header.height, header.imageType);
+			DataBuffer data = image.getRaster().getDataBuffer();
+
+			// Read a slice of the samples at a time.
+			int bytesPerElement = getBytesPerElement(header.imageType);
+			int elementsPerRead = ioBufferSize / bytesPerElement;
+			ByteBuffer buffer = ByteBuffer.allocate(ioBufferSize);
+			for (int offset = 0; offset < data.getSize(); offset += elementsPerRead)
+			{
+				int count = Math.min(elementsPerRead, data.getSize() - offset);
+				buffer.clear().limit(count * bytesPerElement);
+				readFully(channel, buffer, path);
+				buffer.flip();
+				if (data instanceof DataBufferInt ints)
+				{
+					buffer.asIntBuffer().get(ints.getData(), offset, count);
+				}
+				else if (data instanceof DataBufferUShort shorts)
+				{
+					buffer.asShortBuffer().get(shorts.getData(), offset, count);
+				}
+				else
+				{
+					buffer.get(((DataBufferByte) data).getData(), offset, count);
+				}
+			}
+			return image;
+		}
+	}
+
+	/**
+	 * Maps a raw raster file into memory rather than reading it, so the pixels aren't stored on the heap. The image is
+	 * read-only. Drawing on it throws a ReadOnlyBufferException. The mapping lasts until the image is garbage
+	 * collected, and on some operating systems the file can't be replaced or deleted until then.
+	 *
+	 * The image's DataBuffer isn't one of the standard ones, so its type is BufferedImage.TYPE_CUSTOM, and methods that
+	 * require a specific image type need it copied into a normal image first.
+	 */
+	public static BufferedImage map(Path path) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, READ))
+		{
+			Header header = readHeader(channel, path);
+			ByteBuffer[] chunks = mapChunks(channel, MapMode.READ_ONLY, header.getDataSize());
+
+			BufferedImage prototype = new BufferedImage(1, 1, header.imageType);
+			ColorModel colorModel = prototype.getColorModel();
+			SampleModel sampleModel = prototype.getSampleModel().createCompatibleSampleModel(header.width, header.height);
+			int size = (int) (header.getDataSize() / getBytesPerElement(header.imageType));
+			var dataBuffer = new MappedDataBuffer(prototype.getRaster().getDataBuffer().getDataType(), size, chunks);
+			WritableRaster raster = Raster.createWritableRaster(sampleModel, dataBuffer, null);
+			return new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), null);
+		}
+	}
+
+	private static Header readHeader(FileChannel channel, Path path) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(headerSize);
+		while (buffer.hasRemaining())
+		{
+			if (channel.read(buffer) < 0)
+			{
+				throw new IOException("The raw raster file " + path + " is too short to have a header.");
+			}
+		}
+		buffer.flip();
+		if (buffer.getInt() != magic)
+		{
+			throw new IOException(path + " is not a raw raster file.");
+		}
+		int version = buffer.getInt();
+		if (version != formatVersion)
+		{
+			throw new IOException("The raw raster file " + path + " has unsupported version " + version + ".");
+		}
+		Header header = new Header(buffer.getInt(), buffer.getInt(), buffer.getInt());
+		int compression = buffer.getInt();
+		if (compression != noCompression)
+		{
+			throw new IOException("The raw raster file " + path + " has unsupported compression method " + compression + ".");
+		}
+		if (getElementsPerPixel(header.imageType) <= 0 || header.width <= 0 || header.height <= 0)
+		{
+			throw new IOException("The raw raster file " + path + " has an invalid header.");
+		}
+		if (channel.size() < headerSize + header.getDataSize())
+		{
+			throw new IOException("The raw raster file " + path + " is shorter than its header says.");
+		}
+		return header;
+	}
+
+	private static ByteBuffer[] mapChunks(FileChannel channel, MapMode mode, long dataSize) throws IOException
+	{
+		long chunkSize = 1L << chunkShift;
+		ByteBuffer[] chunks = new ByteBuffer[(int) ((dataSize + chunkSize - 1) >>> chunkShift)];
+		for (int i = 0; i < chunks.length; i++)
+		{
+			long start = (long) i << chunkShift;
+			chunks[i] = channel.map(mode, headerSize + start, Math.min(chunkSize, dataSize - start));
+		}
+		return chunks;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, Path path) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			if (channel.read(buffer) < 0)
+			{
+				throw new IOException("The raw raster file " + path + " is shorter than its header says.");
+			}
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * @return How many DataBuffer elements each pixel of the given image type uses, or 0 if the type isn't supported.
+	 */
+	private static int getElementsPerPixel(int imageType)
+	{
+		switch (imageType)
+		{
+		case BufferedImage.TYPE_INT_RGB:
+		case BufferedImage.TYPE_INT_ARGB:
+		case BufferedImage.TYPE_INT_ARGB_PRE:
+		case BufferedImage.TYPE_INT_BGR:
+		case BufferedImage.TYPE_USHORT_GRAY:
+		case BufferedImage.TYPE_BYTE_GRAY:
+			return 1;
+		case BufferedImage.TYPE_3BYTE_BGR:
+			return 3;
+		case BufferedImage.TYPE_4BYTE_ABGR:
+		case BufferedImage.TYPE_4BYTE_ABGR_PRE:
+			return 4;
+		default:
+			return 0;
+		}
+	}
+
+	private static int getBytesPerElement(int imageType)
+	{
+		switch (imageType)
+		{
+		case BufferedImage.TYPE_INT_RGB:
+		case BufferedImage.TYPE_INT_ARGB:
+		case BufferedImage.TYPE_INT_ARGB_PRE:
+		case BufferedImage.TYPE_INT_BGR:
+			return Integer.BYTES;
+		case BufferedImage.TYPE_USHORT_GRAY:
+			return Short.BYTES;
+		default:
+			return 1;
+		}
+	}
+
+	/**
+	 * A DataBuffer whose elements are in memory-mapped chunks of a file rather than in an array.
+	 */
+	private static class MappedDataBuffer extends DataBuffer
+	{
+		private static final long chunkMask = (1L << chunkShift) - 1;
+
+		private final ByteBuffer[] chunks;
+		private final int elementShift;
+
+		MappedDataBuffer(int dataType, int size, ByteBuffer[] chunks)
+		{
+			super(dataType, size);
+			this.chunks = chunks;
+			elementShift = Integer.numberOfTrailingZeros(getDataTypeSize(dataType) / 8);
+		}
+
+		@Override
+		public int getElem(int bank, int i)
+		{
+			long byteIndex = (long) i << elementShift;
+			ByteBuffer chunk = chunks[(int) (byteIndex >>> chunkShift)];
+			int index = (int) (byteIndex & chunkMask);
+			switch (dataType)
+			{
+			case TYPE_INT:
+				return chunk.getInt(index);
+			case TYPE_USHORT:
+				return chunk.getShort(index) & 0xffff;
+			default:
+				return chunk.get(index) & 0xff;
+			}
+		}
+
+		@Override
+		public void setElem(int bank, int i, int val)
+		{
+			long byteIndex = (long) i << elementShift;
+			ByteBuffer chunk = chunks[(int) (byteIndex >>> chunkShift)];
+			int index = (int) (byteIndex & chunkMask);
+			switch (dataType)
+			{
+			case TYPE_INT:
+				chunk.putInt(index, val);
+				break;
+			case TYPE_USHORT:
+				chunk.putShort(index, (short) val);
+				break;
+			default:
+				chunk.put(index, (byte) val);
+				break;
+			}
+		}
+	}
+}
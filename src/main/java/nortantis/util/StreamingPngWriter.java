@@ -0,0 +1,366 @@
+package nortantis.util;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Writes PNG files one band of rows at a time so that encoding a huge map doesn't need the encoder's buffers for the
+ * whole image at once. Each band is filtered and deflated independently on the common fork-join pool, ending in a
+ * sync flush so the raw deflate streams can simply be concatenated into a single zlib stream. Bands are written to the
+ * file in order as they finish, with only a bounded number of compressed bands held in memory.
+ */
+public class StreamingPngWriter
+{
+	private static final byte[] signature = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+	// zlib header for deflate with a 32K window and default compression.
+	private static final byte[] zlibHeader = {0x78, (byte) 0x9C};
+	private static final int defaultBandHeight = 64;
+	private static final int adlerBase = 65521;
+
+	/**
+	 * Supplies pixels to the writer. Implementations can produce rows on demand (for example from tiles) instead of
+	 * holding the whole image in memory. getRows may be called from multiple threads at once, and the row before a
+	 * band is requested again by the next band, so sources must be able to produce any row more than once.
+	 */
+	public interface RowSource
+	{
+		int getWidth();
+
+		int getHeight();
+
+		boolean hasAlpha();
+
+		/**
+		 * Fills argb with rowCount rows of pixels starting at row y, packed as 0xAARRGGBB, row by row.
+		 */
+		void getRows(int y, int rowCount, int[] argb);
+
+		static RowSource of(BufferedImage image)
+		{
+			return new RowSource()
+			{
+				@Override
+				public int getWidth()
+				{
+					return image.getWidth();
+				}
+
+				@Override
+				public int getHeight()
+				{
+					return image.getHeight();
+				}
+
+				@Override
+				public boolean hasAlpha()
+				{
+					return image.getColorModel().hasAlpha();
+				}
+
+				@Override
+				public void getRows(int y, int rowCount, int[] argb)
+				{
+					image.getRGB(0, y, image.getWidth(), rowCount, argb, 0, image.getWidth());
+				}
+			};
+		}
+	}
+
+	/**
+	 * Tells whether the given image can be written by this class without losing information. Grayscale and indexed
+	 * images (such as 16 bit height maps) should be written with ImageIO instead.
+	 */
+	public static boolean supports(BufferedImage image)
+	{
+		int type = image.getType();
+		return type == BufferedImage.TYPE_INT_RGB
+				|| type == BufferedImage.TYPE_INT_ARGB
+				|| type == BufferedImage.TYPE_INT_ARGB_PRE
+				|| type == BufferedImage.TYPE_INT_BGR
+				|| type == BufferedImage.TYPE_3BYTE_BGR
+				|| type == BufferedImage.TYPE_4BYTE_ABGR
+				|| type == BufferedImage.TYPE_4BYTE_ABGR_PRE;
+	}
+
+	public static void write(BufferedImage image, Path path) throws IOException
+	{
+		write(RowSource.of(image), path);
+	}
+
+	public static void write(RowSource source, Path path) throws IOException
+	{
+		write(source, path, defaultBandHeight, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * @param bandHeight Number of rows compressed together by one task.
+	 * @param compressionLevel A java.util.zip.Deflater compression level.
+	 */
+	public static void write(RowSource source, Path path, int bandHeight, int compressionLevel) throws IOException
+	{
+		int width = source.getWidth();
+		int height = source.getHeight();
+		if (width <= 0 || height <= 0)
+		{
+			throw new IllegalArgumentException("Cannot write an image with size " + width + " x " + height);
+		}
+		if (bandHeight <= 0)
+		{
+			throw new IllegalArgumentException("Band height must be positive, but was " + bandHeight);
+		}
+
+		boolean hasAlpha = source.hasAlpha();
+		int numBands = (height + bandHeight - 1) / bandHeight;
+		int maxBandsInFlight = ForkJoinPool.getCommonPoolParallelism() * 2 + 1;
+
+		try (FileChannel channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING))
+		{
+			writeFully(channel, ByteBuffer.wrap(signature));
+			writeChunk(channel, "IHDR", createHeader(width, height, hasAlpha));
+
+			var inFlight = new ArrayDeque<CompletableFuture<CompressedBand>>();
+			int nextBand = 0;
+			long adler = 1;
+			boolean isFirst = true;
+			while (nextBand < numBands || !inFlight.isEmpty())
+			{
+				while (nextBand < numBands && inFlight.size() < maxBandsInFlight)
+				{
+					final int y = nextBand * bandHeight;
+					final int rows = Math.min(bandHeight, height - y);
+					final boolean isLast = nextBand == numBands - 1;
+					inFlight.add(CompletableFuture.supplyAsync(
+							() -> compressBand(source, y, rows, hasAlpha, isLast, compressionLevel)));
+					nextBand++;
+				}
+
+				CompressedBand band = join(inFlight.poll());
+				adler = adler32Combine(adler, band.adler, band.uncompressedLength);
+				byte[] prefix = isFirst ? zlibHeader : new byte[0];
+				byte[] suffix = band.isLast ? toBytes((int) adler) : new byte[0];
+				writeChunk(channel, "IDAT", prefix, band.data, suffix);
+				isFirst = false;
+			}
+
+			writeChunk(channel, "IEND");
+		}
+	}
+
+	private static CompressedBand join(CompletableFuture<CompressedBand> future) throws IOException
+	{
+		try
+		{
+			return future.join();
+		}
+		catch (CompletionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException("Unable to compress image rows", e.getCause());
+		}
+	}
+
+	private static byte[] createHeader(int width, int height, boolean hasAlpha)
+	{
+		ByteBuffer header = ByteBuffer.allocate(13);
+		header.putInt(width);
+		header.putInt(height);
+		header.put((byte) 8); // Bit depth
+		header.put((byte) (hasAlpha ? 6 : 2)); // Color type: RGBA or RGB
+		header.put((byte) 0); // Compression method
+		header.put((byte) 0); // Filter method
+		header.put((byte) 0); // Interlace method
+		return header.array();
+	}
+
+	/**
+	 * Filters and deflates rows [y, y + rows). The row before the band is fetched too because the Paeth filter
+	 * predicts from the previous row.
+	 */
+	private static CompressedBand compressBand(RowSource source, int y, int rows, boolean hasAlpha, boolean isLast,
+			int compressionLevel)
+	{
+		int width = source.getWidth();
+		int bytesPerPixel = hasAlpha ? 4 : 3;
+		int rowLength = width * bytesPerPixel;
+
+		int firstSourceRow = y == 0 ? 0 : y - 1;
+		int sourceRows = rows + (y - firstSourceRow);
+		int[] argb = new int[width * sourceRows];
+		source.getRows(firstSourceRow, sourceRows, argb);
+
+		byte[] previous = new byte[rowLength];
+		byte[] current = new byte[rowLength];
+		if (y > 0)
+		{
+			toRowBytes(argb, 0, width, hasAlpha, previous);
+		}
+
+		byte[] filtered = new byte[(rowLength + 1) * rows];
+		int outIndex = 0;
+		for (int r = 0; r < rows; r++)
+		{
+			toRowBytes(argb, (r + y - firstSourceRow) * width, width, hasAlpha, current);
+			filtered[outIndex++] = 4; // Paeth
+			for (int i = 0; i < rowLength; i++)
+			{
+				int left = i >= bytesPerPixel ? current[i - bytesPerPixel] & 0xff : 0;
+				int up = previous[i] & 0xff;
+				int upperLeft = i >= bytesPerPixel ? previous[i - bytesPerPixel] & 0xff : 0;
+				filtered[outIndex++] = (byte) (current[i] - paethPredictor(left, up, upperLeft));
+			}
+
+			byte[] temp = previous;
+			previous = current;
+			current = temp;
+		}
+
+		Adler32 adler = new Adler32();
+		adler.update(filtered);
+
+		Deflater deflater = new Deflater(compressionLevel, true);
+		try
+		{
+			deflater.setInput(filtered);
+			var out = new ByteArrayOutputStream(filtered.length / 4 + 64);
+			byte[] buffer = new byte[64 * 1024];
+			if (isLast)
+			{
+				deflater.finish();
+				while (!deflater.finished())
+				{
+					int count = deflater.deflate(buffer);
+					out.write(buffer, 0, count);
+				}
+			}
+			else
+			{
+				// A sync flush ends the band on a byte boundary without marking the final block, so the next band's
+				// deflate output can be appended directly after it.
+				int count;
+				do
+				{
+					count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+					out.write(buffer, 0, count);
+				}
+				while (count == buffer.length);
+			}
+			return new CompressedBand(out.toByteArray(), adler.getValue(), filtered.length, isLast);
+		}
+		finally
+		{
+			deflater.end();
+		}
+	}
+
+	private static void toRowBytes(int[] argb, int offset, int width, boolean hasAlpha, byte[] row)
+	{
+		int i = 0;
+		for (int x = 0; x < width; x++)
+		{
+			int pixel = argb[offset + x];
+			row[i++] = (byte) (pixel >> 16);
+			row[i++] = (byte) (pixel >> 8);
+			row[i++] = (byte) pixel;
+			if (hasAlpha)
+			{
+				row[i++] = (byte) (pixel >>> 24);
+			}
+		}
+	}
+
+	private static int paethPredictor(int a, int b, int c)
+	{
+		int p = a + b - c;
+		int pa = Math.abs(p - a);
+		int pb = Math.abs(p - b);
+		int pc = Math.abs(p - c);
+		if (pa <= pb && pa <= pc)
+			return a;
+		if (pb <= pc)
+			return b;
+		return c;
+	}
+
+	/**
+	 * Computes the Adler-32 checksum of two concatenated byte sequences from the checksums of each, the same way as
+	 * zlib's adler32_combine.
+	 */
+	static long adler32Combine(long adler1, long adler2, long length2)
+	{
+		long remainder = length2 % adlerBase;
+		long sum1 = adler1 & 0xffff;
+		long sum2 = (remainder * sum1) % adlerBase;
+		sum1 += (adler2 & 0xffff) + adlerBase - 1;
+		sum2 += ((adler1 >> 16) & 0xffff) + ((adler2 >> 16) & 0xffff) + adlerBase - remainder;
+		if (sum1 >= adlerBase)
+			sum1 -= adlerBase;
+		if (sum1 >= adlerBase)
+			sum1 -= adlerBase;
+		if (sum2 >= ((long) adlerBase << 1))
+			sum2 -= ((long) adlerBase << 1);
+		if (sum2 >= adlerBase)
+			sum2 -= adlerBase;
+		return sum1 | (sum2 << 16);
+	}
+
+	private static void writeChunk(FileChannel channel, String type, byte[]... parts) throws IOException
+	{
+		byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+		int length = 0;
+		for (byte[] part : parts)
+		{
+			length += part.length;
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		for (byte[] part : parts)
+		{
+			crc.update(part);
+		}
+
+		writeFully(channel, ByteBuffer.wrap(toBytes(length)));
+		writeFully(channel, ByteBuffer.wrap(typeBytes));
+		for (byte[] part : parts)
+		{
+			writeFully(channel, ByteBuffer.wrap(part));
+		}
+		writeFully(channel, ByteBuffer.wrap(toBytes((int) crc.getValue())));
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+	}
+
+	private static byte[] toBytes(int value)
+	{
+		return ByteBuffer.allocate(4).putInt(value).array();
+	}
+
+	private record CompressedBand(byte[] data, long adler, int uncompressedLength, boolean isLast)
+	{
+	}
+}
@@ -0,0 +1,100 @@
+package nortantis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BackgroundCacheTest
+{
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void createsEachBackgroundOnce()
+	{
+		BackgroundCache cache = new BackgroundCache(null);
+		AtomicInteger createCount = new AtomicInteger();
+		BackgroundCache.Images first = cache.getImages("a", () ->
+		{
+			createCount.incrementAndGet();
+			return createImages(1);
+		});
+		BackgroundCache.Images second = cache.getImages("a", () ->
+		{
+			createCount.incrementAndGet();
+			return createImages(1);
+		});
+
+		assertSame(first, second);
+		assertEquals(1, createCount.get());
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsedBackgroundsOverBudget()
+	{
+		BackgroundCache cache = new BackgroundCache(null);
+		BackgroundCache.Images a = cache.getImages("a", () -> createImages(1));
+		BackgroundCache.Images b = cache.getImages("b", () -> createImages(2));
+		cache.getImages("a", () -> createImages(1));
+		cache.setMaxBytes(a.sizeInBytes());
+
+		assertSame(a, cache.getImages("a", () -> createImages(1)));
+		assertNotSame(b, cache.getImages("b", () -> createImages(2)));
+
+		cache.setMaxBytes(0);
+		assertNotSame(a, cache.getImages("a", () -> createImages(1)));
+	}
+
+	@Test
+	public void countsPixelsSharedBetweenImagesOnce()
+	{
+		BackgroundCache.Images images = createImages(5);
+		BackgroundCache.Images withSharedOcean = new BackgroundCache.Images(images.land(), images.borderBackground().getSubimage(2, 2, 17, 11),
+				images.borderBackground());
+
+		assertEquals(17 * 11 + 21 * 15 * 2, withSharedOcean.sizeInBytes());
+	}
+
+	@Test
+	public void readsBackgroundsStoredByAnotherCache() throws Exception
+	{
+		Path folder = temporaryFolder.getRoot().toPath();
+		BackgroundCache.Images created = new BackgroundCache(folder).getImages("a", () -> createImages(3));
+
+		BackgroundCache.Images read = new BackgroundCache(folder).getImages("a", () ->
+		{
+			throw new AssertionError("The background should have been read from disk.");
+		});
+		assertImagesEqual(created.land(), read.land());
+		assertImagesEqual(created.ocean(), read.ocean());
+		assertImagesEqual(created.borderBackground(), read.borderBackground());
+
+		BackgroundCache.Images withoutBorder = new BackgroundCache(folder).getImages("b",
+				() -> new BackgroundCache.Images(created.land(), created.ocean(), null));
+		assertNull(new BackgroundCache(folder).getImages("b", () -> createImages(4)).borderBackground());
+		assertImagesEqual(withoutBorder.land(), new BackgroundCache(folder).getImages("b", () -> createImages(4)).land());
+	}
+
+	private static BackgroundCache.Images createImages(long seed)
+	{
+		BufferedImage land = TestImages.createRandomImage(BufferedImage.TYPE_BYTE_GRAY, 17, 11, seed);
+		BufferedImage ocean = TestImages.createRandomImage(BufferedImage.TYPE_INT_RGB, 17, 11, seed + 1);
+		BufferedImage border = TestImages.createRandomImage(BufferedImage.TYPE_USHORT_GRAY, 21, 15, seed + 2);
+		return new BackgroundCache.Images(land, ocean, border);
+	}
+
+	private static void assertImagesEqual(BufferedImage expected, BufferedImage actual)
+	{
+		assertEquals(expected.getType(), actual.getType());
+		TestImages.assertPixelsEqual(expected, actual);
+	}
+}
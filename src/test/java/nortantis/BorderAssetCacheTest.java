@@ -0,0 +1,110 @@
+package nortantis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+import nortantis.util.AssetsPath;
+import nortantis.util.ImageHelper;
+
+public class BorderAssetCacheTest
+{
+	@Test
+	public void flipsAndRotationsMoveEachPixelLikeCopyingThemWithGetAndSetRGB()
+	{
+		// Border images are scaled with Scalr, which returns INT_ARGB or INT_RGB images.
+		for (int type : new int[] { BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_4BYTE_ABGR })
+		{
+			BufferedImage image = TestImages.createRandomImage(type, 13, 7, type);
+			assertFlipsAndRotationsMatch(image, BorderAssetCacheTest::copyPixelWithGetAndSetRGB);
+		}
+	}
+
+	@Test
+	public void flipsAndRotationsKeepGraySamples()
+	{
+		// Copying gray pixels through getRGB and setRGB converts them to sRGB and back, which changes some samples.
+		// The transforms move the samples unchanged instead.
+		BufferedImage image = TestImages.createRandomImage(BufferedImage.TYPE_BYTE_GRAY, 13, 7, 0);
+		assertFlipsAndRotationsMatch(image, BorderAssetCacheTest::copySamples);
+	}
+
+	@Test
+	public void createsMissingCornersAndEdgesAndCachesThem() throws Exception
+	{
+		int width = 37;
+		BufferedImage corner = ImageHelper.scaleByWidth(ImageHelper.read(AssetsPath.get("borders", "dashes", "upper_left_corner.png")), width);
+		BufferedImage edge = ImageHelper.scaleByHeight(ImageHelper.read(AssetsPath.get("borders", "dashes", "top_edge.png")), width);
+
+		BorderAssetCache.getInstance().clear();
+		BorderAssetCache.BorderSet borders = BorderAssetCache.getInstance().getBorderSet("dashes", width);
+		assertImagesEqual(corner, borders.upperLeftCorner());
+		assertImagesEqual(ImageHelper.flipOnXAxis(corner), borders.upperRightCorner());
+		assertImagesEqual(ImageHelper.flipOnYAxis(corner), borders.lowerLeftCorner());
+		assertImagesEqual(ImageHelper.flipOnXAxis(ImageHelper.flipOnYAxis(corner)), borders.lowerRightCorner());
+		assertImagesEqual(edge, borders.topEdge());
+		assertImagesEqual(ImageHelper.flipOnYAxis(edge), borders.bottomEdge());
+		assertImagesEqual(ImageHelper.rotate90Degrees(edge, false), borders.leftEdge());
+		assertImagesEqual(ImageHelper.rotate90Degrees(edge, true), borders.rightEdge());
+
+		assertSame(borders, BorderAssetCache.getInstance().getBorderSet("dashes", width));
+	}
+
+	private static void assertFlipsAndRotationsMatch(BufferedImage image, PixelCopier copier)
+	{
+		assertImagesEqual(copyPixels(image, image.getWidth(), image.getHeight(), (x, y) -> new int[] { image.getWidth() - x - 1, y }, copier),
+				ImageHelper.flipOnXAxis(image));
+		assertImagesEqual(copyPixels(image, image.getWidth(), image.getHeight(), (x, y) -> new int[] { x, image.getHeight() - y - 1 }, copier),
+				ImageHelper.flipOnYAxis(image));
+		assertImagesEqual(copyPixels(image, image.getHeight(), image.getWidth(),
+				(x, y) -> new int[] { image.getHeight() - y - 1, image.getWidth() - x - 1 }, copier), ImageHelper.rotate90Degrees(image, true));
+		assertImagesEqual(copyPixels(image, image.getHeight(), image.getWidth(), (x, y) -> new int[] { y, x }, copier),
+				ImageHelper.rotate90Degrees(image, false));
+	}
+
+	private interface PixelMapping
+	{
+		int[] map(int x, int y);
+	}
+
+	private interface PixelCopier
+	{
+		void copy(BufferedImage from, int fromX, int fromY, BufferedImage to, int toX, int toY);
+	}
+
+	/**
+	 * How the flips and rotations used to copy each pixel.
+	 */
+	private static void copyPixelWithGetAndSetRGB(BufferedImage from, int fromX, int fromY, BufferedImage to, int toX, int toY)
+	{
+		to.setRGB(toX, toY, from.getRGB(fromX, fromY));
+	}
+
+	private static void copySamples(BufferedImage from, int fromX, int fromY, BufferedImage to, int toX, int toY)
+	{
+		to.getRaster().setPixel(toX, toY, from.getRaster().getPixel(fromX, fromY, (int[]) null));
+	}
+
+	private static BufferedImage copyPixels(BufferedImage image, int resultWidth, int resultHeight, PixelMapping mapping, PixelCopier copier)
+	{
+		BufferedImage result = new BufferedImage(resultWidth, resultHeight, image.getType());
+		for (int y = 0; y < image.getHeight(); y++)
+		{
+			for (int x = 0; x < image.getWidth(); x++)
+			{
+				int[] to = mapping.map(x, y);
+				copier.copy(image, x, y, result, to[0], to[1]);
+			}
+		}
+		return result;
+	}
+
+	private static void assertImagesEqual(BufferedImage expected, BufferedImage actual)
+	{
+		assertEquals(expected.getType(), actual.getType());
+		TestImages.assertPixelsEqual(expected, actual);
+	}
+}
@@ -0,0 +1,79 @@
+package nortantis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import hoten.voronoi.Center;
+
+public class CenterGroupFinderTest
+{
+	/**
+	 * Creates centers in a line, where each center's neighbors are the centers before and after it.
+	 */
+	private static List<Center> createLine(int length)
+	{
+		List<Center> centers = new ArrayList<>();
+		for (int i = 0; i < length; i++)
+		{
+			Center c = new Center();
+			c.index = i;
+			centers.add(c);
+		}
+		for (int i = 0; i < length; i++)
+		{
+			if (i > 0)
+			{
+				centers.get(i).neighbors.add(centers.get(i - 1));
+			}
+			if (i < length - 1)
+			{
+				centers.get(i).neighbors.add(centers.get(i + 1));
+			}
+		}
+		return centers;
+	}
+
+	private static List<List<Integer>> toIndexes(List<Set<Center>> groups)
+	{
+		return groups.stream().map(group -> group.stream().map(c -> c.index).collect(Collectors.toList())).collect(Collectors.toList());
+	}
+
+	@Test
+	public void gapsUpToMaxGapSizeJoinGroups()
+	{
+		List<Center> centers = createLine(12);
+		// Accepted: 0, 1, then a gap of 2, then 4, then a gap of 3, then 8, 9, then a gap of 1, then 11.
+		Set<Integer> accepted = Set.of(0, 1, 4, 8, 9, 11);
+		CenterGroupFinder finder = new CenterGroupFinder(centers);
+
+		List<Set<Center>> groups = finder.findGroups(2, c -> accepted.contains(c.index));
+
+		assertEquals(List.of(List.of(0, 1, 4), List.of(8, 9, 11)), toIndexes(groups));
+		assertTrue(groups.get(0).contains(centers.get(4)));
+		assertTrue(!groups.get(0).contains(centers.get(2)));
+	}
+
+	@Test
+	public void severalPredicatesAreGroupedSeparatelyAndCached()
+	{
+		List<Center> centers = createLine(6);
+		CenterGroupFinder finder = new CenterGroupFinder(centers);
+		List<Predicate<Center>> predicates = List.of(c -> c.index % 2 == 0, c -> c.index == 0 || c.index == 5);
+
+		List<List<Set<Center>>> groups = finder.findGroups(0, predicates);
+
+		assertEquals(List.of(List.of(0), List.of(2), List.of(4)), toIndexes(groups.get(0)));
+		assertEquals(List.of(List.of(0), List.of(5)), toIndexes(groups.get(1)));
+		// The same accepted centers give the cached groups.
+		assertSame(groups.get(1), finder.findGroups(0, c -> c.index == 0 || c.index == 5));
+	}
+}
@@ -0,0 +1,50 @@
+package nortantis;
+
+import static nortantis.TestImages.assertPixelsEqual;
+import static nortantis.TestImages.createRandomImage;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import hoten.geom.Point;
+
+public class IconDrawerTest
+{
+	@Test
+	public void drawingInBandsMatchesDrawingIconsOneAtATime()
+	{
+		// Not a multiple of the band height, so the last band is partial.
+		int width = 150;
+		int height = 211;
+		Random rand = new Random(0);
+		List<IconDrawTask> tasks = new ArrayList<>();
+		for (int i = 0; i < 60; i++)
+		{
+			int iconWidth = 5 + rand.nextInt(60);
+			int iconHeight = 5 + rand.nextInt(90);
+			BufferedImage icon = createRandomImage(BufferedImage.TYPE_INT_ARGB, iconWidth, iconHeight, i);
+			BufferedImage mask = createRandomImage(BufferedImage.TYPE_BYTE_GRAY, iconWidth, iconHeight, i + 1000);
+			// Some icons hang off the edges of the map.
+			Point center = new Point(rand.nextInt(width + 40) - 20, rand.nextInt(height + 40) - 20);
+			tasks.add(new IconDrawTask(icon, mask, center, iconWidth, false, true));
+		}
+		tasks.sort(null);
+		BufferedImage background = createRandomImage(BufferedImage.TYPE_INT_RGB, width, height, 1);
+
+		BufferedImage expected = createRandomImage(BufferedImage.TYPE_INT_RGB, width, height, 2);
+		for (IconDrawTask task : tasks)
+		{
+			IconDrawer.drawIconWithBackgroundAndMask(expected, task.icon, task.mask, background, (int) task.centerLoc.x,
+					(int) task.centerLoc.y, 0, height);
+		}
+
+		BufferedImage actual = createRandomImage(BufferedImage.TYPE_INT_RGB, width, height, 2);
+		IconDrawer.drawIcons(tasks, actual, background);
+
+		assertPixelsEqual(expected, actual);
+	}
+}
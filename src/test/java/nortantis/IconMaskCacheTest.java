@@ -0,0 +1,113 @@
+package nortantis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class IconMaskCacheTest
+{
+	// The magic number, version, width, and height.
+	private static final int headerSize = 16;
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private BufferedImage icon;
+	private Path iconPath;
+	private Path masksFolder;
+
+	@Before
+	public void createIcon() throws IOException
+	{
+		icon = new BufferedImage(37, 29, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = icon.createGraphics();
+		g.setColor(Color.black);
+		g.fillOval(3, 2, 30, 25);
+		iconPath = temporaryFolder.getRoot().toPath().resolve("icon.png");
+		ImageIO.write(icon, "png", iconPath.toFile());
+		masksFolder = temporaryFolder.getRoot().toPath().resolve("masks");
+	}
+
+	@Test
+	public void storesTheCreatedMask() throws IOException
+	{
+		IconMaskCache cache = new IconMaskCache(masksFolder);
+
+		assertArrayEquals(pixels(IconDrawer.createMask(icon)), pixels(cache.getMask(iconPath, icon)));
+		assertEquals(1, cache.precompute(List.of(iconPath)));
+		assertEquals(1, Files.readAllLines(masksFolder.resolve("manifest.tsv")).size());
+	}
+
+	@Test
+	public void readsTheStoredMask() throws IOException
+	{
+		new IconMaskCache(masksFolder).getMask(iconPath, icon);
+		// Change the stored pixels so that a mask read from the file differs from one createMask would make.
+		Path maskPath = findMaskFile();
+		byte[] bytes = Files.readAllBytes(maskPath);
+		for (int i = headerSize; i < bytes.length; i++)
+		{
+			bytes[i] = (byte) ~bytes[i];
+		}
+		Files.write(maskPath, bytes);
+
+		BufferedImage read = new IconMaskCache(masksFolder).getMask(iconPath, icon);
+		assertArrayEquals(Arrays.copyOfRange(bytes, headerSize, bytes.length), pixels(read));
+		assertFalse(Arrays.equals(pixels(IconDrawer.createMask(icon)), pixels(read)));
+	}
+
+	@Test
+	public void recreatesMasksForIconsOfADifferentSize() throws IOException
+	{
+		new IconMaskCache(masksFolder).getMask(iconPath, icon);
+		Path maskPath = findMaskFile();
+		byte[] bytes = Files.readAllBytes(maskPath);
+		// Set the stored width to one that would need a huge image.
+		bytes[8] = 0x7f;
+		Files.write(maskPath, bytes);
+
+		assertArrayEquals(pixels(IconDrawer.createMask(icon)), pixels(new IconMaskCache(masksFolder).getMask(iconPath, icon)));
+	}
+
+	@Test
+	public void recreatesTruncatedMasks() throws IOException
+	{
+		new IconMaskCache(masksFolder).getMask(iconPath, icon);
+		Path maskPath = findMaskFile();
+		byte[] bytes = Files.readAllBytes(maskPath);
+		Files.write(maskPath, Arrays.copyOf(bytes, bytes.length - 1));
+
+		assertArrayEquals(pixels(IconDrawer.createMask(icon)), pixels(new IconMaskCache(masksFolder).getMask(iconPath, icon)));
+		assertEquals(bytes.length, Files.size(maskPath));
+	}
+
+	private Path findMaskFile() throws IOException
+	{
+		try (var files = Files.list(masksFolder))
+		{
+			return files.filter(path -> path.toString().endsWith(".mask")).findFirst().orElseThrow();
+		}
+	}
+
+	private static byte[] pixels(BufferedImage mask)
+	{
+		return ((DataBufferByte) mask.getRaster().getDataBuffer()).getData();
+	}
+}
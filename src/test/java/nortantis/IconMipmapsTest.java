@@ -0,0 +1,56 @@
+package nortantis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+public class IconMipmapsTest
+{
+	@Test
+	public void sizeBucketsStayCloseToRequestedWidth()
+	{
+		int previous = 0;
+		for (int width = 1; width < 2000; width++)
+		{
+			int bucket = IconMipmaps.toSizeBucket(width);
+			assertTrue(bucket >= previous);
+			assertTrue("Width " + width + " went to bucket " + bucket, Math.abs(bucket - width) <= Math.max(1, width * 0.025));
+			previous = bucket;
+		}
+	}
+
+	@Test
+	public void scaledIconKeepsAspectRatioAndColor()
+	{
+		BufferedImage icon = new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = icon.createGraphics();
+		g.setColor(new Color(200, 40, 10));
+		g.fillRect(50, 25, 100, 50);
+
+		BufferedImage scaled = new IconMipmaps(icon).scaleByWidth(37);
+		assertEquals(37, scaled.getWidth());
+		assertEquals(18, scaled.getHeight());
+		// Transparent pixels around the rectangle must not darken it.
+		assertEquals(new Color(200, 40, 10).getRGB(), scaled.getRGB(18, 9));
+		assertEquals(0, scaled.getRGB(0, 0) >>> 24);
+	}
+
+	@Test
+	public void scaledMaskStaysBinary()
+	{
+		BufferedImage mask = new BufferedImage(64, 64, BufferedImage.TYPE_BYTE_BINARY);
+		Graphics2D g = mask.createGraphics();
+		g.setColor(Color.white);
+		g.fillRect(16, 16, 32, 32);
+
+		BufferedImage scaled = new IconMipmaps(mask).scaleByWidth(20);
+		assertEquals(BufferedImage.TYPE_BYTE_BINARY, scaled.getType());
+		assertEquals(1, scaled.getRaster().getSample(10, 10, 0));
+		assertEquals(0, scaled.getRaster().getSample(1, 1, 0));
+	}
+}
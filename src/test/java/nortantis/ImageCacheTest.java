@@ -0,0 +1,90 @@
+package nortantis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ImageCacheTest
+{
+	@After
+	public void resetCache()
+	{
+		ImageCache.getInstance().setMaxBytes(Runtime.getRuntime().maxMemory() / 4);
+		ImageCache.clear();
+	}
+
+	@Test
+	public void leastRecentlyUsedImagesAreEvictedWhenOverBudget()
+	{
+		ImageCache cache = ImageCache.getInstance();
+		ImageCache.clear();
+		// Each 100 x 100 TYPE_INT_RGB image is 40,000 bytes.
+		cache.setMaxBytes(100_000);
+		long evictionsBefore = cache.getStats().evictions();
+
+		BufferedImage first = cache.getOrCreateImage("first", () -> new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB));
+		cache.getOrCreateImage("second", () -> new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB));
+		// Use the first image so that the second is the least recently used.
+		assertSame(first, cache.getOrCreateImage("first", () -> null));
+		cache.getOrCreateImage("third", () -> new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB));
+
+		assertEquals(evictionsBefore + 1, cache.getStats().evictions());
+		assertEquals(2, cache.getStats().entries());
+		assertEquals(80_000, cache.getStats().bytes());
+		assertSame(first, cache.getOrCreateImage("first", () -> null));
+	}
+
+	@Test
+	public void concurrentRequestsForOneKeyCreateItOnce() throws Exception
+	{
+		ImageCache cache = ImageCache.getInstance();
+		AtomicInteger createCount = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[8];
+		for (int i = 0; i < futures.length; i++)
+		{
+			futures[i] = CompletableFuture.runAsync(() ->
+			{
+				try
+				{
+					start.await();
+				}
+				catch (InterruptedException e)
+				{
+					throw new RuntimeException(e);
+				}
+				cache.getOrCreateImage("shared", () ->
+				{
+					createCount.incrementAndGet();
+					sleep();
+					return new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+				});
+			});
+		}
+		start.countDown();
+		CompletableFuture.allOf(futures).get();
+
+		assertEquals(1, createCount.get());
+		assertTrue(cache.getStats().hits() >= futures.length - 1);
+	}
+
+	private static void sleep()
+	{
+		try
+		{
+			Thread.sleep(100);
+		}
+		catch (InterruptedException e)
+		{
+			throw new RuntimeException(e);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package nortantis;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Compares a rendered image against an expected one. Two measures are computed: the fraction of pixels where any
+ * channel differs by more than a tolerance, and the mean CIE76 color difference (delta E in L*a*b* space) over all
+ * pixels, which tracks how different the images look rather than how many bits changed.
+ */
+class ImageComparison
+{
+	final double differingPixelFraction;
+	final double meanDeltaE;
+	final double maxDeltaE;
+	final BufferedImage diffImage;
+
+	private ImageComparison(double differingPixelFraction, double meanDeltaE, double maxDeltaE, BufferedImage diffImage)
+	{
+		this.differingPixelFraction = differingPixelFraction;
+		this.meanDeltaE = meanDeltaE;
+		this.maxDeltaE = maxDeltaE;
+		this.diffImage = diffImage;
+	}
+
+	/**
+	 * @param channelTolerance
+	 *            Pixels whose red, green, and blue values all differ by at most this much are considered equal.
+	 * @return The comparison. The diff image shows the expected image faded to gray, with differing pixels in red.
+	 */
+	static ImageComparison compare(BufferedImage expected, BufferedImage actual, int channelTolerance)
+	{
+		if (expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight())
+		{
+			throw new IllegalArgumentException("Image sizes differ. Expected " + expected.getWidth() + " x " + expected.getHeight()
+					+ " but was " + actual.getWidth() + " x " + actual.getHeight() + ".");
+		}
+
+		int width = expected.getWidth();
+		int height = expected.getHeight();
+		BufferedImage diff = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		long differing = 0;
+		double sumDeltaE = 0;
+		double maxDeltaE = 0;
+		for (int y = 0; y < height; y++)
+		{
+			for (int x = 0; x < width; x++)
+			{
+				int e = expected.getRGB(x, y);
+				int a = actual.getRGB(x, y);
+				boolean isDifferent = Math.abs(((e >> 16) & 0xff) - ((a >> 16) & 0xff)) > channelTolerance
+						|| Math.abs(((e >> 8) & 0xff) - ((a >> 8) & 0xff)) > channelTolerance
+						|| Math.abs((e & 0xff) - (a & 0xff)) > channelTolerance;
+
+				double deltaE = deltaE(e, a);
+				sumDeltaE += deltaE;
+				maxDeltaE = Math.max(maxDeltaE, deltaE);
+
+				if (isDifferent)
+				{
+					differing++;
+					diff.setRGB(x, y, 0xff0000);
+				}
+				else
+				{
+					int gray = (((e >> 16) & 0xff) + ((e >> 8) & 0xff) + (e & 0xff)) / 3;
+					gray = 128 + gray / 2;
+					diff.setRGB(x, y, (gray << 16) | (gray << 8) | gray);
+				}
+			}
+		}
+
+		long pixels = (long) width * height;
+		return new ImageComparison(differing / (double) pixels, sumDeltaE / pixels, maxDeltaE, diff);
+	}
+
+	private static double deltaE(int rgb1, int rgb2)
+	{
+		if ((rgb1 & 0xffffff) == (rgb2 & 0xffffff))
+		{
+			return 0;
+		}
+		double[] lab1 = toLab(rgb1);
+		double[] lab2 = toLab(rgb2);
+		double dL = lab1[0] - lab2[0];
+		double dA = lab1[1] - lab2[1];
+		double dB = lab1[2] - lab2[2];
+		return Math.sqrt(dL * dL + dA * dA + dB * dB);
+	}
+
+	private static double[] toLab(int rgb)
+	{
+		double r = toLinear((rgb >> 16) & 0xff);
+		double g = toLinear((rgb >> 8) & 0xff);
+		double b = toLinear(rgb & 0xff);
+
+		// sRGB to XYZ, normalized by the D65 white point.
+		double x = (0.4124 * r + 0.3576 * g + 0.1805 * b) / 0.95047;
+		double y = 0.2126 * r + 0.7152 * g + 0.0722 * b;
+		double z = (0.0193 * r + 0.1192 * g + 0.9505 * b) / 1.08883;
+
+		double fx = labF(x);
+		double fy = labF(y);
+		double fz = labF(z);
+		return new double[] { 116 * fy - 16, 500 * (fx - fy), 200 * (fy - fz) };
+	}
+
+	private static double toLinear(int channel)
+	{
+		double c = channel / 255.0;
+		return c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+	}
+
+	private static double labF(double t)
+	{
+		return t > 216.0 / 24389.0 ? Math.cbrt(t) : (24389.0 / 27.0 * t + 16) / 116;
+	}
+}
@@ -0,0 +1,75 @@
+package nortantis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Ellipse2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LabelCollisionIndexTest
+{
+	@Test
+	public void touchingRectanglesDoNotOverlap()
+	{
+		LabelCollisionIndex index = new LabelCollisionIndex(200, 200, 32);
+		index.add(new Area(new Rectangle(10, 10, 50, 20)));
+
+		assertFalse(index.overlaps(new Area(new Rectangle(60, 10, 50, 20))));
+		assertTrue(index.overlaps(new Area(new Rectangle(59, 10, 50, 20))));
+	}
+
+	@Test
+	public void matchesAreaIntersectionForRotatedRectanglesAndOtherShapes()
+	{
+		Random rand = new Random(7);
+		List<Area> added = new ArrayList<>();
+		LabelCollisionIndex index = new LabelCollisionIndex(500, 500, 40);
+		for (int i = 0; i < 60; i++)
+		{
+			Area area = randomArea(rand);
+			added.add(area);
+			index.add(area);
+		}
+
+		for (int i = 0; i < 500; i++)
+		{
+			Area query = randomArea(rand);
+			boolean expected = false;
+			for (Area a : added)
+			{
+				Area copy = new Area(a);
+				copy.intersect(query);
+				if (!copy.isEmpty())
+				{
+					expected = true;
+					break;
+				}
+			}
+			assertEquals(expected, index.overlaps(query));
+		}
+	}
+
+	private static Area randomArea(Random rand)
+	{
+		int x = rand.nextInt(520) - 10;
+		int y = rand.nextInt(520) - 10;
+		if (rand.nextInt(10) == 0)
+		{
+			return new Area(new Ellipse2D.Double(x, y, 5 + rand.nextInt(30), 5 + rand.nextInt(30)));
+		}
+		Area area = new Area(new Rectangle(x, y, 5 + rand.nextInt(80), 5 + rand.nextInt(20)));
+		if (rand.nextBoolean())
+		{
+			area = area.createTransformedArea(AffineTransform.getRotateInstance(rand.nextDouble() - 0.5, x, y));
+		}
+		return area;
+	}
+}
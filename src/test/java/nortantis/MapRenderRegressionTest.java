@@ -0,0 +1,99 @@
+package nortantis;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import nortantis.json.SettingsMapper;
+import nortantis.util.ImageHelper;
+import nortantis.util.Logger;
+
+/**
+ * Renders each settings file in the project root at a small size and compares the result with a golden image in
+ * src/test/resources/golden. On failure the rendered image and a diff image are written to target/render-regression.
+ * The time taken by each stage of every render is written there too, so speed regressions show up next to
+ * correctness regressions.
+ *
+ * To create or update the golden images after an intended change in output, run the tests with
+ * -Dnortantis.updateGoldenImages=true.
+ */
+@RunWith(Parameterized.class)
+public class MapRenderRegressionTest
+{
+	private static final Path goldenFolder = Paths.get("src", "test", "resources", "golden");
+	private static final Path outputFolder = Paths.get("target", "render-regression");
+	private static final Dimension renderSize = new Dimension(384, 384);
+
+	private static final int channelTolerance = 8;
+	// Allows small differences such as in font rasterization between platforms.
+	private static final double maxDifferingPixelFraction = 0.01;
+	private static final double maxMeanDeltaE = 0.5;
+
+	private final String settingsFile;
+
+	@Parameters
+	public static Collection<Object[]> settingsFiles()
+	{
+		return Arrays.asList(new Object[][] { { "old_paper.json" }, { "gray_ocean.json" }, { "islands.json" }, { "lava.json" },
+				{ "lava2.json" }, { "ice.json" } });
+	}
+
+	public MapRenderRegressionTest(String settingsFile)
+	{
+		this.settingsFile = settingsFile;
+	}
+
+	@Test
+	public void renderMatchesGoldenImage() throws IOException
+	{
+		String name = settingsFile.replace(".json", "");
+		MapSettings settings = SettingsMapper.readSettings(Paths.get(settingsFile));
+		ImageCache.clear();
+
+		MapCreator creator = new MapCreator();
+		BufferedImage actual = creator.createMap(settings, renderSize, null);
+
+		Files.createDirectories(outputFolder);
+		creator.getRenderMetrics().writeJson(outputFolder.resolve(name + " metrics.json"));
+		Logger.println(String.format("Rendered %s in %.2f seconds.", settingsFile, creator.getRenderMetrics().getTotalWallTimeSeconds()));
+
+		Path goldenPath = goldenFolder.resolve(name + ".png");
+		if (Boolean.getBoolean("nortantis.updateGoldenImages"))
+		{
+			Files.createDirectories(goldenFolder);
+			ImageHelper.write(actual, goldenPath.toString());
+			return;
+		}
+
+		if (!Files.exists(goldenPath))
+		{
+			ImageHelper.write(actual, outputFolder.resolve(name + " actual.png").toString());
+			fail("No golden image at " + goldenPath + ". Run with -Dnortantis.updateGoldenImages=true to create it.");
+		}
+
+		BufferedImage expected = ImageHelper.read(goldenPath);
+		ImageComparison comparison = ImageComparison.compare(expected, actual, channelTolerance);
+		boolean isMatch = comparison.differingPixelFraction <= maxDifferingPixelFraction && comparison.meanDeltaE <= maxMeanDeltaE;
+		if (!isMatch)
+		{
+			ImageHelper.write(actual, outputFolder.resolve(name + " actual.png").toString());
+			ImageHelper.write(comparison.diffImage, outputFolder.resolve(name + " diff.png").toString());
+		}
+		assertTrue(String.format("%s differs from its golden image: %.3f%% of pixels differ, mean delta E %.3f, max delta E %.1f."
+				+ " See %s.", settingsFile, comparison.differingPixelFraction * 100, comparison.meanDeltaE, comparison.maxDeltaE,
+				outputFolder), isMatch);
+	}
+}
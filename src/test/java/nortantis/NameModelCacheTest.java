@@ -0,0 +1,22 @@
+package nortantis;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class NameModelCacheTest
+{
+	@Test
+	public void sameBooksInAnyOrderShareModels()
+	{
+		String book1 = "The Alembic Plot A Terran Empire novel";
+		String book2 = "The Underground City, or, the Child of the Cavern";
+		NameModelCache.NameModels models = NameModelCache.getInstance().getModels(List.of(book1, book2));
+
+		assertSame(models, NameModelCache.getInstance().getModels(List.of(book2, book1)));
+		assertTrue(models.averagePlaceNameLength() > 0);
+	}
+}
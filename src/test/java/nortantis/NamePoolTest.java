@@ -0,0 +1,61 @@
+package nortantis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import nortantis.nlp.CompiledNGramModel;
+import nortantis.util.AssetsPath;
+
+public class NamePoolTest
+{
+	@Test
+	public void givesUniqueNamesInTheSameOrderAsTheGenerator() throws IOException
+	{
+		List<String> names = Files.readAllLines(
+				AssetsPath.get("books").resolve("The Alembic Plot A Terran Empire novel_place_names.txt"), StandardCharsets.UTF_8);
+		CompiledNGramModel model = NameGenerator.train(names);
+		double averageLength = NameGenerator.findAverageWordLength(names);
+
+		// A small batch size makes the pool cross several batches.
+		NamePool pool = new NamePool(new NameGenerator(new Random(5), model, averageLength, 2.0, 0.0, 0.0, 0.3), 7);
+		NameGenerator generator = new NameGenerator(new Random(5), model, averageLength, 2.0, 0.0, 0.0, 0.3);
+		var expected = new ArrayList<String>();
+		var seen = new HashSet<String>();
+		while (expected.size() < 100)
+		{
+			String name = generator.generateName();
+			if (seen.add(name))
+			{
+				expected.add(name);
+			}
+		}
+
+		var actual = new ArrayList<String>();
+		for (int i = 0; i < 100; i++)
+		{
+			actual.add(pool.next());
+		}
+		assertEquals(expected, actual);
+	}
+
+	@Test(expected = NotEnoughNamesException.class)
+	public void throwsWhenTheGeneratorRunsOutOfNewNames()
+	{
+		CompiledNGramModel model = NameGenerator.train(List.of("ab", "ba"));
+		NamePool pool = new NamePool(new NameGenerator(new Random(1), model, 2.0, 2.0, 1.0, 1.0, 1.0), 4);
+		for (int i = 0; i < 1000; i++)
+		{
+			assertTrue(pool.next().length() > 1);
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package nortantis;
+
+import static java.util.stream.Collectors.joining;
+import static nortantis.NameTemplateGrammar.literal;
+import static nortantis.NameTemplateGrammar.symbol;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import nortantis.NameTemplateGrammar.Symbol;
+import nortantis.nlp.MarkovChain;
+
+public class NameTemplateGrammarTest
+{
+	@Test
+	public void givesSameNamesAsMarkovChain()
+	{
+		// The symbols draw from the same random number generator as the grammar, as name generators do.
+		Random chainRandom = new Random(7);
+		Supplier<String> chainName = () -> "name" + chainRandom.nextInt(100);
+		Supplier<String> land = () -> "The Land of";
+		var chain = new MarkovChain<Supplier<String>>();
+		chain.addAll(Stream.of(land, chainName::get), 3);
+		chain.addAll(Stream.of(land, () -> "x", chainName::get), 7);
+		chain.addAll(Stream.of(() -> "Empire of", chainName::get), 2);
+		chain.addAll(Stream.of(chainName::get), 85);
+
+		Random grammarRandom = new Random(7);
+		var theLandOf = literal("The Land of");
+		NameTemplateGrammar grammar = new NameTemplateGrammar.Builder(" ")
+				.add(3, theLandOf, symbol(Symbol.PlaceName))
+				.add(7, theLandOf, literal("x"), symbol(Symbol.PlaceName))
+				.add(2, literal("Empire of"), symbol(Symbol.PlaceName))
+				.add(85, symbol(Symbol.PlaceName))
+				.build();
+
+		for (int i = 0; i < 1000; i++)
+		{
+			String expected = chain.randomWalk(chainRandom).map(Supplier::get).collect(joining(" "));
+			String actual = grammar.generate(grammarRandom, (symbol, name) -> name.append("name" + grammarRandom.nextInt(100)));
+			assertEquals(expected, actual);
+		}
+	}
+}
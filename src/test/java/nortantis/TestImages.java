@@ -0,0 +1,69 @@
+package nortantis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.util.Random;
+
+/**
+ * Creates test images and checks that images have the same pixels.
+ */
+public class TestImages
+{
+	/**
+	 * Creates an image where each pixel is either random noise or part of a smooth gradient, chosen at random, so that
+	 * code with different paths for flat and noisy areas, such as PNG filters, sees both.
+	 *
+	 * @param type A BufferedImage type with one sample per band, such as TYPE_INT_RGB, TYPE_BYTE_GRAY, or
+	 *        TYPE_USHORT_GRAY.
+	 * @param seed The same seed always gives the same image.
+	 */
+	public static BufferedImage createRandomImage(int type, int width, int height, long seed)
+	{
+		BufferedImage image = new BufferedImage(width, height, type);
+		WritableRaster raster = image.getRaster();
+		Random rand = new Random(seed);
+		int[] samples = new int[raster.getNumBands()];
+		for (int y = 0; y < height; y++)
+		{
+			for (int x = 0; x < width; x++)
+			{
+				boolean isNoise = rand.nextBoolean();
+				for (int band = 0; band < samples.length; band++)
+				{
+					int maxSample = (1 << raster.getSampleModel().getSampleSize(band)) - 1;
+					samples[band] = isNoise ? rand.nextInt(maxSample + 1) : (x * 3 + y * 2 + band * 50) & maxSample;
+				}
+				raster.setPixel(x, y, samples);
+			}
+		}
+		return image;
+	}
+
+	/**
+	 * Asserts that two images are the same size and have the same pixels. Images with the same color model are compared
+	 * sample by sample. Others, such as an image and a copy of it read back from a PNG, are compared by their ARGB
+	 * colors.
+	 */
+	public static void assertPixelsEqual(BufferedImage expected, BufferedImage actual)
+	{
+		assertEquals("Width", expected.getWidth(), actual.getWidth());
+		assertEquals("Height", expected.getHeight(), actual.getHeight());
+		boolean compareSamples = expected.getColorModel().equals(actual.getColorModel());
+		for (int y = 0; y < expected.getHeight(); y++)
+		{
+			if (compareSamples)
+			{
+				assertArrayEquals("Row " + y, expected.getRaster().getPixels(0, y, expected.getWidth(), 1, (int[]) null),
+						actual.getRaster().getPixels(0, y, actual.getWidth(), 1, (int[]) null));
+			}
+			else
+			{
+				assertArrayEquals("Row " + y, expected.getRGB(0, y, expected.getWidth(), 1, null, 0, expected.getWidth()),
+						actual.getRGB(0, y, actual.getWidth(), 1, null, 0, actual.getWidth()));
+			}
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package nortantis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import nortantis.util.AssetsPath;
+
+public class WordDictionaryTest
+{
+	@Test
+	public void containsTheSameWordsAsTheRegexParsedSet() throws IOException
+	{
+		// Parses the dictionary the way NameCompiler did before it used WordDictionary.
+		List<String> lines = Files.readAllLines(AssetsPath.get("internal", "en_GB.dic"), StandardCharsets.UTF_8);
+		Set<String> expected = new TreeSet<>();
+		for (String line : lines)
+		{
+			String[] parts = line.split("[\\s0-9/]");
+			if (parts.length == 0)
+				continue;
+			expected.add(parts[0].trim());
+		}
+
+		WordDictionary dict = WordDictionary.getInstance();
+		assertEquals(expected.size(), dict.size());
+		for (String word : expected)
+		{
+			assertTrue(word, dict.contains(word));
+			assertFalse(word + "zq", dict.contains(word + "zq"));
+		}
+		assertFalse(dict.contains("qqqqq"));
+	}
+}
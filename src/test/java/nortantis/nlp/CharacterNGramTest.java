@@ -0,0 +1,64 @@
+package nortantis.nlp;
+
+import nortantis.util.AssetsPath;
+import nortantis.util.Counter;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+
+public class CharacterNGramTest {
+    private static final char startToken = 0;
+    private static final char endToken = 4;
+
+    @Test
+    public void compiledModelGivesSameNamesAsCounterSampling() throws IOException {
+        var names = Files.readAllLines(AssetsPath.get("books").resolve("The Alembic Plot A Terran Empire novel_place_names.txt"),
+                StandardCharsets.UTF_8).stream().map(String::toLowerCase).collect(Collectors.toList());
+
+        var nGram = new CharacterNGram(new Random(42), 3);
+        nGram.addData(names);
+
+        // Trains and samples the same way CharacterNGram did before it compiled its model.
+        var model = new HashMap<List<Character>, Counter<Character>>();
+        for (var name : names) {
+            for (int i = 0; i <= name.length(); i++) {
+                var lastChars = new ArrayList<Character>(2);
+                for (int j = i - 2; j < i; j++) {
+                    lastChars.add(j < 0 ? startToken : name.charAt(j));
+                }
+                model.computeIfAbsent(lastChars, x -> new Counter<>()).add(i < name.length() ? name.charAt(i) : endToken);
+            }
+        }
+        var corpus = new HashSet<>(names);
+        var r = new Random(42);
+
+        for (int i = 0; i < 200; i++) {
+            String expected = null;
+            for (int attempt = 0; attempt < 20 && expected == null; attempt++) {
+                var name = generateWithCounters(model, r);
+                if (name.length() > 1 && !corpus.contains(name)) {
+                    expected = name;
+                }
+            }
+            assertEquals(expected, nGram.generateNameNotInCorpora());
+        }
+    }
+
+    private static String generateWithCounters(Map<List<Character>, Counter<Character>> model, Random r) {
+        var lastChars = new ArrayList<>(List.of(startToken, startToken));
+        var result = new StringBuilder();
+        char next;
+        while ((next = model.get(lastChars).random(r)) != endToken) {
+            result.append(next);
+            lastChars.remove(0);
+            lastChars.add(next);
+        }
+        return result.toString();
+    }
+}
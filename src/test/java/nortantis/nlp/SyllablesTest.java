@@ -1,9 +1,22 @@
 package nortantis.nlp;
 
+import nortantis.util.AssetsPath;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static java.util.regex.Pattern.CASE_INSENSITIVE;
+import static java.util.regex.Pattern.compile;
 import static nortantis.nlp.Syllables.syllables;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
 
 public class SyllablesTest {
     @Test
@@ -60,4 +73,62 @@ public class SyllablesTest {
         var actual = syllables("kaltglon").toArray(String[]::new);
         assertArrayEquals(expected, actual);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSameSyllablesAsRegexesForWordLists() throws IOException {
+        try (Stream<Path> files = Files.list(AssetsPath.get("wordlists"))) {
+            for (var file : (Iterable<Path>) files::iterator) {
+                for (var line : Files.readAllLines(file, StandardCharsets.ISO_8859_1)) {
+                    assertSameSyllablesAsRegexes(line);
+                    assertSameSyllablesAsRegexes(line.toUpperCase());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSameSyllablesAsRegexesForRandomWords() {
+        var letters = "aeiouAEIOUbcdfghjklmnpqrstvwxyzBCDFGHJKLMNPQRSTVWXYZtchTCH09_";
+        var r = new Random(11);
+        for (int i = 0; i < 100000; i++) {
+            var word = new StringBuilder();
+            int length = r.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                word.append(letters.charAt(r.nextInt(letters.length())));
+            }
+            assertSameSyllablesAsRegexes(word.toString());
+        }
+    }
+
+    private static void assertSameSyllablesAsRegexes(String word) {
+        String[] expected;
+        try {
+            expected = syllablesFromRegexes(word);
+        } catch (IndexOutOfBoundsException e) {
+            // The regexes fail on words with characters other than letters, digits, and underscores.
+            try {
+                syllables(word).toArray();
+                fail("Expected '" + word + "' to be rejected.");
+            } catch (IllegalArgumentException expectedException) {
+                return;
+            }
+            return;
+        }
+        assertArrayEquals(word, expected, syllables(word).toArray(String[]::new));
+    }
+
+    // The regexes Syllables used before it scanned words itself.
+    private static final Pattern splitter = compile("-+", CASE_INSENSITIVE);
+    private static final List<Pattern> patterns = List.of(
+            compile("\\W+", CASE_INSENSITIVE),
+            compile("(?=[aeiou](?:tch|ch|ph|sh|th|wh|zh|[a-z&&[^aeiou]])[aeiou])([aeiou])(tch|ch|ph|sh|th|wh|zh|[a-z&&[^aeiou]])", CASE_INSENSITIVE),
+            compile("(?=[aeiou][a-z&&[^aeiou]][a-z&&[^aeiou]][aeiou])([aeiou][a-z&&[^aeiou]])([a-z&&[^aeiou]])", CASE_INSENSITIVE),
+            compile("(?=[aeiou][a-z&&[^aeiou]]{3}[aeiou])([aeiou](?:tch|ch|ph|sh|th|wh|zh|[a-z&&[^aeiou]]))([a-z&&[^aeiou]]{1,2})", CASE_INSENSITIVE),
+            compile("(?=[aeiou][a-z&&[^aeiou]]{4}[aeiou])([aeiou][a-z&&[^aeiou]]{2})([a-z&&[^aeiou]]{2})", CASE_INSENSITIVE)
+    );
+
+    private static String[] syllablesFromRegexes(String word) {
+        return splitter.splitAsStream(patterns.stream().reduce(word, (acc, pair) -> pair.matcher(acc).replaceAll("$1-$2"), (a, b) -> a + b))
+                .toArray(String[]::new);
+    }
+}
@@ -0,0 +1,68 @@
+package nortantis.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+public class AssetManifestTest
+{
+	@Test
+	public void listsTheSameFilesAndFoldersAsTheAssetsFolder() throws IOException
+	{
+		AssetManifest manifest = AssetManifest.create(AssetsPath.get());
+
+		List<Path> folders;
+		try (Stream<Path> paths = Files.walk(AssetsPath.get()))
+		{
+			folders = paths.filter(Files::isDirectory).collect(Collectors.toList());
+		}
+		for (Path folder : folders)
+		{
+			String relative = AssetsPath.get().relativize(folder).toString().replace(folder.getFileSystem().getSeparator(), "/");
+			try (Stream<Path> files = Files.list(folder))
+			{
+				assertEquals(relative, files.filter(Files::isRegularFile)
+						.map(path -> path.getFileName().toString())
+						.filter(name -> !(relative.isEmpty() && name.equals(AssetManifest.fileName)))
+						.sorted()
+						.collect(Collectors.toList()), manifest.getFileNames(relative));
+			}
+			try (Stream<Path> subfolders = Files.list(folder))
+			{
+				assertEquals(relative, subfolders.filter(Files::isDirectory).map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList()),
+						manifest.getFolderNames(relative));
+			}
+		}
+	}
+
+	@Test
+	public void readsWhatItWrites() throws IOException
+	{
+		AssetManifest manifest = AssetManifest.create(AssetsPath.get("icons"));
+		Path file = Files.createTempFile("asset manifest", ".tsv");
+		try
+		{
+			manifest.write(file);
+			assertEquals(manifest.getEntries(), AssetManifest.read(file).getEntries());
+		}
+		finally
+		{
+			Files.delete(file);
+		}
+
+		AssetManifest.Entry farm = manifest.getEntry("cities/flat/farm width=22.png");
+		assertNotNull(farm);
+		assertEquals(22, farm.defaultWidth());
+		assertEquals(622, farm.width());
+		assertEquals(219, farm.height());
+		assertEquals(Files.size(AssetsPath.get("icons", "cities", "flat", "farm width=22.png")), farm.size());
+	}
+}
@@ -0,0 +1,80 @@
+package nortantis.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CoverageTableTest
+{
+	@Test
+	public void countMatchesBruteForceWithSinglePixelCells()
+	{
+		BufferedImage mask = createRandomMask(53, 41);
+		CoverageTable table = new CoverageTable(mask, Integer.MAX_VALUE);
+		Random rand = new Random(3);
+		for (int i = 0; i < 500; i++)
+		{
+			int x = rand.nextInt(70) - 10;
+			int y = rand.nextInt(60) - 10;
+			int width = rand.nextInt(30) + 1;
+			int height = rand.nextInt(30) + 1;
+			assertEquals(countBlack(mask, x, y, width, height), table.count(x, y, width, height));
+		}
+	}
+
+	@Test
+	public void coarseCellsNeverMissBlackPixels()
+	{
+		BufferedImage mask = new BufferedImage(100, 100, BufferedImage.TYPE_BYTE_BINARY);
+		for (int y = 0; y < 100; y++)
+		{
+			for (int x = 0; x < 100; x++)
+			{
+				mask.getRaster().setSample(x, y, 0, 1);
+			}
+		}
+		mask.getRaster().setSample(57, 31, 0, 0);
+
+		CoverageTable table = new CoverageTable(mask, 100);
+		assertTrue(table.containsAny(57, 31, 1, 1));
+		assertTrue(table.containsAny(50, 20, 10, 15));
+		assertFalse(table.containsAny(0, 0, 40, 100));
+		assertTrue(table.isOutside(100, 0, 5, 5));
+		assertFalse(table.isOutside(95, 0, 10, 5));
+	}
+
+	private static BufferedImage createRandomMask(int width, int height)
+	{
+		BufferedImage mask = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+		Random rand = new Random(width * 31 + height);
+		for (int y = 0; y < height; y++)
+		{
+			for (int x = 0; x < width; x++)
+			{
+				mask.getRaster().setSample(x, y, 0, rand.nextInt(4) == 0 ? 0 : 1);
+			}
+		}
+		return mask;
+	}
+
+	private static int countBlack(BufferedImage mask, int x, int y, int width, int height)
+	{
+		int count = 0;
+		for (int yi = Math.max(0, y); yi < Math.min(mask.getHeight(), y + height); yi++)
+		{
+			for (int xi = Math.max(0, x); xi < Math.min(mask.getWidth(), x + width); xi++)
+			{
+				if (mask.getRaster().getSample(xi, yi, 0) == 0)
+				{
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+}
@@ -0,0 +1,49 @@
+package nortantis.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ImageHelperConvolutionTest
+{
+	@Test
+	public void separableGaussianMatchesFFTConvolution()
+	{
+		// The image is wide enough and its power of 2 padding is large enough that the FFT convolution doesn't wrap
+		// around the edges.
+		BufferedImage image = new BufferedImage(90, 40, BufferedImage.TYPE_BYTE_GRAY);
+		Random rand = new Random(3);
+		for (int y = 12; y < 28; y++)
+		{
+			for (int x = 15; x < 75; x++)
+			{
+				if (rand.nextInt(3) == 0)
+				{
+					image.getRaster().setSample(x, y, 0, 255);
+				}
+			}
+		}
+
+		for (int kernelSize : new int[] { 1, 4, 7 })
+		{
+			BufferedImage expected = ImageHelper.convolveGrayscale(image, ImageHelper.createGaussianKernel(kernelSize), true);
+			BufferedImage actual = ImageHelper.convolveGrayscaleSeparable(image, ImageHelper.createGaussianKernel1D(kernelSize), true);
+
+			assertEquals(expected.getType(), actual.getType());
+			int maxDifference = 0;
+			for (int y = 0; y < image.getHeight(); y++)
+			{
+				for (int x = 0; x < image.getWidth(); x++)
+				{
+					maxDifference = Math.max(maxDifference,
+							Math.abs(expected.getRaster().getSample(x, y, 0) - actual.getRaster().getSample(x, y, 0)));
+				}
+			}
+			assertTrue("Kernel size " + kernelSize + " differed by " + maxDifference, maxDifference <= 1);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package nortantis.util;
+
+import static nortantis.TestImages.assertPixelsEqual;
+import static nortantis.TestImages.createRandomImage;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ReadOnlyBufferException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RawRasterTest
+{
+	private static final int[] types = { BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_BYTE_GRAY,
+			BufferedImage.TYPE_USHORT_GRAY, BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_4BYTE_ABGR };
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void readReturnsTheImageWritten() throws IOException
+	{
+		for (int type : types)
+		{
+			BufferedImage image = createRandomImage(type, 37, 23, type);
+			Path path = temporaryFolder.newFile().toPath();
+			RawRaster.write(image, path);
+
+			BufferedImage read = RawRaster.read(path);
+			assertEquals(type, read.getType());
+			assertPixelsEqual(image, read);
+		}
+	}
+
+	@Test
+	public void fileCanBeReplacedAfterItIsRead() throws IOException
+	{
+		Path path = temporaryFolder.newFile().toPath();
+		RawRaster.write(createRandomImage(BufferedImage.TYPE_INT_RGB, 8, 5, 0), path);
+		RawRaster.read(path);
+
+		BufferedImage replacement = createRandomImage(BufferedImage.TYPE_BYTE_GRAY, 6, 4, 0);
+		Path temp = temporaryFolder.newFile().toPath();
+		RawRaster.write(replacement, temp);
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+		assertPixelsEqual(replacement, RawRaster.read(path));
+	}
+
+	@Test
+	public void mappedImageHasThePixelsWritten() throws IOException
+	{
+		for (int type : types)
+		{
+			BufferedImage image = createRandomImage(type, 37, 23, type);
+			Path path = temporaryFolder.newFile().toPath();
+			RawRaster.write(image, path);
+
+			assertPixelsEqual(image, RawRaster.map(path));
+		}
+	}
+
+	@Test(expected = ReadOnlyBufferException.class)
+	public void mappedImagesAreReadOnly() throws IOException
+	{
+		Path path = temporaryFolder.newFile().toPath();
+		RawRaster.write(createRandomImage(BufferedImage.TYPE_INT_RGB, 8, 5, 0), path);
+
+		RawRaster.map(path).setRGB(3, 2, 0xff123456);
+	}
+
+	@Test
+	public void writesSubImages() throws IOException
+	{
+		BufferedImage image = createRandomImage(BufferedImage.TYPE_INT_RGB, 40, 30, 0);
+		BufferedImage subImage = image.getSubimage(5, 7, 20, 11);
+		Path path = temporaryFolder.newFile().toPath();
+		RawRaster.write(subImage, path);
+
+		assertPixelsEqual(subImage, RawRaster.read(path));
+	}
+
+	@Test
+	public void imageHelperReadsAndWritesRawFiles()
+	{
+		BufferedImage image = createRandomImage(BufferedImage.TYPE_BYTE_GRAY, 12, 9, 0);
+		Path path = temporaryFolder.getRoot().toPath().resolve("image." + RawRaster.fileExtension);
+		ImageHelper.write(image, path.toString());
+
+		assertPixelsEqual(image, ImageHelper.read(path));
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsTruncatedFiles() throws IOException
+	{
+		Path path = temporaryFolder.newFile().toPath();
+		RawRaster.write(createRandomImage(BufferedImage.TYPE_INT_RGB, 10, 10, 0), path);
+		byte[] bytes = Files.readAllBytes(path);
+		Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+
+		RawRaster.read(path);
+	}
+
+	@Test
+	public void doesNotSupportIndexedImages()
+	{
+		assertFalse(RawRaster.supports(new BufferedImage(4, 4, BufferedImage.TYPE_BYTE_BINARY)));
+	}
+}
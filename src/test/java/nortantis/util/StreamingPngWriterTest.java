@@ -0,0 +1,72 @@
+package nortantis.util;
+
+import static nortantis.TestImages.assertPixelsEqual;
+import static nortantis.TestImages.createRandomImage;
+import static org.junit.Assert.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.zip.Adler32;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+public class StreamingPngWriterTest
+{
+	@Test
+	public void writtenRgbImageReadsBackUnchanged() throws IOException
+	{
+		assertRoundTrip(createRandomImage(BufferedImage.TYPE_INT_RGB, 123, 77, 1), 10);
+	}
+
+	@Test
+	public void writtenArgbImageReadsBackUnchanged() throws IOException
+	{
+		assertRoundTrip(createRandomImage(BufferedImage.TYPE_INT_ARGB, 64, 65, 2), 8);
+	}
+
+	@Test
+	public void singleBandImageReadsBackUnchanged() throws IOException
+	{
+		assertRoundTrip(createRandomImage(BufferedImage.TYPE_INT_RGB, 5, 3, 3), 64);
+	}
+
+	@Test
+	public void adler32CombineMatchesChecksumOfConcatenation()
+	{
+		byte[] first = new byte[70000];
+		byte[] second = new byte[12345];
+		Random rand = new Random(7);
+		rand.nextBytes(first);
+		rand.nextBytes(second);
+
+		Adler32 all = new Adler32();
+		all.update(first);
+		all.update(second);
+
+		Adler32 a = new Adler32();
+		a.update(first);
+		Adler32 b = new Adler32();
+		b.update(second);
+
+		assertEquals(all.getValue(), StreamingPngWriter.adler32Combine(a.getValue(), b.getValue(), second.length));
+	}
+
+	private static void assertRoundTrip(BufferedImage image, int bandHeight) throws IOException
+	{
+		Path file = Files.createTempFile("streamingPngWriterTest", ".png");
+		try
+		{
+			StreamingPngWriter.write(StreamingPngWriter.RowSource.of(image), file, bandHeight, 6);
+			assertPixelsEqual(image, ImageIO.read(file.toFile()));
+		}
+		finally
+		{
+			Files.deleteIfExists(file);
+		}
+	}
+}